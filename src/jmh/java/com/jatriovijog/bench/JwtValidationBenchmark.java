@@ -0,0 +1,72 @@
+package com.jatriovijog.bench;
+
+import com.jatriovijog.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtUtil#validateToken} for a token seen before (cache hit) and
+ * for one that has to be verified (the cache keeps nothing), against
+ * building a parser on every call as {@code JwtUtil} used to. Add
+ * {@code -t 8} to measure a busy server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "c3VwZXItc2VjcmV0LWtleS1mb3ItdGhlLWphdHJpLW92aWpvZy1iZW5jaG1hcms=";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private SecretKey key;
+    private String token;
+
+    @Setup
+    public void createToken() {
+        cached = new JwtUtil(new SimpleMeterRegistry(), SECRET, 86_400_000, 10_000, 300);
+        // entries expire as soon as they are written, so every call verifies
+        uncached = new JwtUtil(new SimpleMeterRegistry(), SECRET, 86_400_000, 10_000, 0);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        token = cached.generateToken(Map.of("role", "police", "id", 42), "officer@example.com");
+    }
+
+    @Benchmark
+    public Claims cached() {
+        return cached.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims uncached() {
+        return uncached.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
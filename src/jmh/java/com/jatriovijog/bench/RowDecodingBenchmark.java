@@ -0,0 +1,145 @@
+package com.jatriovijog.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a PostgREST list response into the typed models against the
+ * {@code List<Map<String,Object>>} rows used before. The round trip
+ * variants also write the rows back out, as a read endpoint does. Run
+ * with {@code -prof gc} to compare allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowDecodingBenchmark {
+
+    private static final TypeReference<List<Map<String, Object>>> LIST_OF_MAP = new TypeReference<>() {};
+
+    @Param({"complaints", "emergency_reports", "users"})
+    public String table;
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private JavaType typed;
+    private byte[] response;
+
+    @Setup
+    public void createResponse() throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            list.add(switch (table) {
+                case "complaints" -> complaint(i);
+                case "emergency_reports" -> emergency(i);
+                case "users" -> user(i);
+                default -> throw new IllegalArgumentException(table);
+            });
+        }
+        Class<?> model = switch (table) {
+            case "complaints" -> Complaint.class;
+            case "emergency_reports" -> EmergencyReport.class;
+            default -> User.class;
+        };
+        typed = mapper.getTypeFactory().constructCollectionType(List.class, model);
+        response = mapper.writeValueAsBytes(list);
+    }
+
+    private static Map<String, Object> complaint(long id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("category", "Harassment");
+        row.put("status", id % 3 == 0 ? "resolved" : "new");
+        row.put("thana", "Mirpur");
+        row.put("route", "Gulistan - Mirpur");
+        row.put("bus_name", "Bikash Paribahan");
+        row.put("bus_number", "Dhaka Metro-BA 11-" + (1000 + id % 9000));
+        row.put("image_url", "https://example.supabase.co/storage/v1/object/public/complaints/" + id + ".webp");
+        row.put("reporter_type", "passenger");
+        row.put("description", "Conductor refused to give change and shouted at an old passenger near the gate");
+        row.put("created_at", "2026-10-18T09:00:00.123456+00:00");
+        row.put("user_id", 42L);
+        row.put("verified", id % 2 == 0);
+        row.put("verification_note", null);
+        row.put("client_key", "c-" + id);
+        row.put("duplicate_of", null);
+        return row;
+    }
+
+    private static Map<String, Object> emergency(long id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("latitude", 23.7509 + id * 1e-5);
+        row.put("longitude", 90.3935 + id * 1e-5);
+        row.put("accuracy", 12.5);
+        row.put("audio_url", null);
+        row.put("created_at", "2026-10-18T09:00:00.123456+00:00");
+        row.put("user_id", 42L);
+        row.put("status", "new");
+        row.put("type", "harassment");
+        row.put("passenger", "female");
+        row.put("location", "Farmgate");
+        row.put("description", "Being followed by the helper after getting off the bus");
+        row.put("audio", null);
+        row.put("client_key", "e-" + id);
+        return row;
+    }
+
+    private static Map<String, Object> user(long id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("name", "Passenger " + id);
+        row.put("email", "passenger" + id + "@example.com");
+        row.put("password", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Y5hG6K3y5s3YgK1qz3Xy6u");
+        row.put("role", "user");
+        row.put("created_at", "2026-10-18T09:00:00.123456+00:00");
+        return row;
+    }
+
+    @Benchmark
+    public List<?> typed() throws IOException {
+        return mapper.readValue(response, typed);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> maps() throws IOException {
+        return mapper.readValue(response, LIST_OF_MAP);
+    }
+
+    @Benchmark
+    public byte[] typedRoundTrip() throws IOException {
+        return mapper.writeValueAsBytes(mapper.readValue(response, typed));
+    }
+
+    @Benchmark
+    public byte[] mapsRoundTrip() throws IOException {
+        return mapper.writeValueAsBytes(mapper.readValue(response, LIST_OF_MAP));
+    }
+}
@@ -0,0 +1,67 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Admits police officers to the chat WebSocket. Browsers cannot set an
+ * {@code Authorization} header on a WebSocket, so the token comes as the
+ * {@code token} query parameter; it must verify and carry
+ * {@code role=police}. The token's subject becomes the {@code officer}
+ * session attribute and the optional {@code name} parameter the display
+ * name.
+ */
+public class ChatHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String OFFICER = "officer";
+    public static final String NAME = "name";
+
+    private final JwtUtil jwtUtil;
+
+    public ChatHandshakeInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return false;
+        }
+        String token = servletRequest.getServletRequest().getParameter("token");
+        if (token == null || token.isBlank()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        Claims claims;
+        try {
+            claims = jwtUtil.validateToken(token.trim());
+        } catch (JwtException | IllegalArgumentException e) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        if (!"police".equals(claims.get("role"))) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+        String name = servletRequest.getServletRequest().getParameter("name");
+        attributes.put(OFFICER, claims.getSubject());
+        attributes.put(NAME, name == null || name.isBlank() ? claims.getSubject()
+                : name.trim().substring(0, Math.min(name.trim().length(), 80)));
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
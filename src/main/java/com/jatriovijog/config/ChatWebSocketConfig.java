@@ -0,0 +1,49 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.controller.ChatSocketHandler;
+import com.jatriovijog.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Serves the police team chat WebSocket at {@code /ws/chat}. Only
+ * same-origin pages may connect, and the handshake is authenticated by the
+ * {@link ChatHandshakeInterceptor}.
+ */
+@Configuration
+@EnableWebSocket
+public class ChatWebSocketConfig implements WebSocketConfigurer {
+
+    private final ChatSocketHandler chatSocketHandler;
+    private final JwtUtil jwtUtil;
+
+    public ChatWebSocketConfig(ChatSocketHandler chatSocketHandler, JwtUtil jwtUtil) {
+        this.chatSocketHandler = chatSocketHandler;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(chatSocketHandler, "/ws/chat")
+                .addInterceptors(new ChatHandshakeInterceptor(jwtUtil));
+    }
+
+    /**
+     * Largest incoming frame, which bounds the text of one message, and how
+     * long a session may stay silent; clients ping well within it.
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer(
+            @Value("${chat.max-frame-bytes:16384}") int maxFrameBytes,
+            @Value("${chat.idle-timeout-ms:120000}") long idleTimeoutMs) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxFrameBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMs);
+        return container;
+    }
+}
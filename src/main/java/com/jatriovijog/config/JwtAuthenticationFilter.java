@@ -0,0 +1,84 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests that carry an {@code Authorization: Bearer <token>}
+ * header. The token is checked with {@link JwtUtil#validateToken(String)};
+ * when valid the subject becomes the principal, the claims are attached as
+ * details and the {@code role} claim is granted as {@code ROLE_<role>}.
+ * Browsers cannot set headers on an {@code EventSource}, so the alert
+ * stream alone also takes the token as the {@code token} query parameter,
+ * like the chat WebSocket.
+ *
+ * <p>
+ * Requests without a token, or with one that does not verify, continue
+ * unauthenticated. Which endpoints require authentication is decided by
+ * {@link SecurityConfig}, not here.
+ * </p>
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER = "Bearer ";
+    private static final String EVENT_STREAM = "/api/alerts/stream";
+
+    private final JwtUtil jwtUtil;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String token = token(request);
+        if (token != null) {
+            try {
+                Claims claims = jwtUtil.validateToken(token);
+                Object role = claims.get("role");
+                List<SimpleGrantedAuthority> authorities = role == null
+                        ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + role));
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
+                authentication.setDetails(claims);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Ignoring invalid bearer token: {}", e.getMessage());
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** The bearer token, or the {@code token} parameter of the alert stream. */
+    private static String token(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            return header.substring(BEARER.length()).trim();
+        }
+        String parameter = request.getParameter("token");
+        if (parameter != null && !parameter.isBlank() && "GET".equals(request.getMethod())
+                && EVENT_STREAM.equals(request.getServletPath())) {
+            return parameter.trim();
+        }
+        return null;
+    }
+}
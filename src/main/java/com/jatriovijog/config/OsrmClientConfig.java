@@ -0,0 +1,38 @@
+package com.jatriovijog.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * Builds the {@link WebClient} used to ask an OSRM server for road
+ * distances. {@code fare.osrm.base-url} defaults to a self-hosted OSRM on
+ * its standard port; the public demo server is rate limited and not meant
+ * for production traffic.
+ */
+@Configuration
+public class OsrmClientConfig {
+
+    @Bean
+    public WebClient osrmWebClient(
+            @Value("${fare.osrm.base-url:http://localhost:5000}") String baseUrl,
+            @Value("${fare.osrm.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${fare.osrm.response-timeout-ms:2000}") long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .compress(true);
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jatriovijog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool for {@code supabase.repository=jdbc}, where
+ * {@code JdbcRepository} talks to Postgres directly instead of going through
+ * PostgREST. Spring Boot's own datasource auto-configuration is excluded so
+ * the default REST mode needs no database credentials; with this pool in
+ * place Flyway migrates the schema from {@code db/migration} on startup and
+ * the pool is published as {@code hikaricp.*} metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "supabase.repository", havingValue = "jdbc")
+public class PostgresConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource dataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${postgres.pool.max-size:10}") int maxSize,
+            @Value("${postgres.pool.connection-timeout-ms:5000}") long connectionTimeoutMs) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("postgres");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maxSize);
+        config.setConnectionTimeout(connectionTimeoutMs);
+        // string parameters are typed by the server, so ISO timestamps, UUIDs and JSON bind to their columns
+        config.addDataSourceProperty("stringtype", "unspecified");
+        config.addDataSourceProperty("ApplicationName", "jatri-backend");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Migrate on startup even with {@code spring.main.lazy-initialization}
+     * (the prod profile), where nothing would otherwise ask for the
+     * migration before the first query.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerFlywayMigration() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RateLimiter} policies to the public write endpoints:
+ * signup and login ({@code auth}), complaint submission
+ * ({@code complaints}), SOS reports ({@code emergencies}) and uploads
+ * ({@code uploads}). Other requests pass through untouched.
+ *
+ * <p>
+ * Requests are attributed to the authenticated user when a valid token was
+ * sent, so it runs after the {@link JwtAuthenticationFilter}, and to the
+ * remote address otherwise. Behind a reverse proxy set
+ * {@code server.forward-headers-strategy} so the remote address is the
+ * client's. A rejected request is answered {@code 429} with a
+ * {@code Retry-After} in whole seconds.
+ * </p>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String policy = policyFor(request);
+        if (policy != null) {
+            long waitNanos = rateLimiter.tryAcquire(policy, client(request));
+            if (waitNanos > 0) {
+                long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\":\"Too many requests, please retry in " + seconds + " s\"}");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String policyFor(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return "auth";
+        }
+        if (path.startsWith("/api/uploads/")) {
+            return "uploads";
+        }
+        if (path.startsWith("/api/complaints/") && (path.contains("/reactions/") || path.endsWith("/views"))) {
+            return "reactions";
+        }
+        return switch (path) {
+            case "/api/complaints", "/api/complaints/" -> "complaints";
+            case "/api/emergencies", "/api/emergencies/" -> "emergencies";
+            default -> null;
+        };
+    }
+
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getName() != null) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
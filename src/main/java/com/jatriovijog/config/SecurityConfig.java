@@ -1,35 +1,71 @@
 package com.jatriovijog.config;
 
+import com.jatriovijog.service.RateLimiter;
+import com.jatriovijog.util.JwtUtil;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Basic Spring Security configuration. In this simple setup we disable
  * cross-site request forgery protection (CSRF) and allow all incoming
- * requests. In a production environment you should restrict access and
- * require authentication for protected endpoints. A {@link PasswordEncoder}
- * bean is provided for hashing user passwords.
+ * requests, except that the police team chat API, the live alert stream,
+ * complaint status updates, the operational counters under
+ * {@code /api/stats} and every actuator endpoint but health require a
+ * token with {@code role=police}. In a production environment you should
+ * restrict access and require authentication for protected endpoints. A
+ * {@link PasswordEncoder} bean is provided for hashing user passwords.
+ *
+ * <p>
+ * Every request passes through the {@link JwtAuthenticationFilter}, so a
+ * valid bearer token populates the security context even while all
+ * endpoints are still permitted. Sessions are not created; the token is the
+ * only credential. Right after it the {@link RateLimitFilter} throttles the
+ * public write endpoints per user or address.
+ * </p>
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtil jwtUtil,
+                                                   RateLimiter rateLimiter) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new RateLimitFilter(rateLimiter), JwtAuthenticationFilter.class)
                 .authorizeHttpRequests(authz -> authz
+                        // reactive results complete in an async dispatch, after access was already checked
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        .requestMatchers("/api/chat/**", "/api/stats/**", "/api/alerts/**").hasRole("police")
+                        .requestMatchers(HttpMethod.PATCH, "/api/complaints/*/status").hasRole("police")
+                        .requestMatchers(HttpMethod.POST, "/api/complaints/status:batch").hasRole("police")
+                        // probes stay open; metrics and prometheus expose what /api/stats does
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("police")
                         .anyRequest().permitAll());
         return http.build();
     }
 
+    /**
+     * BCrypt encoder with a per-deployment cost ({@code security.bcrypt.strength},
+     * 4 to 31). Each step doubles the hashing time. Existing hashes keep
+     * verifying after a change because the cost is stored in the hash.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
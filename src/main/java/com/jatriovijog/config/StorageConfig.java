@@ -0,0 +1,65 @@
+package com.jatriovijog.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Wiring for uploaded files. Builds the {@link WebClient} for the Supabase
+ * Storage API, sharing the Supabase connection pool but with its own,
+ * longer response timeout since request bodies are whole files. With
+ * {@code uploads.storage=local} it also serves the upload directory under
+ * {@code /uploads/**}.
+ */
+@Configuration
+public class StorageConfig implements WebMvcConfigurer {
+
+    private final String storage;
+    private final String localDir;
+
+    public StorageConfig(@Value("${uploads.storage:local}") String storage,
+                         @Value("${uploads.local.dir:./data/uploads}") String localDir) {
+        this.storage = storage;
+        this.localDir = localDir;
+    }
+
+    @Bean
+    public WebClient supabaseStorageWebClient(
+            ConnectionProvider supabaseConnectionProvider,
+            @Value("${supabase.url}") String baseUrl,
+            @Value("${uploads.supabase.key:${supabase.apikey}}") String apiKey,
+            @Value("${supabase.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${uploads.supabase.response-timeout-ms:60000}") long responseTimeoutMs) {
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        HttpClient httpClient = HttpClient.create(supabaseConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        return WebClient.builder()
+                .baseUrl(trimmed + "/storage/v1")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader("apikey", apiKey)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        if ("local".equalsIgnoreCase(storage)) {
+            // the directory may not exist yet, and only then does toUri() leave off the trailing slash
+            String location = Path.of(localDir).toAbsolutePath().normalize().toUri().toString();
+            registry.addResourceHandler("/uploads/**")
+                    .addResourceLocations(location.endsWith("/") ? location : location + "/");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jatriovijog.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the {@link WebClient} used by the Supabase services. The underlying
+ * Reactor Netty connection pool, timeouts, compression and protocol are all
+ * driven by the {@code supabase.http.*} properties instead of library
+ * defaults, and the pool reports its occupancy and acquire times to
+ * {@link SupabasePoolMetrics}.
+ *
+ * <p>
+ * For {@code supabase.client.mode=blocking} it also builds a
+ * {@link RestClient} on the JDK HTTP client and the scheduler its blocking
+ * calls run on.
+ * </p>
+ */
+@Configuration
+public class SupabaseClientConfig {
+
+    private static final String ACQUIRE_START = SupabaseClientConfig.class.getName() + ".acquireStart";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider(
+            SupabasePoolMetrics poolMetrics,
+            @Value("${supabase.http.max-connections:100}") int maxConnections,
+            @Value("${supabase.http.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${supabase.http.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+            @Value("${supabase.http.max-idle-time-ms:30000}") long maxIdleTimeMs,
+            @Value("${supabase.http.max-life-time-ms:300000}") long maxLifeTimeMs,
+            @Value("${supabase.http.evict-in-background-ms:30000}") long evictInBackgroundMs) {
+        return ConnectionProvider.builder("supabase")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictInBackgroundMs))
+                .metrics(true, () -> poolMetrics)
+                .build();
+    }
+
+    @Bean
+    public WebClient supabaseWebClient(
+            ConnectionProvider supabaseConnectionProvider,
+            SupabasePoolMetrics poolMetrics,
+            @Value("${supabase.url}") String baseUrl,
+            @Value("${supabase.apikey}") String apiKey,
+            @Value("${supabase.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${supabase.http.response-timeout-ms:10000}") long responseTimeoutMs,
+            @Value("${supabase.http.compression:true}") boolean compression,
+            @Value("${supabase.http.http2:false}") boolean http2) {
+
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        String restUrl = trimmed + "/rest/v1";
+
+        HttpClient httpClient = HttpClient.create(supabaseConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .compress(compression)
+                // reactor.netty.http.client.* timers and data sent/received summaries, tagged by path only
+                .metrics(true, uri -> {
+                    int query = uri.indexOf('?');
+                    return query < 0 ? uri : uri.substring(0, query);
+                })
+                // a connection has been acquired from the pool once the request is about to be sent
+                .doOnRequest((request, connection) -> request.currentContextView()
+                        .<Long>getOrEmpty(ACQUIRE_START)
+                        .ifPresent(start -> poolMetrics.recordAcquire(System.nanoTime() - start)));
+        if (http2) {
+            // HTTP/2 over TLS via ALPN, falling back to HTTP/1.1 when the server does not offer it
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .baseUrl(restUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // ✅ Supabase requires: apikey + Authorization
+                .defaultHeader("apikey", apiKey)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
+                .filter((request, next) -> Mono.defer(() -> next.exchange(request)
+                        .contextWrite(Context.of(ACQUIRE_START, System.nanoTime()))))
+                .build();
+    }
+
+    /**
+     * Blocking client for {@code supabase.client.mode=blocking}, with the
+     * same base URL, headers and timeouts as {@link #supabaseWebClient}.
+     */
+    @Bean
+    public RestClient supabaseRestClient(
+            @Value("${supabase.url}") String baseUrl,
+            @Value("${supabase.apikey}") String apiKey,
+            @Value("${supabase.http.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${supabase.http.response-timeout-ms:10000}") long responseTimeoutMs) {
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(java.net.http.HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build());
+        requestFactory.setReadTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return RestClient.builder()
+                .baseUrl(trimmed + "/rest/v1")
+                // request bodies are small JSON documents; buffering them sends a Content-Length instead of chunks
+                .requestFactory(new BufferingClientHttpRequestFactory(requestFactory))
+                .defaultHeader("apikey", apiKey)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
+                .build();
+    }
+
+    /**
+     * Where blocking Supabase calls run. With {@code spring.threads.virtual.enabled}
+     * on Java 21 or later every call gets its own virtual thread; otherwise
+     * they share Reactor's bounded elastic pool of platform threads.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler supabaseBlockingScheduler(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("supabase-");
+            executor.setVirtualThreads(true);
+            return Schedulers.fromExecutor(executor);
+        }
+        return Schedulers.boundedElastic();
+    }
+
+    /**
+     * Retry policy for idempotent reads: exponential backoff with jitter on
+     * connection failures, timeouts and 502/503/504 responses, up to
+     * {@code max-retries} times after the first try. Writes are never
+     * retried.
+     */
+    @Bean
+    public RetryBackoffSpec supabaseReadRetry(
+            @Value("${supabase.http.retry.max-retries:2}") int maxRetries,
+            @Value("${supabase.http.retry.backoff-ms:100}") long backoffMs) {
+        return Retry.backoff(maxRetries, Duration.ofMillis(backoffMs))
+                .jitter(0.5)
+                .filter(SupabaseClientConfig::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientRequestException || error instanceof ResourceAccessException
+                || error instanceof TimeoutException) {
+            return true;
+        }
+        int status;
+        if (error instanceof WebClientResponseException response) {
+            status = response.getStatusCode().value();
+        } else if (error instanceof RestClientResponseException response) {
+            status = response.getStatusCode().value();
+        } else {
+            return false;
+        }
+        return status == 502 || status == 503 || status == 504;
+    }
+}
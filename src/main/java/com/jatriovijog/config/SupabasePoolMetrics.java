@@ -0,0 +1,66 @@
+package com.jatriovijog.config;
+
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Collects the state of the Supabase connection pool. Reactor Netty keeps
+ * one pool per remote address and registers each one here; the figures
+ * are summed across them. Acquire time is measured from the moment a
+ * request is issued until it has a connection to be written on.
+ *
+ * <p>
+ * The figures are published to Micrometer as the
+ * {@code supabase.pool.connections} gauge (tagged by state, including the
+ * {@code max} allowed) and the {@code supabase.pool.acquire} timer.
+ * </p>
+ */
+@Component
+public class SupabasePoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final Timer acquireTimer;
+
+    public SupabasePoolMetrics(MeterRegistry meterRegistry) {
+        gauge(meterRegistry, "active", ConnectionPoolMetrics::acquiredSize);
+        gauge(meterRegistry, "idle", ConnectionPoolMetrics::idleSize);
+        gauge(meterRegistry, "pending", ConnectionPoolMetrics::pendingAcquireSize);
+        gauge(meterRegistry, "allocated", ConnectionPoolMetrics::allocatedSize);
+        gauge(meterRegistry, "max", ConnectionPoolMetrics::maxAllocatedSize);
+        this.acquireTimer = LatencyTimers.timer(meterRegistry, "supabase.pool.acquire",
+                "Time until a Supabase request has a pooled connection");
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String state, ToIntFunction<ConnectionPoolMetrics> value) {
+        Gauge.builder("supabase.pool.connections", pools,
+                        all -> all.values().stream().mapToInt(value).sum())
+                .description("Supabase connection pool connections by state")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(id, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id);
+    }
+
+    void recordAcquire(long nanos) {
+        acquireTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
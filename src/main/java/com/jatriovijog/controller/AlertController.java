@@ -0,0 +1,49 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.AlertHub;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Server-Sent Events stream of new complaints and SOS reports for police
+ * clients, backed by the {@link AlertHub}. Endpoints are available under
+ * the {@code /api/alerts} base path and require a token with
+ * {@code role=police}; since {@code EventSource} cannot send headers it
+ * may come as the {@code token} query parameter.
+ */
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    private static final Duration KEEPALIVE = Duration.ofSeconds(15);
+
+    private final AlertHub alertHub;
+
+    public AlertController(AlertHub alertHub) {
+        this.alertHub = alertHub;
+    }
+
+    /**
+     * Open an event stream. Each event is named {@code complaint} or
+     * {@code emergency} and carries the created row as JSON. A comment is
+     * sent periodically so idle connections are not closed by proxies.
+     *
+     * @param thana optional thana; when set only complaints from it are sent
+     * @return the event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(@RequestParam(value = "thana", required = false) String thana) {
+        Flux<ServerSentEvent<Object>> alerts = alertHub.subscribe(thana)
+                .map(alert -> ServerSentEvent.builder(alert.data()).event(alert.type()).build());
+        Flux<ServerSentEvent<Object>> keepalive = Flux.interval(KEEPALIVE)
+                .map(tick -> ServerSentEvent.builder().comment("keepalive").build());
+        return Flux.merge(alerts, keepalive);
+    }
+}
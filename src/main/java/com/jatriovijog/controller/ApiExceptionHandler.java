@@ -0,0 +1,24 @@
+package com.jatriovijog.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Turns request validation failures into {@code 400 Bad Request}. Controllers
+ * and the query types they build ({@code ComplaintQuery}, fare points, map
+ * bounds, ...) reject bad parameters with an
+ * {@link IllegalArgumentException}, thrown or emitted as a reactive error;
+ * the answer uses the {@code {"error": ...}} body of the other endpoints.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage() == null ? "Invalid request" : e.getMessage()));
+    }
+}
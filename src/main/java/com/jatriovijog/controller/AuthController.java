@@ -1,23 +1,27 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.model.User;
+import com.jatriovijog.service.PasswordHashingService;
 import com.jatriovijog.service.SupabaseService;
 import com.jatriovijog.util.JwtUtil;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Simple authentication controller that allows users to sign up and log in.
  * Users are stored in the Supabase {@code users} table via the
  * {@link SupabaseService}. JWTs are generated using {@link JwtUtil}.
+ * Password hashing runs on the {@link PasswordHashingService} pool; when it
+ * is saturated both endpoints answer {@code 429} with a {@code Retry-After}.
  */
 @RestController
 @RequestMapping("/api/auth")
@@ -25,22 +29,24 @@ import java.util.Map;
 public class AuthController {
 
     private final SupabaseService supabaseService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final JwtUtil jwtUtil;
 
     public AuthController(SupabaseService supabaseService,
-                          PasswordEncoder passwordEncoder,
+                          PasswordHashingService passwordHashing,
                           JwtUtil jwtUtil) {
         this.supabaseService = supabaseService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
         this.jwtUtil = jwtUtil;
     }
 
     /**
-     * Create a new user account.
+     * Create a new user account. Accounts are always created with role
+     * {@code user}; police accounts are set up in the database by an
+     * administrator, since the role decides access to the police chat.
      *
-     * @param request map containing "name", "email", "password" and
-     *                optionally "role" (defaults to "user")
+     * @param request map containing "name", "email" and "password"; a
+     *                "role" other than "user" is rejected
      * @return success or error
      */
     @PostMapping("/signup")
@@ -53,20 +59,33 @@ public class AuthController {
         if (name.isEmpty() || email.isEmpty() || password.isEmpty()) {
             return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Name, email and password are required")));
         }
+        if (!"user".equals(role)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Police accounts are created by an administrator")));
+        }
 
         return supabaseService.getUserByEmail(email)
-                .flatMap(users -> {
-                    if (!users.isEmpty()) {
+                .hasElement()
+                .flatMap(exists -> {
+                    if (exists) {
                         return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Email already in use")));
                     }
-                    Map<String, Object> payload = new HashMap<>();
-                    payload.put("name", name);
-                    payload.put("email", email);
-                    payload.put("password", passwordEncoder.encode(password));
-                    payload.put("role", role);
-                    return supabaseService.createUser(payload)
-                            .map(user -> ResponseEntity.ok().body(user));
-                });
+                    return passwordHashing.encode(password)
+                            .flatMap(hashed -> {
+                                User payload = new User();
+                                payload.setName(name);
+                                payload.setEmail(email);
+                                payload.setPassword(hashed);
+                                payload.setRole("user");
+                                return supabaseService.createUser(payload);
+                            })
+                            .map(user -> {
+                                // never hand the password hash back to the client
+                                user.setPassword(null);
+                                return ResponseEntity.ok().body(user);
+                            });
+                })
+                .onErrorResume(PasswordHashingService.OverloadedException.class, AuthController::overloaded);
     }
 
     /**
@@ -83,24 +102,31 @@ public class AuthController {
             return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Email and password are required")));
         }
         return supabaseService.getUserByEmail(email)
-                .flatMap(users -> {
-                    if (users.isEmpty()) {
-                        return Mono.just(ResponseEntity.status(401).body(Map.of("error", "Invalid credentials")));
-                    }
-                    Map<String, Object> user = (Map<String, Object>) users.get(0);
-                    String hashed = (String) user.get("password");
-                    if (!passwordEncoder.matches(password, hashed)) {
-                        return Mono.just(ResponseEntity.status(401).body(Map.of("error", "Invalid credentials")));
-                    }
-                    // build minimal claims for token; embed user id and role
-                    Map<String, Object> claims = new HashMap<>();
-                    claims.put("userId", user.get("id"));
-                    claims.put("role", user.get("role"));
-                    String token = jwtUtil.generateToken(claims, email);
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("token", token);
-                    response.put("user", user);
-                    return Mono.just(ResponseEntity.ok(response));
-                });
+                .<ResponseEntity<?>>flatMap(user -> passwordHashing.matches(password, user.getPassword())
+                        .map(matches -> {
+                            if (!matches) {
+                                return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+                            }
+                            // build minimal claims for token; embed user id and role
+                            Map<String, Object> claims = new HashMap<>();
+                            claims.put("userId", user.getId());
+                            claims.put("role", user.getRole());
+                            String token = jwtUtil.generateToken(claims, email);
+                            // never hand the password hash back to the client
+                            user.setPassword(null);
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("token", token);
+                            response.put("user", user);
+                            return ResponseEntity.ok(response);
+                        }))
+                .switchIfEmpty(Mono.fromSupplier(() ->
+                        ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"))))
+                .onErrorResume(PasswordHashingService.OverloadedException.class, AuthController::overloaded);
+    }
+
+    private static Mono<ResponseEntity<?>> overloaded(PasswordHashingService.OverloadedException e) {
+        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage())));
     }
 }
\ No newline at end of file
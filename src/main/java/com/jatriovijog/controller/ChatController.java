@@ -0,0 +1,132 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.service.ChatService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Police team chat channels, membership and history, under
+ * {@code /api/chat}. Only tokens with {@code role=police} are admitted
+ * (see {@code SecurityConfig}); the officer is the token's subject. New
+ * messages are pushed over the {@link ChatSocketHandler} WebSocket, which
+ * is also the usual way to post them.
+ */
+@RestController
+@RequestMapping("/api/chat")
+public class ChatController {
+
+    private static final int MAX_PAGE = 200;
+
+    private final ChatService chatService;
+
+    public ChatController(ChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    /**
+     * Every channel with its members and the {@code seq} of its newest
+     * message.
+     *
+     * @return the channels, by name
+     */
+    @GetMapping("/channels")
+    public Mono<ResponseEntity<?>> getChannels() {
+        return respond(Mono.fromSupplier(chatService::channels));
+    }
+
+    /**
+     * Create a channel from {@code name}, optional {@code id} (derived from
+     * the name when absent), {@code type} and {@code description}. The
+     * caller becomes its first member.
+     *
+     * @return the created channel
+     */
+    @PostMapping("/channels")
+    public Mono<ResponseEntity<?>> createChannel(@RequestBody ChatChannel channel, Authentication officer) {
+        return respond(chatService.createChannel(officer.getName(), channel));
+    }
+
+    /**
+     * Join a channel; its messages are then pushed to the caller's sessions.
+     *
+     * @return the channel with its new member list
+     */
+    @PostMapping("/channels/{id}/members")
+    public Mono<ResponseEntity<?>> join(@PathVariable String id, Authentication officer) {
+        return respond(chatService.join(officer.getName(), id));
+    }
+
+    /**
+     * Leave a channel.
+     *
+     * @return the channel with its new member list
+     */
+    @DeleteMapping("/channels/{id}/members")
+    public Mono<ResponseEntity<?>> leave(@PathVariable String id, Authentication officer) {
+        return respond(chatService.leave(officer.getName(), id));
+    }
+
+    /**
+     * A page of a joined channel's history, oldest first. Pass the
+     * {@code seq} of the oldest message shown as {@code before} to load the
+     * page preceding it.
+     *
+     * @param before only messages with a lower {@code seq}; {@code 0} for
+     *               the newest
+     * @param limit  messages per page, at most {@value #MAX_PAGE}
+     * @return the messages
+     */
+    @GetMapping("/channels/{id}/messages")
+    public Mono<ResponseEntity<?>> getMessages(@PathVariable String id,
+                                               @RequestParam(value = "before", defaultValue = "0") long before,
+                                               @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                               Authentication officer) {
+        if (limit < 1 || limit > MAX_PAGE) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE)));
+        }
+        return respond(chatService.history(officer.getName(), id, before, limit));
+    }
+
+    /**
+     * Post a message without a WebSocket; it is pushed to the members like
+     * one sent over the socket.
+     *
+     * @return the message as delivered, with its {@code seq}
+     */
+    @PostMapping("/channels/{id}/messages")
+    public Mono<ResponseEntity<?>> postMessage(@PathVariable String id, @RequestBody ChatMessage message,
+                                               Authentication officer) {
+        return respond(chatService.send(officer.getName(), message.getSenderName(), id, message));
+    }
+
+    private static Mono<ResponseEntity<?>> respond(Mono<?> result) {
+        return result.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> error(HttpStatus.BAD_REQUEST, e))
+                .onErrorResume(ChatService.UnknownChannelException.class, e -> error(HttpStatus.NOT_FOUND, e))
+                .onErrorResume(ChatService.NotMemberException.class, e -> error(HttpStatus.FORBIDDEN, e))
+                .onErrorResume(ChatService.NotReadyException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "5")
+                                .body(Map.of("error", e.getMessage()))));
+    }
+
+    private static Mono<ResponseEntity<?>> error(HttpStatus status, RuntimeException e) {
+        return Mono.just(ResponseEntity.status(status).body(Map.of("error", e.getMessage())));
+    }
+}
@@ -0,0 +1,147 @@
+package com.jatriovijog.controller;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.config.ChatHandshakeInterceptor;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.service.ChatService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The police team chat WebSocket ({@code /ws/chat?token=<jwt>}).
+ *
+ * <p>
+ * Every frame is a JSON object with a {@code type}. The server pushes
+ * {@code message} frames ({@code message} holds the {@link ChatMessage})
+ * for the channels the officer has joined, {@code members} frames when a
+ * channel's members change, and {@code error} frames echoing the
+ * {@code ref} of the request that failed. Clients send
+ * {@code {"type":"send","ref":"…","message":{"channel_id":"…","text":"…"}}}
+ * to post, with optional {@code image_url}, {@code case_id} and
+ * {@code case_tag}, and {@code {"type":"ping"}} to keep the connection
+ * open, answered by {@code pong}. Joining channels and loading history go
+ * through {@link ChatController}.
+ * </p>
+ *
+ * <p>
+ * Frames for a session are written on a worker thread, one at a time and in
+ * order, so a slow socket never holds up the sender or other officers.
+ * </p>
+ */
+@Component
+public class ChatSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSocketHandler.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String OUT = "out";
+    private static final String SUBSCRIPTION = "subscription";
+
+    /**
+     * A frame sent by a client.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Inbound(String type, String ref, ChatMessage message) {}
+
+    private final ChatService chatService;
+    private final int sendTimeLimitMs;
+    private final int sendBufferBytes;
+
+    public ChatSocketHandler(ChatService chatService,
+                             @Value("${chat.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                             @Value("${chat.send-buffer-bytes:524288}") int sendBufferBytes) {
+        this.chatService = chatService;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferBytes = sendBufferBytes;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // replies from request threads and pushes from the worker may overlap; the decorator serializes them
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferBytes);
+        session.getAttributes().put(OUT, out);
+        Disposable subscription = chatService.subscribe(officer(session))
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .subscribe(frame -> {
+                    send(out, frame.json());
+                    chatService.delivered(frame);
+                }, error -> close(out, CloseStatus.SESSION_NOT_RELIABLE.withReason(error.getMessage())));
+        session.getAttributes().put(SUBSCRIPTION, subscription);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage text) {
+        WebSocketSession out = (WebSocketSession) session.getAttributes().get(OUT);
+        Inbound inbound;
+        try {
+            inbound = MAPPER.readValue(text.getPayload(), Inbound.class);
+        } catch (IOException e) {
+            reply(out, null, "Malformed frame");
+            return;
+        }
+        if ("ping".equals(inbound.type())) {
+            send(out, "{\"type\":\"pong\"}");
+        } else if ("send".equals(inbound.type()) && inbound.message() != null) {
+            String name = (String) session.getAttributes().get(ChatHandshakeInterceptor.NAME);
+            chatService.send(officer(session), name, inbound.message().getChannelId(), inbound.message())
+                    .subscribe(sent -> {
+                    }, error -> reply(out, inbound.ref(), error.getMessage()));
+        } else {
+            reply(out, inbound.ref(), "Unknown frame type");
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Object subscription = session.getAttributes().get(SUBSCRIPTION);
+        if (subscription instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    private static String officer(WebSocketSession session) {
+        return (String) session.getAttributes().get(ChatHandshakeInterceptor.OFFICER);
+    }
+
+    private static void reply(WebSocketSession out, String ref, String error) {
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "error");
+        frame.put("ref", ref);
+        frame.put("error", error);
+        try {
+            send(out, MAPPER.writeValueAsString(frame));
+        } catch (IOException e) {
+            log.debug("Could not encode chat error: {}", e.toString());
+        }
+    }
+
+    private static void send(WebSocketSession out, String json) {
+        try {
+            out.sendMessage(new TextMessage(json));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Closing chat session {}: {}", out.getId(), e.toString());
+            close(out, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static void close(WebSocketSession out, CloseStatus status) {
+        try {
+            out.close(status);
+        } catch (IOException e) {
+            log.debug("Could not close chat session {}: {}", out.getId(), e.toString());
+        }
+    }
+}
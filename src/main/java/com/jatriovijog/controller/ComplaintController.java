@@ -1,10 +1,30 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.ComplaintSearchResult;
+import com.jatriovijog.model.Hotspot;
+import com.jatriovijog.model.StatusUpdate;
+import com.jatriovijog.service.AlertHub;
+import com.jatriovijog.service.ComplaintSearchIndex;
+import com.jatriovijog.service.DuplicateDetector;
+import com.jatriovijog.service.HotspotAggregator;
+import com.jatriovijog.service.SubmissionJournal;
 import com.jatriovijog.service.SupabaseService;
+import com.jatriovijog.service.WriteJournal;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Set;
 import java.util.List;
 import java.util.Map;
@@ -16,84 +36,328 @@ import java.util.Map;
  * {@code /api/complaints}.
  */
 @RestController
+// created eagerly even with lazy initialization: it subscribes to the journal before it replays
+@Lazy(false)
 @RequestMapping("/api/complaints")
 public class ComplaintController {
 
+    private static final Set<String> STATUSES = Set.of("new", "working", "resolved", "fake");
+    private static final String INVALID_STATUS = "Invalid status. Allowed: new, working, resolved, fake";
+    private static final int MAX_STATUS_UPDATES = 500;
+    private static final int STATUS_UPDATE_CONCURRENCY = 4;
+
     private final SupabaseService supabaseService;
+    private final AlertHub alertHub;
+    private final HotspotAggregator hotspots;
+    private final ComplaintSearchIndex searchIndex;
+    private final SubmissionJournal journal;
+    private final DuplicateDetector duplicates;
 
-    public ComplaintController(SupabaseService supabaseService) {
+    public ComplaintController(SupabaseService supabaseService, AlertHub alertHub, HotspotAggregator hotspots,
+                               ComplaintSearchIndex searchIndex, SubmissionJournal journal,
+                               DuplicateDetector duplicates) {
         this.supabaseService = supabaseService;
+        this.alertHub = alertHub;
+        this.hotspots = hotspots;
+        this.searchIndex = searchIndex;
+        this.journal = journal;
+        this.duplicates = duplicates;
+        journal.onComplaintStored(this::complaintStored);
     }
 
     /**
-     * Retrieve all complaint records stored in Supabase.
+     * Retrieve one page of complaints, newest first by default.
+     *
+     * <p>
+     * Filtering, sorting and paging happen in Supabase, so the browser only
+     * receives the rows it is going to show. To fetch the next page pass the
+     * {@code created_at} and {@code id} of the last row received as
+     * {@code cursor=<created_at>,<id>}. Rows are emitted as they are decoded;
+     * with {@code Accept: application/x-ndjson} they are also written to the
+     * client one by one instead of as a single JSON array.
+     * </p>
      *
      * <p>
-     * The service layer returns a {@link Mono} containing a {@code List} of
-     * {@code Map<String, Object>} objects. Each map represents a single row
-     * from the {@code complaints} table as returned by the Supabase REST API.
-     * This method explicitly declares the generic parameters on the {@code List}
-     * to avoid raw type usage and ensure type safety.
+     * With {@code collapse=true} complaints marked as a duplicate of another
+     * are left out, so each cluster shows up once; {@code duplicateOf=<id>}
+     * lists the duplicates of one complaint.
      * </p>
      *
-     * @return a {@code Mono} that emits the list of complaint records
+     * @param status   optional exact status filter
+     * @param thana    optional exact thana filter
+     * @param route    optional exact route filter
+     * @param category optional exact category filter
+     * @param duplicateOf optional id of the complaint whose duplicates to list
+     * @param collapse leave out complaints marked as duplicates
+     * @param limit    page size, 1 to {@value ComplaintQuery#MAX_LIMIT}
+     * @param sort     {@code desc} (default) or {@code asc} on {@code created_at}
+     * @param cursor   optional keyset cursor from the previous page
+     * @return a {@code Flux} that emits the complaint records of the page
      */
     @GetMapping
-    public Mono<List<Map<String, Object>>> getAllComplaints() {
-        return supabaseService.getComplaints();
+    public Flux<Complaint> getAllComplaints(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "thana", required = false) String thana,
+            @RequestParam(value = "route", required = false) String route,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "duplicateOf", required = false) Long duplicateOf,
+            @RequestParam(value = "collapse", defaultValue = "false") boolean collapse,
+            @RequestParam(value = "limit", defaultValue = "" + ComplaintQuery.DEFAULT_LIMIT) int limit,
+            @RequestParam(value = "sort", defaultValue = "desc") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor
+    ) {
+        return Flux.defer(() -> supabaseService.getComplaints(
+                toQuery(status, thana, route, category, duplicateOf, collapse, limit, sort).after(cursor)));
+    }
+
+    /**
+     * Export every complaint matching the filters as a stream. Supabase is
+     * read page by page with the same keyset cursor as {@link #getAllComplaints},
+     * and each row is written to the client as soon as it has been decoded,
+     * so memory use does not grow with the size of the export.
+     *
+     * <p>
+     * Request {@code application/x-ndjson} for one JSON object per line or
+     * {@code text/event-stream} for Server-Sent Events.
+     * </p>
+     *
+     * @param pageSize rows fetched from Supabase per round trip
+     * @return a {@code Flux} of all matching complaints
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Complaint> exportComplaints(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "thana", required = false) String thana,
+            @RequestParam(value = "route", required = false) String route,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "duplicateOf", required = false) Long duplicateOf,
+            @RequestParam(value = "collapse", defaultValue = "false") boolean collapse,
+            @RequestParam(value = "sort", defaultValue = "asc") String sort,
+            @RequestParam(value = "pageSize", defaultValue = "500") int pageSize
+    ) {
+        return Flux.defer(() -> supabaseService.streamComplaints(
+                toQuery(status, thana, route, category, duplicateOf, collapse, pageSize, sort)));
+    }
+
+    /**
+     * The thana/category pairs with the most complaints over the hotspot
+     * window ({@code hotspots.window-hours}). Served from counters kept in
+     * memory, so this never queries Supabase.
+     *
+     * @param limit number of hotspots to return, 1 to 100
+     * @return hotspots, highest count first
+     */
+    @GetMapping("/hotspots")
+    public List<Hotspot> getHotspots(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new IllegalArgumentException("limit must be between 1 and 100");
+        }
+        return hotspots.top(limit);
+    }
+
+    /**
+     * Ranked full-text search over description, category, thana, route, bus
+     * name and bus number, with counts per status, thana and bus number
+     * among all matches. Served from the in-memory
+     * {@link ComplaintSearchIndex}; Supabase is not queried.
+     *
+     * @param q         search text; every word must match, the last one as
+     *                  a prefix. Empty to only filter
+     * @param status    optional exact status filter
+     * @param thana     optional exact thana filter
+     * @param busNumber optional exact bus number filter
+     * @param limit     page size, 1 to {@value ComplaintQuery#MAX_LIMIT}
+     * @param offset    number of ranked matches to skip
+     * @return the requested page of matches and the facet counts
+     */
+    @GetMapping("/search")
+    public ComplaintSearchResult searchComplaints(
+            @RequestParam(value = "q", defaultValue = "") String q,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "thana", required = false) String thana,
+            @RequestParam(value = "busNumber", required = false) String busNumber,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "offset", defaultValue = "0") int offset
+    ) {
+        if (limit < 1 || limit > ComplaintQuery.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + ComplaintQuery.MAX_LIMIT);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        return searchIndex.search(q, status, thana, busNumber, limit, offset);
+    }
+
+    private static ComplaintQuery toQuery(String status, String thana, String route, String category,
+                                          Long duplicateOf, boolean collapse, int limit, String sort) {
+        String direction = sort.toLowerCase().trim();
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Invalid sort. Allowed: asc, desc");
+        }
+        return new ComplaintQuery(status, thana, route, category, duplicateOf, collapse, limit,
+                direction.equals("asc"), null, null);
     }
 
     /**
-     * Create a new complaint. The request body should contain JSON matching
-     * your Supabase table definition. Fields such as category, status, thana,
-     * route, busName, busNumber, imageUrl, reporterType, description and
-     * createdAt are common. Extra fields will be passed through to Supabase.
+     * Create a new complaint. The request body is bound to {@link Complaint},
+     * which accepts both the camelCase names the report page sends (busName,
+     * busNumber, imageUrl, reporterType, createdAt, userId) and the snake_case
+     * column names. Fields the table does not know are ignored. Once stored
+     * the complaint is pushed to subscribed police clients.
      *
-     * @param payload complaint data
+     * <p>
+     * A complaint that repeats a recent one about the same bus and route is
+     * stored with {@code duplicate_of} set to the id of the first complaint
+     * of that cluster (see {@link DuplicateDetector}).
+     * </p>
+     *
+     * <p>
+     * With {@code journal.enabled} the complaint is answered with
+     * {@code 202 Accepted} as soon as it is journaled, without an id; it is
+     * stored and pushed to the police once Supabase takes it.
+     * </p>
+     *
+     * @param complaint complaint data
      * @return the created complaint
      */
 @PostMapping
-public Mono<Map<String, Object>> createComplaint(@RequestBody Map<String, Object> payload) {
+public Mono<ResponseEntity<Complaint>> createComplaint(@RequestBody Complaint complaint) {
 
-    Map<String, Object> fixed = new java.util.HashMap<>();
+    // Server-owned columns are never taken from the client
+    complaint.setId(null);
+    complaint.setVerified(null);
+    complaint.setVerificationNote(null);
+    complaint.setDuplicateOf(duplicates.clusterOf(complaint));
 
-    // REQUIRED fields (must match DB)
-    fixed.put("category", payload.get("category"));
-    fixed.put("status", payload.getOrDefault("status", "new"));
-    fixed.put("thana", payload.get("thana"));
-    fixed.put("route", payload.get("route"));
-    fixed.put("description", payload.get("description"));
-
-    // camelCase -> snake_case
-    fixed.put("bus_name", payload.get("busName"));
-    fixed.put("bus_number", payload.get("busNumber"));
-    fixed.put("image_url", payload.get("imageUrl"));
-    fixed.put("reporter_type", payload.get("reporterType"));
-    fixed.put("created_at", payload.get("createdAt"));
+    if (complaint.getStatus() == null) {
+        complaint.setStatus("new");
+    }
 
     // REQUIRED: user_id (you must send this from frontend or JWT)
-    fixed.put("user_id", payload.getOrDefault("userId", 1));
+    if (complaint.getUserId() == null) {
+        complaint.setUserId(1L);
+    }
 
-    // ❌ IGNORE extra frontend-only fields automatically
+    if (journal.isEnabled()) {
+        return journal.submitComplaint(complaint)
+                .map(accepted -> ResponseEntity.accepted().body(accepted))
+                .onErrorResume(WriteJournal.FullException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "5")
+                                .build()));
+    }
+    return supabaseService.createComplaint(complaint)
+            .doOnNext(this::complaintStored)
+            .map(ResponseEntity::ok);
+}
 
-    return supabaseService.createComplaint(fixed);
+private void complaintStored(Complaint complaint) {
+    hotspots.complaintCreated(complaint);
+    searchIndex.upsert(complaint);
+    duplicates.complaintStored(complaint);
+    alertHub.complaintCreated(complaint);
 }
+
+/**
+ * Set the status (and optional note) of one complaint. Police only, see
+ * {@link com.jatriovijog.config.SecurityConfig}.
+ *
+ * @param id   complaint id
+ * @param body {@code status} and optional {@code note}
+ * @return the updated complaint
+ */
 @PatchMapping("/{id}/status")
-public Mono<Map<String, Object>> updateComplaintStatus(
+public Mono<Complaint> updateComplaintStatus(
         @PathVariable("id") long id,
         @RequestBody Map<String, Object> body
 ) {
     String status = String.valueOf(body.getOrDefault("status", "")).toLowerCase().trim();
 
-    Set<String> allowed = Set.of("new", "working", "resolved", "fake");
-    if (!allowed.contains(status)) {
-        return Mono.error(new IllegalArgumentException("Invalid status. Allowed: new, working, resolved, fake"));
+    if (!STATUSES.contains(status)) {
+        return Mono.error(new IllegalArgumentException(INVALID_STATUS));
     }
 
     // Optional note support if you add SQL extra columns:
     String note = body.get("note") == null ? null : String.valueOf(body.get("note"));
 
-    return supabaseService.updateComplaintStatus(id, status, note);
+    return supabaseService.updateComplaintStatus(id, status, note)
+            .doOnNext(this::complaintUpdated);
+}
+
+/**
+ * Update the status of many complaints at once, e.g. to mark a burst of
+ * duplicates as {@code fake}. Entries are validated one by one; valid ones
+ * are grouped by status and note and each group is sent as
+ * {@code id=in.(...)} PATCHes of up to
+ * {@value SupabaseService#STATUS_BATCH_CHUNK} ids. The answer lists one
+ * result per entry, in request order; a bad entry or a failed PATCH never
+ * fails the entries of the other PATCHes. Police only, like the single
+ * status update.
+ *
+ * @param updates up to {@value #MAX_STATUS_UPDATES} id/status/note entries
+ * @return per-entry results
+ */
+@PostMapping("/status:batch")
+public Mono<List<StatusUpdate.Result>> updateComplaintStatuses(@RequestBody List<StatusUpdate> updates) {
+    if (updates == null || updates.isEmpty() || updates.size() > MAX_STATUS_UPDATES) {
+        return Mono.error(new IllegalArgumentException(
+                "Send between 1 and " + MAX_STATUS_UPDATES + " status updates"));
+    }
+    StatusUpdate.Result[] results = new StatusUpdate.Result[updates.size()];
+    Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+    Set<Long> seen = new HashSet<>();
+    for (int i = 0; i < updates.size(); i++) {
+        StatusUpdate update = updates.get(i);
+        Long id = update == null ? null : update.id();
+        String status = update == null || update.status() == null ? "" : update.status().toLowerCase().trim();
+        if (id == null) {
+            results[i] = StatusUpdate.Result.invalid(null, "id is required");
+        } else if (!seen.add(id)) {
+            results[i] = StatusUpdate.Result.invalid(id, "Duplicate id");
+        } else if (!STATUSES.contains(status)) {
+            results[i] = StatusUpdate.Result.invalid(id, INVALID_STATUS);
+        } else {
+            String note = update.note() == null || update.note().isBlank() ? null : update.note().trim();
+            groups.computeIfAbsent(Arrays.asList(status, note), k -> new ArrayList<>()).add(i);
+        }
+    }
+    // one unit per update the service sends, so a failed update only fails its own ids
+    List<Map.Entry<List<String>, List<Integer>>> chunks = new ArrayList<>();
+    for (Map.Entry<List<String>, List<Integer>> group : groups.entrySet()) {
+        List<Integer> indexes = group.getValue();
+        for (int from = 0; from < indexes.size(); from += SupabaseService.STATUS_BATCH_CHUNK) {
+            int to = Math.min(indexes.size(), from + SupabaseService.STATUS_BATCH_CHUNK);
+            chunks.add(Map.entry(group.getKey(), indexes.subList(from, to)));
+        }
+    }
+    return Flux.fromIterable(chunks)
+            .flatMap(chunk -> {
+                List<Long> ids = chunk.getValue().stream().map(i -> updates.get(i).id()).toList();
+                return supabaseService.updateComplaintStatuses(ids, chunk.getKey().get(0), chunk.getKey().get(1))
+                        .doOnNext(this::complaintUpdated)
+                        .collectMap(Complaint::getId)
+                        .doOnNext(updated -> {
+                            for (int i : chunk.getValue()) {
+                                Complaint complaint = updated.get(updates.get(i).id());
+                                results[i] = complaint != null
+                                        ? StatusUpdate.Result.updated(complaint)
+                                        : StatusUpdate.Result.notFound(updates.get(i).id());
+                            }
+                        })
+                        .onErrorResume(error -> {
+                            for (int i : chunk.getValue()) {
+                                results[i] = StatusUpdate.Result.failed(updates.get(i).id(), error.getMessage());
+                            }
+                            return Mono.empty();
+                        });
+            }, STATUS_UPDATE_CONCURRENCY)
+            .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+}
+
+private void complaintUpdated(Complaint complaint) {
+    hotspots.complaintUpdated(complaint);
+    searchIndex.upsert(complaint);
+    duplicates.complaintUpdated(complaint);
 }
 
 }
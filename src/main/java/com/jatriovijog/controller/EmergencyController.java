@@ -1,12 +1,24 @@
 package com.jatriovijog.controller;
 
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.NearbyEmergency;
+import com.jatriovijog.service.AlertHub;
+import com.jatriovijog.service.EmergencyIndex;
+import com.jatriovijog.service.SubmissionJournal;
 import com.jatriovijog.service.SupabaseService;
+import com.jatriovijog.service.WriteJournal;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * REST controller exposing endpoints for handling emergency reports. All
@@ -15,51 +27,151 @@ import java.util.Map;
  * base path.
  */
 @RestController
+// created eagerly even with lazy initialization: it subscribes to the journal before it replays
+@Lazy(false)
 @RequestMapping("/api/emergencies")
 public class EmergencyController {
 
     private final SupabaseService supabaseService;
+    private final AlertHub alertHub;
+    private final EmergencyIndex emergencyIndex;
+    private final SubmissionJournal journal;
 
-    public EmergencyController(SupabaseService supabaseService) {
+    public EmergencyController(SupabaseService supabaseService, AlertHub alertHub, EmergencyIndex emergencyIndex,
+                               SubmissionJournal journal) {
         this.supabaseService = supabaseService;
+        this.alertHub = alertHub;
+        this.emergencyIndex = emergencyIndex;
+        this.journal = journal;
+        journal.onEmergencyStored(this::emergencyStored);
     }
 
     /**
      * Retrieve all emergency reports stored in Supabase.
      *
      * <p>
-     * The {@link SupabaseService#getEmergencies()} method returns a reactive
-     * {@code Mono} wrapping a {@code List} of {@code Map<String, Object>} representing
-     * each row returned from the Supabase REST API. This controller method
-     * explicitly declares the generic type parameters to avoid raw type warnings
-     * and compilation errors.
+     * Rows are decoded straight into {@link EmergencyReport} objects and
+     * serialized back in the same snake_case shape Supabase returns.
      * </p>
      *
      * @return a {@code Mono} emitting a list of emergency report records
      */
     @GetMapping
-    public Mono<List<Map<String, Object>>> getAllEmergencies() {
+    public Mono<List<EmergencyReport>> getAllEmergencies() {
         return supabaseService.getEmergencies();
     }
 
+    /**
+     * Export every emergency report, oldest first, as NDJSON or Server-Sent
+     * Events. Rows are read from Supabase page by page and written out as
+     * they are decoded, so the export never holds more than one page.
+     *
+     * @param pageSize rows fetched from Supabase per round trip
+     * @return a {@code Flux} of all emergency reports
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<EmergencyReport> exportEmergencies(
+            @RequestParam(value = "pageSize", defaultValue = "500") int pageSize) {
+        if (pageSize < 1 || pageSize > ComplaintQuery.MAX_LIMIT) {
+            return Flux.error(new IllegalArgumentException("pageSize must be between 1 and " + ComplaintQuery.MAX_LIMIT));
+        }
+        return supabaseService.streamEmergencies(pageSize);
+    }
+
+    /**
+     * Recent SOS reports within {@code radiusKm} of a point, nearest first.
+     * Answered from the in-memory {@link EmergencyIndex}, which holds the
+     * reports of the last {@code emergencies.index.window-hours}.
+     *
+     * @param lat      latitude of the patrol
+     * @param lng      longitude of the patrol
+     * @param radiusKm search radius, up to 50 km
+     * @param limit    maximum number of reports returned
+     * @return reports with their distance from the point
+     */
+    @GetMapping("/nearby")
+    public List<NearbyEmergency> getNearbyEmergencies(
+            @RequestParam("lat") double lat,
+            @RequestParam("lng") double lng,
+            @RequestParam(value = "radiusKm", defaultValue = "2") double radiusKm,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        checkCoordinates(lat, lng);
+        if (!(radiusKm > 0 && radiusKm <= 50)) {
+            throw new IllegalArgumentException("radiusKm must be greater than 0 and at most 50");
+        }
+        return emergencyIndex.nearby(lat, lng, radiusKm, checkLimit(limit));
+    }
+
+    /**
+     * Recent SOS reports inside a bounding box, newest first, e.g. for the
+     * visible area of the police map.
+     *
+     * @return reports inside the box
+     */
+    @GetMapping("/within")
+    public List<EmergencyReport> getEmergenciesWithin(
+            @RequestParam("minLat") double minLat,
+            @RequestParam("minLng") double minLng,
+            @RequestParam("maxLat") double maxLat,
+            @RequestParam("maxLng") double maxLng,
+            @RequestParam(value = "limit", defaultValue = "200") int limit) {
+        checkCoordinates(minLat, minLng);
+        checkCoordinates(maxLat, maxLng);
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException("min coordinates must not exceed max coordinates");
+        }
+        return emergencyIndex.within(minLat, minLng, maxLat, maxLng, checkLimit(limit));
+    }
+
+    private static void checkCoordinates(double lat, double lng) {
+        if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > ComplaintQuery.MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + ComplaintQuery.MAX_LIMIT);
+        }
+        return limit;
+    }
+
     /**
      * Create a new emergency report. The payload should include fields
      * describing the location (latitude, longitude, accuracy), an optional
-     * audio recording URL, and any other metadata such as userId.
+     * audio recording URL, and any other metadata such as userId. CamelCase
+     * names are accepted and stored in their snake_case columns. Once stored
+     * the report is pushed to every subscribed police client.
      *
-     * @param payload emergency data
+     * <p>
+     * With {@code journal.enabled} the report is answered with
+     * {@code 202 Accepted} as soon as it is on local disk, so an SOS is not
+     * lost while Supabase is slow or down; it is stored, indexed and pushed
+     * to the police once Supabase takes it.
+     * </p>
+     *
+     * @param report emergency data
      * @return the created emergency report
      */
-   @PostMapping
-public Mono<Map<String, Object>> createEmergency(@Valid @RequestBody Map<String, Object> payload) {
-
-    Map<String, Object> fixed = new java.util.HashMap<>(payload);
-
-    if (fixed.containsKey("audioUrl")) fixed.put("audio_url", fixed.remove("audioUrl"));
-    if (fixed.containsKey("createdAt")) fixed.put("created_at", fixed.remove("createdAt"));
-    if (fixed.containsKey("userId")) fixed.put("user_id", fixed.remove("userId"));
+    @PostMapping
+    public Mono<ResponseEntity<EmergencyReport>> createEmergency(@Valid @RequestBody EmergencyReport report) {
+        report.setId(null);
+        if (journal.isEnabled()) {
+            return journal.submitEmergency(report)
+                    .map(accepted -> ResponseEntity.accepted().body(accepted))
+                    .onErrorResume(WriteJournal.FullException.class, e -> Mono.just(
+                            ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                    .header(HttpHeaders.RETRY_AFTER, "5")
+                                    .build()));
+        }
+        return supabaseService.createEmergency(report)
+                .doOnNext(this::emergencyStored)
+                .map(ResponseEntity::ok);
+    }
 
-    return supabaseService.createEmergency(fixed);
-}
+    private void emergencyStored(EmergencyReport report) {
+        emergencyIndex.add(report);
+        alertHub.emergencyCreated(report);
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.model.FareQuote;
+import com.jatriovijog.service.FareService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for fare estimates. Endpoints are available under the
+ * {@code /api/fare} base path.
+ */
+@RestController
+@RequestMapping("/api/fare")
+public class FareController {
+
+    private final FareService fareService;
+
+    public FareController(FareService fareService) {
+        this.fareService = fareService;
+    }
+
+    /**
+     * Bus fare, suggested buses and the metro option between two points,
+     * each given as {@code <lat>,<lng>}.
+     *
+     * @param from start point
+     * @param to   end point
+     * @return the fare quote
+     */
+    @GetMapping
+    public Mono<FareQuote> getFare(@RequestParam("from") String from, @RequestParam("to") String to) {
+        double[] start = parsePoint(from);
+        double[] end = parsePoint(to);
+        return fareService.quote(start[0], start[1], end[0], end[1]);
+    }
+
+    private static double[] parsePoint(String point) {
+        String[] parts = point.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid point. Expected <lat>,<lng>");
+        }
+        try {
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+                throw new IllegalArgumentException("Invalid coordinates");
+            }
+            return new double[]{lat, lng};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid point. Expected <lat>,<lng>");
+        }
+    }
+}
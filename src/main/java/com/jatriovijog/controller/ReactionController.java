@@ -0,0 +1,80 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.service.ReactionCounter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public reactions and views of complaints, counted by the
+ * {@link ReactionCounter}. Every answer comes from memory, so the feed can
+ * ask for the counters of a whole page at once.
+ */
+@RestController
+@RequestMapping("/api/complaints")
+public class ReactionController {
+
+    private static final int MAX_IDS = 200;
+
+    private final ReactionCounter reactionCounter;
+
+    public ReactionController(ReactionCounter reactionCounter) {
+        this.reactionCounter = reactionCounter;
+    }
+
+    /**
+     * Counters of several complaints, e.g. one page of the feed.
+     *
+     * @param ids up to {@value #MAX_IDS} complaint ids
+     * @return one entry per distinct id, zero for complaints without
+     *         reactions
+     */
+    @GetMapping("/reactions")
+    public ResponseEntity<?> getReactions(@RequestParam("ids") List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Send between 1 and " + MAX_IDS + " ids"));
+        }
+        return ResponseEntity.ok(reactionCounter.get(new LinkedHashSet<>(ids)));
+    }
+
+    /**
+     * React to a complaint with {@code support}, {@code angry} or
+     * {@code watch}.
+     *
+     * @return the complaint's counters including this reaction
+     */
+    @PostMapping("/{id}/reactions/{type}")
+    public Mono<ResponseEntity<?>> react(@PathVariable("id") long id, @PathVariable("type") String type) {
+        return respond(id, reactionCounter.react(id, type));
+    }
+
+    /**
+     * Count a view of a complaint.
+     *
+     * @return the complaint's counters including this view
+     */
+    @PostMapping("/{id}/views")
+    public Mono<ResponseEntity<?>> view(@PathVariable("id") long id) {
+        return respond(id, reactionCounter.view(id));
+    }
+
+    private static Mono<ResponseEntity<?>> respond(long id, Mono<ReactionCounts> counts) {
+        return counts.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "No such complaint: " + id)))
+                .onErrorResume(ReactionCounter.UnknownReactionException.class, e -> Mono.just(
+                        ResponseEntity.badRequest().body(Map.of("error", e.getMessage()))));
+    }
+}
@@ -0,0 +1,103 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only JSON view of the backend's Micrometer meters, for reading
+ * without a Prometheus server. Requires a police token, as the meters
+ * expose cache, pool and queue internals. The figures are the ones
+ * {@code /actuator/prometheus} publishes; nothing is counted twice.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final MeterRegistry meterRegistry;
+
+    public StatsController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Every meter whose name starts with {@code prefix}, by name, one entry
+     * per tag combination. Timers give count, mean, max and p50/p90/p99 in
+     * milliseconds, distribution summaries count, mean and max, counters
+     * their count and gauges their value.
+     *
+     * @param prefix meter name prefix, such as {@code supabase.cache} or
+     *               {@code journal}; all meters when omitted
+     * @return figures per meter name
+     */
+    @GetMapping
+    public Map<String, List<Map<String, Object>>> stats(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix) {
+        Map<String, List<Map<String, Object>>> out = new TreeMap<>();
+        meterRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith(prefix))
+                .sorted(Comparator.comparing(meter -> meter.getId().getTags().toString()))
+                .forEach(meter -> out.computeIfAbsent(meter.getId().getName(), name -> new ArrayList<>())
+                        .add(figures(meter)));
+        return out;
+    }
+
+    private static Map<String, Object> figures(Meter meter) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (!meter.getId().getTags().isEmpty()) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (Tag tag : meter.getId().getTags()) {
+                tags.put(tag.getKey(), tag.getValue());
+            }
+            out.put("tags", tags);
+        }
+        if (meter instanceof Timer timer) {
+            out.putAll(LatencyTimers.snapshot(timer));
+        } else if (meter instanceof DistributionSummary summary) {
+            out.put("count", summary.count());
+            out.put("mean", summary.mean());
+            out.put("max", summary.max());
+        } else if (meter instanceof Counter counter) {
+            out.put("count", counter.count());
+        } else if (meter instanceof FunctionCounter counter) {
+            out.put("count", counter.count());
+        } else if (meter instanceof TimeGauge gauge) {
+            out.put("valueMs", gauge.value(TimeUnit.MILLISECONDS));
+        } else if (meter instanceof Gauge gauge) {
+            out.put("value", gauge.value());
+        } else if (meter instanceof FunctionTimer timer) {
+            out.put("count", timer.count());
+            out.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        } else if (meter instanceof LongTaskTimer timer) {
+            out.put("active", timer.activeTasks());
+            out.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        } else {
+            for (Measurement measurement : meter.measure()) {
+                out.put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package com.jatriovijog.controller;
+
+import com.jatriovijog.service.UploadService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Multipart upload endpoints for complaint photos and SOS audio, under
+ * {@code /api/uploads}. Each answers with the URL to put into the
+ * {@code imageUrl} or {@code audioUrl} of the complaint or emergency report
+ * created afterwards. Parts are spooled to disk by the servlet container
+ * ({@code spring.servlet.multipart.*}) and streamed from there, so request
+ * size is limited by those settings, not by heap.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private final UploadService uploadService;
+
+    public UploadController(UploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    /**
+     * Upload a photo (JPEG, PNG, GIF or BMP) as the {@code file} part. It is
+     * stored downscaled as JPEG together with a thumbnail; when the image
+     * pool is saturated the answer is {@code 429} with a {@code Retry-After}.
+     *
+     * @param file the photo
+     * @return the image and thumbnail URLs
+     */
+    @PostMapping(value = "/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<?>> uploadImage(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty() || !UploadService.isImage(file.getContentType())) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Expected a JPEG, PNG, GIF or BMP image")));
+        }
+        return uploadService.storeImage(file)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest()
+                        .body(Map.of("error", e.getMessage()))))
+                .onErrorResume(UploadService.OverloadedException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(Map.of("error", e.getMessage()))));
+    }
+
+    /**
+     * Upload an audio clip (WebM, Ogg, MP3, MP4/AAC or WAV) as the
+     * {@code file} part. It is stored unchanged.
+     *
+     * @param file the recording
+     * @return the audio URL
+     */
+    @PostMapping(value = "/audio", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<?>> uploadAudio(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty() || !UploadService.isAudio(file.getContentType())) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Expected a WebM, Ogg, MP3, MP4, AAC or WAV recording")));
+        }
+        return uploadService.storeAudio(file).map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,20 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+/**
+ * A chat channel as listed to officers.
+ *
+ * @param id          channel id
+ * @param name        display name
+ * @param type        {@code Team} or {@code Broadcast}
+ * @param description what the channel is for
+ * @param members     emails of the members
+ * @param lastSeq     {@code seq} of the newest message, {@code 0} when empty
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ChatChannelSummary(String id, String name, String type, String description,
+                                 List<String> members, long lastSeq) {}
@@ -0,0 +1,64 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A row of the {@code chat_messages} table. {@code seq} numbers the
+ * messages of one channel from 1 and is assigned by the backend;
+ * {@code sender} is the email of the officer who sent it. A case-tag
+ * message links to a complaint through {@code case_id}, with
+ * {@code case_tag} {@code assigned} or {@code resolved}.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ChatMessage {
+    @JsonAlias("channelId")
+    private String channelId;
+    private Long seq;
+    private String sender;
+    @JsonAlias("senderName")
+    private String senderName;
+    private String text;
+    @JsonAlias("imageUrl")
+    private String imageUrl;
+    @JsonAlias("caseId")
+    private Long caseId;
+    @JsonAlias("caseTag")
+    private String caseTag;
+    @JsonAlias("createdAt")
+    private String createdAt;
+
+    public ChatMessage() {}
+
+    public String getChannelId() { return channelId; }
+    public void setChannelId(String channelId) { this.channelId = channelId; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public String getSender() { return sender; }
+    public void setSender(String sender) { this.sender = sender; }
+
+    public String getSenderName() { return senderName; }
+    public void setSenderName(String senderName) { this.senderName = senderName; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public Long getCaseId() { return caseId; }
+    public void setCaseId(Long caseId) { this.caseId = caseId; }
+
+    public String getCaseTag() { return caseTag; }
+    public void setCaseTag(String caseTag) { this.caseTag = caseTag; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+}
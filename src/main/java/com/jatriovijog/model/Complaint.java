@@ -1,17 +1,46 @@
 package com.jatriovijog.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A row of the {@code complaints} table. Properties are read and written in
+ * snake_case to match the PostgREST representation; the camelCase names the
+ * frontend sends are accepted as aliases. Null properties are left out so
+ * omitted columns fall back to their database defaults.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Complaint {
     private Long id;
     private String category;
     private String status;
     private String thana;
     private String route;
+    @JsonAlias("busName")
     private String busName;
+    @JsonAlias("busNumber")
     private String busNumber;
+    @JsonAlias("imageUrl")
     private String imageUrl;
+    @JsonAlias("reporterType")
     private String reporterType;
     private String description;
+    @JsonAlias("createdAt")
     private String createdAt;
+    @JsonAlias("userId")
+    private Long userId;
+    private Boolean verified;
+    @JsonAlias("verificationNote")
+    private String verificationNote;
+    @JsonAlias("clientKey")
+    private String clientKey;
+    @JsonAlias("duplicateOf")
+    private Long duplicateOf;
 
     public Complaint() {}
 
@@ -47,4 +76,19 @@ public class Complaint {
 
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Boolean getVerified() { return verified; }
+    public void setVerified(Boolean verified) { this.verified = verified; }
+
+    public String getVerificationNote() { return verificationNote; }
+    public void setVerificationNote(String verificationNote) { this.verificationNote = verificationNote; }
+
+    public String getClientKey() { return clientKey; }
+    public void setClientKey(String clientKey) { this.clientKey = clientKey; }
+
+    public Long getDuplicateOf() { return duplicateOf; }
+    public void setDuplicateOf(Long duplicateOf) { this.duplicateOf = duplicateOf; }
 }
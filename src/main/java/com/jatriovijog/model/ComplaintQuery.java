@@ -0,0 +1,99 @@
+package com.jatriovijog.model;
+
+/**
+ * Describes one page of complaints to read from Supabase. Filters that are
+ * {@code null} are not applied. Paging is keyset based: the cursor is the
+ * {@code created_at} and {@code id} of the last row of the previous page, so
+ * PostgREST never has to skip over rows with an {@code offset}.
+ * {@code collapsed} leaves out complaints marked as a duplicate of another,
+ * and {@code duplicateOf} selects the duplicates of one complaint; the two
+ * cannot be combined.
+ *
+ * <p>
+ * Being a record, two queries with the same shape are {@code equals}, which
+ * makes this usable directly as a cache key.
+ * </p>
+ */
+public record ComplaintQuery(String status,
+                             String thana,
+                             String route,
+                             String category,
+                             Long duplicateOf,
+                             boolean collapsed,
+                             int limit,
+                             boolean ascending,
+                             String cursorCreatedAt,
+                             Long cursorId) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    public ComplaintQuery {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (collapsed && duplicateOf != null) {
+            // duplicate_of = X and duplicate_of IS NULL never match together
+            throw new IllegalArgumentException("collapse cannot be combined with duplicateOf");
+        }
+        if ((cursorCreatedAt == null) != (cursorId == null)) {
+            throw new IllegalArgumentException("cursor requires both created_at and id");
+        }
+    }
+
+    /**
+     * Unfiltered query for the newest {@code limit} complaints.
+     */
+    public static ComplaintQuery latest(int limit) {
+        return new ComplaintQuery(null, null, null, null, null, false, limit, false, null, null);
+    }
+
+    /**
+     * Unfiltered query for the oldest {@code limit} complaints, the first
+     * page of a walk over the whole table.
+     */
+    public static ComplaintQuery oldest(int limit) {
+        return new ComplaintQuery(null, null, null, null, null, false, limit, true, null, null);
+    }
+
+    /**
+     * Parse a cursor of the form {@code <created_at>,<id>} taken from the last
+     * row of the previous page. Returns a copy of this query positioned after
+     * that row.
+     */
+    public ComplaintQuery after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return this;
+        }
+        int comma = cursor.lastIndexOf(',');
+        if (comma <= 0 || comma == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor. Expected <created_at>,<id>");
+        }
+        long id;
+        try {
+            id = Long.parseLong(cursor.substring(comma + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor id");
+        }
+        return new ComplaintQuery(status, thana, route, category, duplicateOf, collapsed, limit, ascending,
+                cursor.substring(0, comma).trim(), id);
+    }
+
+    public boolean hasCursor() {
+        return cursorId != null;
+    }
+
+    /**
+     * Build the cursor pointing just after the given row.
+     */
+    public static String cursorOf(Object createdAt, Object id) {
+        return createdAt + "," + id;
+    }
+
+    /**
+     * The same query positioned after the given row, for walking every page.
+     */
+    public ComplaintQuery next(Object createdAt, Object id) {
+        return after(cursorOf(createdAt, id));
+    }
+}
@@ -0,0 +1,23 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of complaint search results.
+ *
+ * @param total  number of complaints matching the query and filters
+ * @param hits   the requested page, best match first
+ * @param facets per facet ({@code status}, {@code thana},
+ *               {@code bus_number}) the most frequent values among all
+ *               matches and their counts
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ComplaintSearchResult(long total, List<Hit> hits, Map<String, Map<String, Long>> facets) {
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record Hit(double score, Complaint complaint) {}
+}
@@ -1,13 +1,39 @@
 package com.jatriovijog.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A row of the {@code emergency_reports} table. Like {@link Complaint} it is
+ * (de)serialized in snake_case with the frontend's camelCase names accepted
+ * as aliases. Besides the location and audio columns it carries the SOS
+ * metadata the emergency page sends along for the police UI.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class EmergencyReport {
     private Long id;
     private Double latitude;
     private Double longitude;
     private Double accuracy;
+    @JsonAlias("audioUrl")
     private String audioUrl;
+    @JsonAlias("createdAt")
     private String createdAt;
+    @JsonAlias("userId")
     private Long userId;
+    private String status;
+    private String type;
+    private String passenger;
+    private String location;
+    private String description;
+    private String audio;
+    @JsonAlias("clientKey")
+    private String clientKey;
 
     public EmergencyReport() {}
 
@@ -31,4 +57,25 @@ public class EmergencyReport {
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getPassenger() { return passenger; }
+    public void setPassenger(String passenger) { this.passenger = passenger; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getAudio() { return audio; }
+    public void setAudio(String audio) { this.audio = audio; }
+
+    public String getClientKey() { return clientKey; }
+    public void setClientKey(String clientKey) { this.clientKey = clientKey; }
 }
@@ -0,0 +1,43 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+/**
+ * Fare estimate for a trip between two points, as returned by
+ * {@code /api/fare}.
+ *
+ * @param distanceKm     road distance of the trip
+ * @param distanceSource {@code osrm} when routed, {@code estimate} when the
+ *                       straight-line distance was scaled instead
+ * @param busFare        bus fare in taka
+ * @param buses          bus routes serving both ends directly
+ * @param transfers      one-change bus journeys, when no route is direct
+ * @param metro          MRT option
+ * @param route          road geometry as {@code [lat, lng]} pairs, empty
+ *                       for estimates
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FareQuote(double distanceKm,
+                        String distanceSource,
+                        int busFare,
+                        List<String> buses,
+                        List<String> transfers,
+                        Metro metro,
+                        List<double[]> route) {
+
+    /**
+     * MRT leg between the stations nearest to both ends, if both are within
+     * walking distance and differ.
+     */
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Metro(boolean available, Integer fare, String fromStation, String toStation) {
+
+        public static final Metro UNAVAILABLE = new Metro(false, null, null, null);
+    }
+}
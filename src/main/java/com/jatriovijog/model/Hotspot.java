@@ -0,0 +1,13 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.time.Instant;
+
+/**
+ * Number of complaints of one category in one thana within the hotspot
+ * window, and when the most recent of them was filed.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record Hotspot(String thana, String category, long count, Instant lastSeen) {}
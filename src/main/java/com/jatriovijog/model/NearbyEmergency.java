@@ -0,0 +1,11 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * An emergency report returned by a spatial query, with its great-circle
+ * distance from the point that was searched around.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record NearbyEmergency(double distanceKm, EmergencyReport report) {}
@@ -0,0 +1,20 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Public reactions and views of a complaint: a row of the
+ * {@code complaint_reactions} table, the increments added to one, and what
+ * the feed is shown.
+ *
+ * @param complaintId complaint id
+ * @param support     "support" reactions
+ * @param angry       "angry" reactions
+ * @param watch       "watch" reactions
+ * @param views       times the complaint was opened
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ReactionCounts(long complaintId, long support, long angry, long watch, long views) {}
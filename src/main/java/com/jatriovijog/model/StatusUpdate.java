@@ -0,0 +1,42 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * One entry of a bulk complaint status update.
+ *
+ * @param id     complaint id
+ * @param status new status
+ * @param note   optional verification note
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record StatusUpdate(Long id, String status, String note) {
+
+    /**
+     * What happened to one entry: {@code updated} (with the stored
+     * complaint), {@code not_found}, {@code invalid} or {@code failed} (with
+     * the reason).
+     */
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(Long id, String result, String error, Complaint complaint) {
+
+        public static Result updated(Complaint complaint) {
+            return new Result(complaint.getId(), "updated", null, complaint);
+        }
+
+        public static Result notFound(Long id) {
+            return new Result(id, "not_found", null, null);
+        }
+
+        public static Result invalid(Long id, String error) {
+            return new Result(id, "invalid", error, null);
+        }
+
+        public static Result failed(Long id, String error) {
+            return new Result(id, "failed", error, null);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jatriovijog.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A stored upload. {@code url} is what the complaint ({@code image_url}) or
+ * emergency report ({@code audio_url}) should store.
+ *
+ * @param url          public URL of the stored file
+ * @param thumbnailUrl public URL of the thumbnail; images only
+ * @param contentType  content type of the stored file
+ * @param size         bytes stored, not counting the thumbnail
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UploadResult(String url, String thumbnailUrl, String contentType, long size) {}
@@ -1,5 +1,15 @@
 package com.jatriovijog.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A row of the {@code users} table. The password holds the BCrypt hash and
+ * must be cleared before a user is returned to a client; null properties are
+ * not serialized.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class User {
     private Long id;
     private String name;
@@ -9,6 +19,18 @@ public class User {
 
     public User() {}
 
+    /**
+     * Copy of {@code other}, so a cached user can be handed out and have
+     * its password cleared without touching the cached instance.
+     */
+    public User(User other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.email = other.email;
+        this.password = other.password;
+        this.role = other.role;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
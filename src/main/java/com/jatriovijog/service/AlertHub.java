@@ -0,0 +1,119 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.EmergencyReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fan-out of newly created complaints and SOS reports to connected police
+ * clients. Every subscriber gets its own bounded queue; publishing never
+ * blocks, and a subscriber whose queue is full is disconnected instead of
+ * holding back everyone else. The browser's EventSource reconnects on its
+ * own and can reload the lists to catch up.
+ *
+ * <p>
+ * Subscribers may restrict complaints to one thana. Emergency reports carry
+ * coordinates rather than a thana and always go to every subscriber.
+ * </p>
+ *
+ * <p>
+ * Connected subscribers, published alerts and disconnected slow
+ * subscribers are published as {@code alerts.subscribers},
+ * {@code alerts.published} and {@code alerts.dropped}.
+ * </p>
+ */
+@Component
+public class AlertHub {
+
+    /**
+     * A single pushed event. {@code type} is {@code complaint} or
+     * {@code emergency} and doubles as the SSE event name.
+     */
+    public record Alert(String type, Object data) {}
+
+    private final class Subscriber {
+        private final String thana;
+        private final Sinks.Many<Alert> sink;
+
+        private Subscriber(String thana) {
+            this.thana = thana;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Alert>get(queueCapacity).get());
+        }
+
+        private boolean accepts(String type, String alertThana) {
+            return thana == null || !"complaint".equals(type) || thana.equalsIgnoreCase(alertThana);
+        }
+
+        private synchronized void offer(Alert alert) {
+            Sinks.EmitResult result = sink.tryEmitNext(alert);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                dropped.increment();
+                subscribers.remove(this);
+                sink.tryEmitError(new IllegalStateException("Subscriber too slow, disconnected"));
+            }
+        }
+    }
+
+    private final int queueCapacity;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter published;
+    private final Counter dropped;
+
+    public AlertHub(MeterRegistry meterRegistry,
+                    @Value("${alerts.subscriber-queue-size:256}") int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        Gauge.builder("alerts.subscribers", subscribers, Set::size)
+                .description("Connected alert stream subscribers")
+                .register(meterRegistry);
+        this.published = Counter.builder("alerts.published")
+                .description("Alerts published to the subscribers")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("alerts.dropped")
+                .description("Slow alert subscribers that were disconnected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribe to new alerts. The subscription is removed as soon as the
+     * returned {@code Flux} is cancelled or terminates.
+     *
+     * @param thana only receive complaints from this thana, or {@code null}
+     *              for all of them
+     */
+    public Flux<Alert> subscribe(String thana) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(thana == null || thana.isBlank() ? null : thana.trim());
+            subscribers.add(subscriber);
+            return subscriber.sink.asFlux()
+                    .doFinally(signal -> subscribers.remove(subscriber));
+        });
+    }
+
+    public void complaintCreated(Complaint complaint) {
+        publish("complaint", complaint.getThana(), complaint);
+    }
+
+    public void emergencyCreated(EmergencyReport report) {
+        publish("emergency", null, report);
+    }
+
+    private void publish(String type, String thana, Object data) {
+        Alert alert = new Alert(type, data);
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(type, thana)) {
+                subscriber.offer(alert);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The newest messages of one chat channel in a fixed-size ring, addressed
+ * by {@code seq}, so a page of history is copied straight out of the
+ * array. Not thread-safe; {@link ChatService} guards each channel's
+ * history with the channel's lock.
+ */
+final class ChatHistory {
+
+    private final ChatMessage[] ring;
+    /** lowest seq still held; everything below it is only in Supabase */
+    private long firstSeq = 1;
+    private long lastSeq;
+
+    /**
+     * @param capacity messages held
+     * @param newest   the channel's newest stored messages, oldest first
+     */
+    ChatHistory(int capacity, List<ChatMessage> newest) {
+        this.ring = new ChatMessage[capacity];
+        if (!newest.isEmpty()) {
+            firstSeq = newest.get(0).getSeq();
+            lastSeq = firstSeq - 1;
+            newest.forEach(this::add);
+        }
+    }
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Append the message numbered {@code lastSeq() + 1}, dropping the
+     * oldest one when the ring is full.
+     */
+    void add(ChatMessage message) {
+        lastSeq = message.getSeq();
+        ring[slot(lastSeq)] = message;
+        firstSeq = Math.max(firstSeq, lastSeq - ring.length + 1);
+    }
+
+    /**
+     * Up to {@code limit} held messages below {@code beforeSeq} (or the
+     * newest ones when it is {@code 0}), oldest first.
+     */
+    List<ChatMessage> page(long beforeSeq, int limit) {
+        long to = beforeSeq > 0 ? Math.min(beforeSeq - 1, lastSeq) : lastSeq;
+        long from = Math.max(firstSeq, to - limit + 1);
+        List<ChatMessage> out = new ArrayList<>((int) Math.max(0, to - from + 1));
+        for (long seq = from; seq <= to; seq++) {
+            out.add(ring[slot(seq)]);
+        }
+        return out;
+    }
+
+    /**
+     * Whether messages below {@code seq} may exist that are no longer held.
+     */
+    boolean olderStored(long seq) {
+        return seq <= firstSeq && firstSeq > 1;
+    }
+
+    long firstSeq() {
+        return firstSeq;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % ring.length);
+    }
+}
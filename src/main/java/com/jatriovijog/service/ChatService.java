@@ -0,0 +1,513 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatChannelSummary;
+import com.jatriovijog.model.ChatMember;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.util.LatencyTimers;
+import com.jatriovijog.util.StateGauges;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Police team chat: channels, their members and messages.
+ *
+ * <p>
+ * The newest {@code chat.history-size} messages of every channel are held
+ * in memory in a {@link ChatHistory} ring, so history pages and new
+ * messages never wait for Supabase; only pages reaching further back are
+ * read from it. Messages are numbered per channel ({@code seq}) under the
+ * channel's lock and handed to every connected session of every member in
+ * that order. Each session has its own bounded queue, as in
+ * {@link AlertHub}; a session whose queue is full is disconnected rather
+ * than slowing down the rest, and reloads history when it reconnects.
+ * </p>
+ *
+ * <p>
+ * New messages are stored in Supabase behind the sender's back, grouped
+ * into bulk inserts by an {@link InsertBatcher}. Channels and memberships
+ * are written through. Everything is loaded on startup; until then the
+ * chat answers {@link NotReadyException}. Sequence numbers are assigned
+ * here, so only one backend instance may serve the chat.
+ * </p>
+ *
+ * <p>
+ * Channels, sessions, messages and delivery latency are published as
+ * {@code chat.*} meters.
+ * </p>
+ */
+@Service
+public class ChatService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+    private static final Pattern CHANNEL_ID = Pattern.compile("[a-z0-9][a-z0-9-]{0,39}");
+    private static final Set<String> CHANNEL_TYPES = Set.of("Team", "Broadcast");
+    private static final Set<String> CASE_TAGS = Set.of("assigned", "resolved");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Thrown for a channel id that does not exist.
+     */
+    public static class UnknownChannelException extends RuntimeException {
+        public UnknownChannelException(String channelId) {
+            super("No such channel: " + channelId);
+        }
+    }
+
+    /**
+     * Thrown when an officer reads or posts in a channel they have not
+     * joined.
+     */
+    public static class NotMemberException extends RuntimeException {
+        public NotMemberException(String channelId) {
+            super("Join channel " + channelId + " first");
+        }
+    }
+
+    /**
+     * Thrown until channels and history have been loaded from Supabase.
+     */
+    public static class NotReadyException extends RuntimeException {
+        public NotReadyException() {
+            super("Chat is still loading, please retry shortly");
+        }
+    }
+
+    /**
+     * One frame for a connected session, already serialized.
+     * {@code publishedNanos} is when it was queued, for delivery latency.
+     */
+    public record Frame(String json, long publishedNanos) {}
+
+    private static final class Channel {
+        private volatile ChatChannel info;
+        private final Set<String> members = ConcurrentHashMap.newKeySet();
+        private final ChatHistory history;
+
+        private Channel(ChatChannel info, ChatHistory history) {
+            this.info = info;
+            this.history = history;
+        }
+    }
+
+    private final class Subscriber {
+        private final String officer;
+        private final Sinks.Many<Frame> sink;
+
+        private Subscriber(String officer) {
+            this.officer = officer;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Frame>get(queueCapacity).get());
+        }
+
+        private synchronized void offer(Frame frame) {
+            Sinks.EmitResult result = sink.tryEmitNext(frame);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                droppedSessions.increment();
+                unsubscribe(this);
+                sink.tryEmitError(new IllegalStateException("Session too slow, disconnected"));
+            }
+        }
+    }
+
+    private final SupabaseService supabaseService;
+    private final int historySize;
+    private final int maxTextLength;
+    private final int queueCapacity;
+    private final int persistRetries;
+    private final InsertBatcher<ChatMessage> persister;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private volatile String loadState = "pending";
+
+    private final Counter sent;
+    private final Counter framesQueued;
+    private final Counter droppedSessions;
+    private final Counter persisted;
+    private final Counter persistFailures;
+    private final Counter storedPages;
+    private final Timer delivery;
+
+    public ChatService(SupabaseService supabaseService,
+                       MeterRegistry meterRegistry,
+                       @Value("${chat.history-size:500}") int historySize,
+                       @Value("${chat.max-text-length:2000}") int maxTextLength,
+                       @Value("${chat.subscriber-queue-size:256}") int queueCapacity,
+                       @Value("${chat.batch.max-size:100}") int batchMaxSize,
+                       @Value("${chat.batch.max-wait-ms:200}") long batchMaxWaitMs,
+                       @Value("${chat.batch.retries:3}") int persistRetries) {
+        this.supabaseService = supabaseService;
+        this.historySize = historySize;
+        this.maxTextLength = maxTextLength;
+        this.queueCapacity = queueCapacity;
+        this.persistRetries = persistRetries;
+        this.delivery = LatencyTimers.timer(meterRegistry, "chat.delivery",
+                "Time from a chat message being queued until it is written to a session");
+        this.sent = counter(meterRegistry, "chat.messages.sent", "Chat messages sent");
+        this.framesQueued = counter(meterRegistry, "chat.frames.queued", "Frames queued for chat sessions");
+        this.droppedSessions = counter(meterRegistry, "chat.sessions.dropped",
+                "Slow chat sessions that were disconnected");
+        this.persisted = counter(meterRegistry, "chat.messages.stored", "Chat messages stored in Supabase");
+        this.persistFailures = counter(meterRegistry, "chat.messages.store.failures",
+                "Chat messages that could not be stored after their retries");
+        this.storedPages = counter(meterRegistry, "chat.history.pages.read",
+                "History pages read from Supabase because they reach past the in-memory history");
+        Gauge.builder("chat.channels", channels, Map::size)
+                .description("Chat channels")
+                .register(meterRegistry);
+        Gauge.builder("chat.officers.online", subscribers, Map::size)
+                .description("Officers with at least one connected chat session")
+                .register(meterRegistry);
+        Gauge.builder("chat.sessions", subscribers,
+                        all -> all.values().stream().mapToInt(Set::size).sum())
+                .description("Connected chat sessions")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "chat.load", "State of the startup load of the chat",
+                () -> loadState);
+        this.persister = new InsertBatcher<>(supabaseService::insertChatMessages, batchMaxSize,
+                Duration.ofMillis(batchMaxWaitMs), meterRegistry, "chat_messages");
+    }
+
+    // ---------- Loading ----------
+
+    /**
+     * Load channels, memberships and the newest history of every channel,
+     * retrying with backoff while Supabase cannot be reached.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadState = "running";
+        Mono.zip(supabaseService.getChatChannels().collectList(), supabaseService.getChatMembers().collectList())
+                .flatMap(loaded -> Flux.fromIterable(loaded.getT1())
+                        .concatMap(info -> supabaseService.getChatMessages(info.getId(), 0, historySize)
+                                .collectList()
+                                .map(newest -> {
+                                    List<ChatMessage> oldestFirst = new ArrayList<>(newest);
+                                    Collections.reverse(oldestFirst);
+                                    return new Channel(info, new ChatHistory(historySize, oldestFirst));
+                                }))
+                        .collectList()
+                        .doOnNext(loadedChannels -> {
+                            loadedChannels.forEach(channel -> channels.put(channel.info.getId(), channel));
+                            for (ChatMember member : loaded.getT2()) {
+                                Channel channel = channels.get(member.channelId());
+                                if (channel != null) {
+                                    channel.members.add(member.officer());
+                                }
+                            }
+                        }))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(retry -> {
+                            loadState = "retrying";
+                            log.warn("Could not load chat from Supabase: {}", retry.failure().toString());
+                        }))
+                .subscribe(loadedChannels -> {
+                    loadState = "done";
+                    log.info("Chat loaded with {} channels", loadedChannels.size());
+                });
+    }
+
+    private Channel channel(String channelId) {
+        if (!"done".equals(loadState)) {
+            throw new NotReadyException();
+        }
+        Channel channel = channelId == null ? null : channels.get(channelId);
+        if (channel == null) {
+            throw new UnknownChannelException(channelId);
+        }
+        return channel;
+    }
+
+    private Channel memberChannel(String officer, String channelId) {
+        Channel channel = channel(channelId);
+        if (!channel.members.contains(officer)) {
+            throw new NotMemberException(channelId);
+        }
+        return channel;
+    }
+
+    // ---------- Channels ----------
+
+    public List<ChatChannelSummary> channels() {
+        if (!"done".equals(loadState)) {
+            throw new NotReadyException();
+        }
+        List<ChatChannelSummary> out = new ArrayList<>(channels.size());
+        for (Channel channel : channels.values()) {
+            out.add(summary(channel));
+        }
+        out.sort((a, b) -> a.name().compareToIgnoreCase(b.name()));
+        return out;
+    }
+
+    private static ChatChannelSummary summary(Channel channel) {
+        long lastSeq;
+        synchronized (channel) {
+            lastSeq = channel.history.lastSeq();
+        }
+        ChatChannel info = channel.info;
+        return new ChatChannelSummary(info.getId(), info.getName(), info.getType(), info.getDescription(),
+                List.copyOf(new TreeSet<>(channel.members)), lastSeq);
+    }
+
+    /**
+     * Create a channel with {@code officer} as its first member. Without an
+     * id one is derived from the name.
+     */
+    public Mono<ChatChannelSummary> createChannel(String officer, ChatChannel draft) {
+        return Mono.defer(() -> {
+            if (!"done".equals(loadState)) {
+                throw new NotReadyException();
+            }
+            String name = draft.getName() == null ? "" : draft.getName().trim();
+            if (name.isEmpty() || name.length() > 80) {
+                throw new IllegalArgumentException("Channel name must be 1 to 80 characters");
+            }
+            String id = draft.getId() != null ? draft.getId().trim()
+                    : name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+            if (!CHANNEL_ID.matcher(id).matches()) {
+                throw new IllegalArgumentException("Channel id must be lowercase letters, digits and dashes");
+            }
+            if (channels.containsKey(id)) {
+                throw new IllegalArgumentException("Channel " + id + " already exists");
+            }
+            String type = draft.getType() == null ? "Team" : draft.getType();
+            if (!CHANNEL_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Channel type must be Team or Broadcast");
+            }
+            ChatChannel info = new ChatChannel();
+            info.setId(id);
+            info.setName(name);
+            info.setType(type);
+            info.setDescription(draft.getDescription());
+            info.setCreatedBy(officer);
+            return supabaseService.createChatChannel(info)
+                    .defaultIfEmpty(info)
+                    .flatMap(created -> {
+                        channels.putIfAbsent(id, new Channel(created, new ChatHistory(historySize, List.of())));
+                        return join(officer, id);
+                    });
+        });
+    }
+
+    public Mono<ChatChannelSummary> join(String officer, String channelId) {
+        return Mono.defer(() -> {
+            Channel channel = channel(channelId);
+            if (channel.members.contains(officer)) {
+                return Mono.just(summary(channel));
+            }
+            return supabaseService.addChatMember(new ChatMember(channelId, officer))
+                    .then(Mono.fromSupplier(() -> {
+                        channel.members.add(officer);
+                        membersChanged(channel, officer);
+                        return summary(channel);
+                    }));
+        });
+    }
+
+    public Mono<ChatChannelSummary> leave(String officer, String channelId) {
+        return Mono.defer(() -> {
+            Channel channel = channel(channelId);
+            if (!channel.members.contains(officer)) {
+                return Mono.just(summary(channel));
+            }
+            return supabaseService.removeChatMember(new ChatMember(channelId, officer))
+                    .then(Mono.fromSupplier(() -> {
+                        channel.members.remove(officer);
+                        membersChanged(channel, officer);
+                        return summary(channel);
+                    }));
+        });
+    }
+
+    /**
+     * Tell the members, and the officer who joined or left, the new member
+     * list.
+     */
+    private void membersChanged(Channel channel, String officer) {
+        ChatChannelSummary summary = summary(channel);
+        Frame frame = frame(Map.of("type", "members", "channel", summary));
+        Set<String> recipients = new TreeSet<>(channel.members);
+        recipients.add(officer);
+        recipients.forEach(recipient -> deliver(recipient, frame));
+    }
+
+    // ---------- Messages ----------
+
+    /**
+     * Up to {@code limit} messages below {@code beforeSeq} ({@code 0} for
+     * the newest), oldest first. Pages within the held history are copied
+     * from memory; only the part reaching further back is read from
+     * Supabase.
+     */
+    public Mono<List<ChatMessage>> history(String officer, String channelId, long beforeSeq, int limit) {
+        return Mono.defer(() -> {
+            Channel channel = memberChannel(officer, channelId);
+            List<ChatMessage> held;
+            long oldestHeld;
+            boolean olderStored;
+            synchronized (channel) {
+                held = channel.history.page(beforeSeq, limit);
+                oldestHeld = !held.isEmpty() ? held.get(0).getSeq()
+                        : beforeSeq > 0 ? Math.min(beforeSeq, channel.history.lastSeq() + 1)
+                        : channel.history.lastSeq() + 1;
+                olderStored = held.size() < limit && channel.history.olderStored(oldestHeld);
+            }
+            if (!olderStored) {
+                return Mono.just(held);
+            }
+            storedPages.increment();
+            return supabaseService.getChatMessages(channelId, oldestHeld, limit - held.size())
+                    .collectList()
+                    .map(stored -> {
+                        List<ChatMessage> page = new ArrayList<>(stored.size() + held.size());
+                        for (int i = stored.size() - 1; i >= 0; i--) {
+                            page.add(stored.get(i));
+                        }
+                        page.addAll(held);
+                        return page;
+                    });
+        });
+    }
+
+    /**
+     * Post a message to a channel the officer has joined. A case tag is
+     * accepted only for a complaint that exists. Emits the message as
+     * delivered to the members, numbered; it is stored in Supabase shortly
+     * after.
+     */
+    public Mono<ChatMessage> send(String officer, String senderName, String channelId, ChatMessage draft) {
+        return Mono.defer(() -> {
+            Channel channel = memberChannel(officer, channelId);
+            String text = draft.getText() == null ? "" : draft.getText().trim();
+            if (text.length() > maxTextLength) {
+                throw new IllegalArgumentException("Message is longer than " + maxTextLength + " characters");
+            }
+            if (text.isEmpty() && draft.getImageUrl() == null && draft.getCaseId() == null) {
+                throw new IllegalArgumentException("Message is empty");
+            }
+            if ((draft.getCaseId() == null) != (draft.getCaseTag() == null)
+                    || (draft.getCaseTag() != null && !CASE_TAGS.contains(draft.getCaseTag()))) {
+                throw new IllegalArgumentException("A case tag needs a case_id and case_tag assigned or resolved");
+            }
+            ChatMessage message = new ChatMessage();
+            message.setChannelId(channelId);
+            message.setSender(officer);
+            message.setSenderName(senderName == null || senderName.isBlank() ? officer : senderName.trim());
+            message.setText(text.isEmpty() ? null : text);
+            message.setImageUrl(draft.getImageUrl());
+            message.setCaseId(draft.getCaseId());
+            message.setCaseTag(draft.getCaseTag());
+            Mono<Void> caseExists = draft.getCaseId() == null ? Mono.empty()
+                    : supabaseService.getComplaint(draft.getCaseId())
+                    .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No such case: " + draft.getCaseId())))
+                    .then();
+            return caseExists.then(Mono.fromSupplier(() -> append(channel, message)));
+        });
+    }
+
+    private ChatMessage append(Channel channel, ChatMessage message) {
+        synchronized (channel) {
+            message.setSeq(channel.history.lastSeq() + 1);
+            message.setCreatedAt(Instant.now().toString());
+            channel.history.add(message);
+            // queued under the lock so every session sees the channel's messages in seq order
+            Frame frame = frame(Map.of("type", "message", "message", message));
+            for (String member : channel.members) {
+                deliver(member, frame);
+            }
+        }
+        sent.increment();
+        persister.submit(message)
+                .retryWhen(Retry.backoff(persistRetries, Duration.ofMillis(500)))
+                .subscribe(stored -> persisted.increment(), error -> {
+                    persistFailures.increment();
+                    log.warn("Could not store chat message {}#{}: {}", message.getChannelId(), message.getSeq(),
+                            error.toString());
+                });
+        return message;
+    }
+
+    private static Frame frame(Object payload) {
+        try {
+            return new Frame(MAPPER.writeValueAsString(payload), System.nanoTime());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deliver(String officer, Frame frame) {
+        Set<Subscriber> sessions = subscribers.get(officer);
+        if (sessions != null) {
+            for (Subscriber subscriber : sessions) {
+                framesQueued.increment();
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    // ---------- Sessions ----------
+
+    /**
+     * Frames for one connected session of {@code officer}: messages of the
+     * channels they have joined and member list changes. The session is
+     * removed as soon as the returned {@code Flux} is cancelled or
+     * terminates; it fails once the session falls {@code queue-size} frames
+     * behind.
+     */
+    public Flux<Frame> subscribe(String officer) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(officer);
+            subscribers.computeIfAbsent(officer, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            return subscriber.sink.asFlux()
+                    .doFinally(signal -> unsubscribe(subscriber));
+        });
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.officer, (officer, sessions) -> {
+            sessions.remove(subscriber);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * Record that a frame has been written to a session.
+     */
+    public void delivered(Frame frame) {
+        delivery.record(System.nanoTime() - frame.publishedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder(name).description(description).register(meterRegistry);
+    }
+}
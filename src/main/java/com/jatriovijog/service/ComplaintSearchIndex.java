@@ -0,0 +1,335 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.ComplaintSearchResult;
+import com.jatriovijog.util.StateGauges;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory inverted index over complaints for ranked text search with
+ * facet counts. Description, category, thana, route, bus name and bus
+ * number are tokenized into one term dictionary, with matches in the
+ * short identifying fields weighted above matches in the description.
+ * Results are ranked with BM25.
+ *
+ * <p>
+ * Every query term must match; the last one also matches as a prefix, so
+ * results narrow while typing. The index is bulk-loaded from Supabase on
+ * startup and kept current from the complaint endpoints.
+ * </p>
+ */
+@Component
+public class ComplaintSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ComplaintSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int FACET_SIZE = 20;
+
+    private record Field(float weight, Function<Complaint, String> value) {}
+
+    private static final List<Field> FIELDS = List.of(
+            new Field(1.0f, Complaint::getDescription),
+            new Field(2.0f, Complaint::getCategory),
+            new Field(1.5f, Complaint::getThana),
+            new Field(1.5f, Complaint::getRoute),
+            new Field(2.0f, Complaint::getBusName),
+            new Field(3.0f, Complaint::getBusNumber));
+
+    private static final Map<String, Function<Complaint, String>> FACETS = facets();
+
+    private final SupabaseService supabaseService;
+    private final int rebuildPageSize;
+
+    /** term -> (complaint id -> field-weighted term frequency) */
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Complaint> documents = new HashMap<>();
+    private final Map<Long, Float> lengths = new HashMap<>();
+    private double totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile String rebuildState = "pending";
+
+    public ComplaintSearchIndex(SupabaseService supabaseService,
+                                MeterRegistry meterRegistry,
+                                @Value("${search.rebuild-page-size:1000}") int rebuildPageSize) {
+        this.supabaseService = supabaseService;
+        this.rebuildPageSize = rebuildPageSize;
+        Gauge.builder("search.documents", this, index -> index.size(index.documents))
+                .description("Complaints in the search index")
+                .register(meterRegistry);
+        Gauge.builder("search.terms", this, index -> index.size(index.postings))
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "search.rebuild", "State of the startup load of the search index",
+                () -> rebuildState);
+    }
+
+    private static Map<String, Function<Complaint, String>> facets() {
+        Map<String, Function<Complaint, String>> facets = new LinkedHashMap<>();
+        facets.put("status", Complaint::getStatus);
+        facets.put("thana", Complaint::getThana);
+        facets.put("bus_number", Complaint::getBusNumber);
+        return facets;
+    }
+
+    // ---------- Feeding ----------
+
+    /**
+     * Load every complaint from Supabase, oldest first, one page at a time.
+     * Rows read after a live update of the same complaint are older than
+     * it and are skipped. A failed load is retried with backoff.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildState = "running";
+        supabaseService.streamComplaints(ComplaintQuery.oldest(rebuildPageSize))
+                .doOnNext(complaint -> index(complaint, false))
+                .count()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(retry -> {
+                            rebuildState = "retrying";
+                            log.warn("Could not load complaint search index from Supabase: {}",
+                                    retry.failure().toString());
+                        }))
+                .subscribe(rows -> {
+                    rebuildState = "done";
+                    log.info("Complaint search index loaded with {} complaints", rows);
+                });
+    }
+
+    /**
+     * Add a complaint or replace the indexed version of it.
+     */
+    public void upsert(Complaint complaint) {
+        index(complaint, true);
+    }
+
+    private void index(Complaint complaint, boolean replace) {
+        Long id = complaint.getId();
+        if (id == null) {
+            return;
+        }
+        Map<String, Float> terms = termsOf(complaint);
+        float length = 0;
+        for (float tf : terms.values()) {
+            length += tf;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!replace && documents.containsKey(id)) {
+                return;
+            }
+            Complaint previous = documents.put(id, complaint);
+            if (previous != null) {
+                for (String term : termsOf(previous).keySet()) {
+                    Map<Long, Float> docs = postings.get(term);
+                    docs.remove(id);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+                totalLength -= lengths.get(id);
+            }
+            terms.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, tf));
+            lengths.put(id, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------- Search ----------
+
+    /**
+     * Rank the complaints matching {@code text} and the exact-value filters.
+     * Without text every complaint passing the filters matches, newest
+     * first.
+     *
+     * @param text      free text; empty to only filter
+     * @param status    optional status filter
+     * @param thana     optional thana filter
+     * @param busNumber optional bus number filter
+     */
+    public ComplaintSearchResult search(String text, String status, String thana, String busNumber,
+                                        int limit, int offset) {
+        List<String> terms = tokenize(text);
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = terms.isEmpty() ? matchAll() : match(terms);
+            List<ComplaintSearchResult.Hit> hits = new ArrayList<>();
+            Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+            FACETS.keySet().forEach(facet -> facetCounts.put(facet, new HashMap<>()));
+            scores.forEach((id, score) -> {
+                Complaint complaint = documents.get(id);
+                if (accepts(status, complaint.getStatus())
+                        && accepts(thana, complaint.getThana())
+                        && accepts(busNumber, complaint.getBusNumber())) {
+                    hits.add(new ComplaintSearchResult.Hit(score, complaint));
+                    FACETS.forEach((facet, value) -> {
+                        String v = value.apply(complaint);
+                        if (v != null && !v.isBlank()) {
+                            facetCounts.get(facet).merge(v, 1L, Long::sum);
+                        }
+                    });
+                }
+            });
+            hits.sort(Comparator.comparingDouble(ComplaintSearchResult.Hit::score).reversed()
+                    .thenComparing(hit -> hit.complaint().getId(), Comparator.reverseOrder()));
+            List<ComplaintSearchResult.Hit> page = offset >= hits.size()
+                    ? List.of()
+                    : List.copyOf(hits.subList(offset, Math.min(hits.size(), offset + limit)));
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            facetCounts.forEach((facet, counts) -> facets.put(facet, top(counts)));
+            return new ComplaintSearchResult(hits.size(), page, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> matchAll() {
+        Map<Long, Double> scores = new HashMap<>(documents.size() * 2);
+        documents.keySet().forEach(id -> scores.put(id, 0.0));
+        return scores;
+    }
+
+    /**
+     * BM25 over the query terms, keeping only complaints that match all of
+     * them.
+     */
+    private Map<Long, Double> match(List<String> terms) {
+        int n = documents.size();
+        double averageLength = n == 0 ? 1 : totalLength / n;
+        Map<Long, Double> scores = null;
+        for (int i = 0; i < terms.size(); i++) {
+            Map<Long, Float> docs = i == terms.size() - 1 ? prefixPostings(terms.get(i)) : postings.get(terms.get(i));
+            if (docs == null || docs.isEmpty()) {
+                return Map.of();
+            }
+            double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+            Map<Long, Double> next = new HashMap<>();
+            for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                Double previous = scores == null ? Double.valueOf(0) : scores.get(doc.getKey());
+                if (previous != null) {
+                    double tf = doc.getValue();
+                    double norm = K1 * (1 - B + B * lengths.get(doc.getKey()) / averageLength);
+                    next.put(doc.getKey(), previous + idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+            scores = next;
+        }
+        return scores;
+    }
+
+    /**
+     * Postings of every term starting with {@code prefix}, frequencies
+     * summed per complaint.
+     */
+    private Map<Long, Float> prefixPostings(String prefix) {
+        List<Map<Long, Float>> matches = new ArrayList<>();
+        for (Map<Long, Float> docs : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matches.add(docs);
+            if (matches.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        if (matches.size() <= 1) {
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+        Map<Long, Float> merged = new HashMap<>();
+        for (Map<Long, Float> docs : matches) {
+            docs.forEach((id, tf) -> merged.merge(id, tf, Float::sum));
+        }
+        return merged;
+    }
+
+    private static Map<String, Long> top(Map<String, Long> counts) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(FACET_SIZE)
+                .forEach(e -> out.put(e.getKey(), e.getValue()));
+        return out;
+    }
+
+    private static boolean accepts(String filter, String value) {
+        return filter == null || filter.isBlank() || filter.trim().equalsIgnoreCase(Objects.toString(value, ""));
+    }
+
+    // ---------- Tokenizing ----------
+
+    private static Map<String, Float> termsOf(Complaint complaint) {
+        Map<String, Float> terms = new HashMap<>();
+        for (Field field : FIELDS) {
+            for (String term : tokenize(field.value().apply(complaint))) {
+                terms.merge(term, field.weight(), Float::sum);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits. Combining marks count as part
+     * of a word so Bangla text is not split inside words.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && isWordChar(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private int size(Map<?, ?> map) {
+        lock.readLock().lock();
+        try {
+            return map.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
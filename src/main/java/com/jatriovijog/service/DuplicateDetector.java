@@ -0,0 +1,381 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.util.StateGauges;
+import com.jatriovijog.util.Timestamps;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Finds complaints that repeat a recent report about the same bus, so a
+ * burst of reports about one incident is stored as one cluster instead of
+ * being triaged one by one.
+ *
+ * <p>
+ * Stored complaints are kept for a sliding window
+ * ({@code duplicates.window-minutes}) under their bus number and route
+ * (the thana when there is no route), each with a MinHash signature of the
+ * character shingles of its description. A new complaint is compared only
+ * with the complaints under its own key; the share of equal signature
+ * slots estimates the Jaccard similarity of the two descriptions, and the
+ * most similar one at or above {@code duplicates.similarity} gives the
+ * cluster. A cluster is named by the id of its first complaint, so
+ * {@code duplicate_of} always points at a complaint that is not itself a
+ * duplicate.
+ * </p>
+ *
+ * <p>
+ * Only stored complaints are candidates; with {@code journal.enabled} a
+ * complaint joins the window once the journal has inserted it. The window
+ * is rebuilt from Supabase on startup. Complaints without a bus number or a
+ * description are never marked.
+ * </p>
+ */
+@Component
+public class DuplicateDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    private static final int SHINGLE_LENGTH = 3;
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+    private static final int HASHES = 64;
+    private static final long[] SEEDS = new SplittableRandom(0x6a617472L).longs(HASHES).toArray();
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s-]+");
+
+    private record Recent(long id, long clusterId, long createdMillis, long[] signature) {}
+
+    private final SupabaseService supabaseService;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int minMatches;
+    private final int maxPerKey;
+    private final int rebuildPageSize;
+    private final Timer unique;
+    private final Timer duplicate;
+
+    private final Map<String, ArrayDeque<Recent>> recent = new HashMap<>();
+    private final Map<Long, String> keys = new HashMap<>();
+    private long nextSweepMillis;
+    private volatile String rebuildState = "pending";
+
+    @Autowired
+    public DuplicateDetector(SupabaseService supabaseService,
+                             MeterRegistry meterRegistry,
+                             @Value("${duplicates.enabled:true}") boolean enabled,
+                             @Value("${duplicates.window-minutes:30}") int windowMinutes,
+                             @Value("${duplicates.similarity:0.5}") double similarity,
+                             @Value("${duplicates.max-per-key:200}") int maxPerKey,
+                             @Value("${duplicates.rebuild-page-size:500}") int rebuildPageSize) {
+        this(supabaseService, meterRegistry, Clock.systemUTC(), enabled, windowMinutes, similarity, maxPerKey,
+                rebuildPageSize);
+    }
+
+    DuplicateDetector(SupabaseService supabaseService, MeterRegistry meterRegistry, Clock clock, boolean enabled,
+                      int windowMinutes, double similarity, int maxPerKey, int rebuildPageSize) {
+        if (similarity <= 0 || similarity > 1) {
+            throw new IllegalArgumentException("duplicates.similarity must be in (0, 1]");
+        }
+        this.supabaseService = supabaseService;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.windowMillis = windowMinutes * 60_000L;
+        this.minMatches = (int) Math.ceil(similarity * HASHES);
+        this.maxPerKey = maxPerKey;
+        this.rebuildPageSize = rebuildPageSize;
+        this.unique = checkTimer(meterRegistry, "unique");
+        this.duplicate = checkTimer(meterRegistry, "duplicate");
+        Gauge.builder("complaints.duplicate.keys", this, detector -> detector.size(detector.recent))
+                .description("Bus and route keys with complaints in the window")
+                .register(meterRegistry);
+        Gauge.builder("complaints.duplicate.tracked", this, detector -> detector.size(detector.keys))
+                .description("Complaints in the window")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "complaints.duplicate.rebuild",
+                "State of the startup rebuild of the duplicate window", () -> rebuildState);
+    }
+
+    private synchronized int size(Map<?, ?> map) {
+        return map.size();
+    }
+
+    private static Timer checkTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("complaints.duplicate.check")
+                .description("Time to compare a new complaint with the recent ones")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // ---------- Checking ----------
+
+    /**
+     * The cluster a new complaint belongs to: the id of the first complaint
+     * of the cluster it repeats, or {@code null} when it is not a duplicate.
+     */
+    public Long clusterOf(Complaint complaint) {
+        String key = keyOf(complaint);
+        if (!enabled || key == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        long[] signature = signatureOf(complaint.getDescription());
+        Recent best = null;
+        if (signature != null) {
+            int bestMatches = minMatches - 1;
+            long oldest = clock.millis() - windowMillis;
+            synchronized (this) {
+                ArrayDeque<Recent> candidates = recent.get(key);
+                if (candidates != null) {
+                    for (Recent candidate : candidates) {
+                        if (candidate.createdMillis() < oldest) {
+                            continue;
+                        }
+                        int matches = matches(signature, candidate.signature());
+                        if (matches > bestMatches) {
+                            bestMatches = matches;
+                            best = candidate;
+                        }
+                    }
+                }
+            }
+        }
+        (best == null ? unique : duplicate).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return best == null ? null : best.clusterId();
+    }
+
+    private static int matches(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    // ---------- Feeding ----------
+
+    /**
+     * Reload the window from Supabase, newest complaints first, stopping at
+     * the first one older than the window.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            rebuildState = "disabled";
+            return;
+        }
+        rebuildState = "running";
+        long oldest = clock.millis() - windowMillis;
+        supabaseService.streamComplaints(ComplaintQuery.latest(rebuildPageSize))
+                .takeWhile(row -> createdMillisOf(row) >= oldest)
+                .doOnNext(this::complaintStored)
+                .count()
+                .subscribe(rows -> {
+                    rebuildState = "done";
+                    log.info("Duplicate window rebuilt from {} complaints", rows);
+                }, error -> {
+                    rebuildState = "failed";
+                    log.warn("Could not rebuild duplicate window from Supabase: {}", error.toString());
+                });
+    }
+
+    /**
+     * Add a stored complaint to the window. Complaints seen before, ones
+     * marked {@code fake} and ones older than the window are ignored.
+     */
+    public void complaintStored(Complaint complaint) {
+        String key = keyOf(complaint);
+        Long id = complaint.getId();
+        if (!enabled || key == null || id == null || "fake".equalsIgnoreCase(complaint.getStatus())) {
+            return;
+        }
+        long createdMillis = createdMillisOf(complaint);
+        long[] signature = signatureOf(complaint.getDescription());
+        if (signature == null || createdMillis < clock.millis() - windowMillis) {
+            return;
+        }
+        long clusterId = complaint.getDuplicateOf() != null ? complaint.getDuplicateOf() : id;
+        synchronized (this) {
+            if (keys.putIfAbsent(id, key) != null) {
+                return;
+            }
+            sweep();
+            ArrayDeque<Recent> candidates = recent.computeIfAbsent(key, k -> new ArrayDeque<>());
+            evict(candidates, clock.millis() - windowMillis);
+            if (candidates.size() >= maxPerKey) {
+                // the startup rebuild adds newest first, so the head is not always the oldest
+                Recent oldest = candidates.stream().min(Comparator.comparingLong(Recent::createdMillis)).get();
+                candidates.remove(oldest);
+                keys.remove(oldest.id());
+            }
+            candidates.addLast(new Recent(id, clusterId, createdMillis, signature));
+        }
+    }
+
+    /**
+     * A complaint marked {@code fake} stops matching new ones; complaints
+     * already in its cluster keep their {@code duplicate_of}.
+     */
+    public void complaintUpdated(Complaint complaint) {
+        Long id = complaint.getId();
+        if (id == null || !"fake".equalsIgnoreCase(complaint.getStatus())) {
+            return;
+        }
+        synchronized (this) {
+            String key = keys.remove(id);
+            ArrayDeque<Recent> candidates = key == null ? null : recent.get(key);
+            if (candidates != null) {
+                candidates.removeIf(candidate -> candidate.id() == id);
+                if (candidates.isEmpty()) {
+                    recent.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict expired complaints under every key and drop keys left empty, at
+     * most once per window, so buses that stop being reported do not stay
+     * in the window for good.
+     */
+    private void sweep() {
+        long now = clock.millis();
+        if (now < nextSweepMillis) {
+            return;
+        }
+        nextSweepMillis = now + windowMillis;
+        long oldest = now - windowMillis;
+        for (Iterator<ArrayDeque<Recent>> it = recent.values().iterator(); it.hasNext(); ) {
+            ArrayDeque<Recent> candidates = it.next();
+            evict(candidates, oldest);
+            if (candidates.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void evict(ArrayDeque<Recent> candidates, long oldest) {
+        for (Iterator<Recent> it = candidates.iterator(); it.hasNext(); ) {
+            Recent candidate = it.next();
+            if (candidate.createdMillis() < oldest) {
+                it.remove();
+                keys.remove(candidate.id());
+            }
+        }
+    }
+
+    // ---------- Keys and signatures ----------
+
+    /**
+     * Bus number and route (or thana), case and spacing folded, or
+     * {@code null} when the complaint names no bus.
+     */
+    private static String keyOf(Complaint complaint) {
+        String bus = fold(complaint.getBusNumber());
+        if (bus.isEmpty()) {
+            return null;
+        }
+        String place = fold(complaint.getRoute());
+        return bus + '\u0000' + (place.isEmpty() ? fold(complaint.getThana()) : place);
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : SEPARATORS.matcher(value).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * MinHash signature over the {@value #SHINGLE_LENGTH}-character
+     * shingles of the description, after lower-casing it and reducing
+     * punctuation and spacing to single spaces. Each slot holds the minimum
+     * of one seeded hash over all shingles. {@code null} for an empty
+     * description.
+     */
+    private static long[] signatureOf(String description) {
+        if (description == null) {
+            return null;
+        }
+        char[] text = new char[Math.min(description.length(), MAX_DESCRIPTION_LENGTH)];
+        int length = 0;
+        boolean space = true;
+        for (int i = 0; i < text.length; i++) {
+            char c = description.charAt(i);
+            if (Character.isLetterOrDigit(c) || isMark(c)) {
+                text[length++] = Character.toLowerCase(c);
+                space = false;
+            } else if (!space) {
+                text[length++] = ' ';
+                space = true;
+            }
+        }
+        if (length > 0 && text[length - 1] == ' ') {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        long[] signature = new long[HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        int shingles = Math.max(1, length - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long hash = 1125899906842597L;
+            for (int i = start; i < Math.min(start + SHINGLE_LENGTH, length); i++) {
+                hash = 31 * hash + text[i];
+            }
+            hash = mix(hash);
+            for (int slot = 0; slot < HASHES; slot++) {
+                long value = mix(hash ^ SEEDS[slot]);
+                if (value < signature[slot]) {
+                    signature[slot] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Vowel signs and other combining marks, which carry most of the
+     * difference between Bangla words.
+     */
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Creation time of a complaint, never later than now: a client clock
+     * ahead of ours would otherwise keep its complaint in the window.
+     */
+    private long createdMillisOf(Complaint row) {
+        long now = clock.millis();
+        return Math.min(Timestamps.toEpochMillis(row.getCreatedAt(), now), now);
+    }
+}
@@ -0,0 +1,311 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.NearbyEmergency;
+import com.jatriovijog.util.Geo;
+import com.jatriovijog.util.StateGauges;
+import com.jatriovijog.util.Timestamps;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of recent SOS reports. Reports are bucketed into
+ * a uniform latitude/longitude grid; a radius or bounding-box query only
+ * visits the grid cells overlapping the box and checks the points in them.
+ *
+ * <p>
+ * Coordinates and timestamps live in parallel primitive arrays used as a
+ * ring: once {@code capacity} reports are indexed the oldest one is
+ * replaced. Reports older than the window are skipped by queries and are
+ * overwritten in time. The index is filled from Supabase on startup and
+ * kept current from {@code POST /api/emergencies}; reports without
+ * coordinates are not indexed.
+ * </p>
+ */
+@Component
+public class EmergencyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EmergencyIndex.class);
+
+    /**
+     * Growable list of ring slots in one grid cell.
+     */
+    private static final class Slots {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        private void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private record Hit(long time, EmergencyReport report) {}
+
+    private interface SlotVisitor {
+        void visit(int slot);
+    }
+
+    private final SupabaseService supabaseService;
+    private final double cellDegrees;
+    private final long windowMillis;
+    private final int capacity;
+    private final int rebuildPageSize;
+
+    private final double[] lats;
+    private final double[] lngs;
+    private final long[] times;
+    private final long[] cells;
+    private final EmergencyReport[] reports;
+    private int next;
+    private int size;
+    private final Map<Long, Slots> grid = new HashMap<>();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile String rebuildState = "pending";
+
+    public EmergencyIndex(SupabaseService supabaseService,
+                          MeterRegistry meterRegistry,
+                          @Value("${emergencies.index.cell-degrees:0.01}") double cellDegrees,
+                          @Value("${emergencies.index.window-hours:24}") int windowHours,
+                          @Value("${emergencies.index.capacity:20000}") int capacity,
+                          @Value("${emergencies.index.rebuild-page-size:500}") int rebuildPageSize) {
+        this.supabaseService = supabaseService;
+        this.cellDegrees = cellDegrees;
+        this.windowMillis = windowHours * 3_600_000L;
+        this.capacity = capacity;
+        this.rebuildPageSize = rebuildPageSize;
+        this.lats = new double[capacity];
+        this.lngs = new double[capacity];
+        this.times = new long[capacity];
+        this.cells = new long[capacity];
+        this.reports = new EmergencyReport[capacity];
+        Gauge.builder("emergencies.index.size", this, EmergencyIndex::size)
+                .description("Emergency reports in the index")
+                .register(meterRegistry);
+        Gauge.builder("emergencies.index.cells", this, EmergencyIndex::cells)
+                .description("Occupied grid cells of the index")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "emergencies.index.rebuild",
+                "State of the startup load of the emergency index", () -> rebuildState);
+    }
+
+    // ---------- Feeding ----------
+
+    /**
+     * Load the reports of the window from Supabase, newest first, stopping
+     * at the first one older than the window or once {@code capacity}
+     * reports are read. They are indexed oldest first, so the ring replaces
+     * them in age order. A failed load is retried with backoff.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildState = "running";
+        Flux.defer(() -> {
+                    long oldest = System.currentTimeMillis() - windowMillis;
+                    return supabaseService.streamLatestEmergencies(rebuildPageSize)
+                            .takeWhile(report -> Timestamps.toEpochMillis(report.getCreatedAt(), Long.MAX_VALUE) >= oldest);
+                })
+                .take(capacity)
+                .collectList()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(retry -> {
+                            rebuildState = "retrying";
+                            log.warn("Could not rebuild emergency index from Supabase: {}", retry.failure().toString());
+                        }))
+                .subscribe(rows -> {
+                    for (int i = rows.size() - 1; i >= 0; i--) {
+                        add(rows.get(i));
+                    }
+                    rebuildState = "done";
+                    log.info("Emergency index rebuilt, {} of {} reports indexed", size(), rows.size());
+                });
+    }
+
+    /**
+     * Index a report. Reports already indexed, outside the window or
+     * without coordinates are ignored.
+     */
+    public void add(EmergencyReport report) {
+        Long id = report.getId();
+        Double lat = report.getLatitude();
+        Double lng = report.getLongitude();
+        if (id == null || lat == null || lng == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long time = Timestamps.toEpochMillis(report.getCreatedAt(), now);
+        if (now - time > windowMillis) {
+            return;
+        }
+        long cell = cellOf(lat, lng);
+        lock.writeLock().lock();
+        try {
+            if (slotsById.containsKey(id)) {
+                return;
+            }
+            int slot = next;
+            if (size == capacity) {
+                grid.get(cells[slot]).remove(slot);
+                slotsById.remove(reports[slot].getId());
+            } else {
+                size++;
+            }
+            lats[slot] = lat;
+            lngs[slot] = lng;
+            times[slot] = time;
+            cells[slot] = cell;
+            reports[slot] = report;
+            grid.computeIfAbsent(cell, k -> new Slots()).add(slot);
+            slotsById.put(id, slot);
+            next = (slot + 1) % capacity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------- Queries ----------
+
+    /**
+     * Reports within {@code radiusKm} of the given point, nearest first.
+     */
+    public List<NearbyEmergency> nearby(double lat, double lng, double radiusKm, int limit) {
+        double dLat = radiusKm / Geo.KM_PER_DEGREE;
+        double dLng = Geo.lngDegrees(radiusKm, lat);
+        long since = System.currentTimeMillis() - windowMillis;
+        List<NearbyEmergency> out = new ArrayList<>();
+        visit(lat - dLat, lng - dLng, lat + dLat, lng + dLng, slot -> {
+            if (times[slot] >= since) {
+                double distance = Geo.haversineKm(lat, lng, lats[slot], lngs[slot]);
+                if (distance <= radiusKm) {
+                    out.add(new NearbyEmergency(distance, reports[slot]));
+                }
+            }
+        });
+        out.sort(Comparator.comparingDouble(NearbyEmergency::distanceKm));
+        return out.size() > limit ? out.subList(0, limit) : out;
+    }
+
+    /**
+     * Reports inside the bounding box, newest first.
+     */
+    public List<EmergencyReport> within(double minLat, double minLng, double maxLat, double maxLng, int limit) {
+        long since = System.currentTimeMillis() - windowMillis;
+        List<Hit> hits = new ArrayList<>();
+        visit(minLat, minLng, maxLat, maxLng, slot -> {
+            if (times[slot] >= since
+                    && lats[slot] >= minLat && lats[slot] <= maxLat
+                    && lngs[slot] >= minLng && lngs[slot] <= maxLng) {
+                hits.add(new Hit(times[slot], reports[slot]));
+            }
+        });
+        hits.sort(Comparator.comparingLong(Hit::time).reversed());
+        List<EmergencyReport> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            out.add(hits.get(i).report());
+        }
+        return out;
+    }
+
+    /**
+     * Call {@code visitor} under the read lock for every slot in a grid
+     * cell overlapping the box. When the box spans more cells than are
+     * occupied, the occupied cells are walked instead.
+     */
+    private void visit(double minLat, double minLng, double maxLat, double maxLng, SlotVisitor visitor) {
+        int fromLat = index(minLat);
+        int toLat = index(maxLat);
+        int fromLng = index(minLng);
+        int toLng = index(maxLng);
+        long boxCells = (long) (toLat - fromLat + 1) * (toLng - fromLng + 1);
+        lock.readLock().lock();
+        try {
+            if (boxCells > grid.size()) {
+                grid.forEach((cell, slots) -> {
+                    int cellLat = (int) (cell >> 32);
+                    int cellLng = (int) (long) cell;
+                    if (cellLat >= fromLat && cellLat <= toLat && cellLng >= fromLng && cellLng <= toLng) {
+                        visitSlots(slots, visitor);
+                    }
+                });
+                return;
+            }
+            for (int i = fromLat; i <= toLat; i++) {
+                for (int j = fromLng; j <= toLng; j++) {
+                    Slots slots = grid.get(key(i, j));
+                    if (slots != null) {
+                        visitSlots(slots, visitor);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void visitSlots(Slots slots, SlotVisitor visitor) {
+        for (int k = 0; k < slots.size; k++) {
+            visitor.visit(slots.slots[k]);
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int cells() {
+        lock.readLock().lock();
+        try {
+            return grid.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private long cellOf(double lat, double lng) {
+        return key(index(lat), index(lng));
+    }
+
+    private static long key(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+}
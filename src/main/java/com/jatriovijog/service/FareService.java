@@ -0,0 +1,164 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jatriovijog.model.FareQuote;
+import com.jatriovijog.util.Geo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes fares on the server: bus fare from the road distance, the bus
+ * routes serving both ends and the MRT option, using the precomputed
+ * {@link TransitNetwork}.
+ *
+ * <p>
+ * Road distances come from OSRM when {@code fare.osrm.enabled} is set.
+ * Quotes are cached by the trip's end points rounded to about 100 m, so
+ * repeated or nearby pin drops never reach OSRM, and concurrent requests
+ * for the same trip share one OSRM call. When OSRM is disabled, slow or
+ * failing the straight-line distance scaled by {@code fare.detour-factor}
+ * is used instead; a fallback estimate is not cached so the next request
+ * tries OSRM again. The quote cache publishes the {@code cache.*} meters
+ * tagged {@code cache=fare.quotes}.
+ * </p>
+ */
+@Service
+public class FareService {
+
+    /** Coordinates are rounded to this many steps per degree (about 110 m). */
+    private static final int QUANTUM = 1000;
+
+    private static final double METRO_WALK_KM = 2.0;
+
+    private record TripKey(int fromLat, int fromLng, int toLat, int toLng) {}
+
+    private record Road(double distanceKm, String source, List<double[]> route) {}
+
+    private final WebClient osrm;
+    private final TransitNetwork network;
+    private final boolean osrmEnabled;
+    private final Duration osrmTimeout;
+    private final double detourFactor;
+    private final AsyncCache<TripKey, FareQuote> quotes;
+
+    public FareService(WebClient osrmWebClient,
+                       TransitNetwork network,
+                       MeterRegistry meterRegistry,
+                       @Value("${fare.osrm.enabled:false}") boolean osrmEnabled,
+                       @Value("${fare.osrm.timeout-ms:2500}") long osrmTimeoutMs,
+                       @Value("${fare.detour-factor:1.3}") double detourFactor,
+                       @Value("${fare.cache.max-entries:10000}") long cacheMaxEntries,
+                       @Value("${fare.cache.ttl-hours:24}") long cacheTtlHours) {
+        this.osrm = osrmWebClient;
+        this.network = network;
+        this.osrmEnabled = osrmEnabled;
+        this.osrmTimeout = Duration.ofMillis(osrmTimeoutMs);
+        this.detourFactor = detourFactor;
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofHours(cacheTtlHours))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, quotes, "fare.quotes");
+    }
+
+    public Mono<FareQuote> quote(double fromLat, double fromLng, double toLat, double toLng) {
+        TripKey key = new TripKey(quantize(fromLat), quantize(fromLng), quantize(toLat), quantize(toLng));
+        return Mono.defer(() -> {
+            CompletableFuture<FareQuote> quote = quotes.get(key, (k, executor) -> road(fromLat, fromLng, toLat, toLng)
+                    .map(road -> build(road, fromLat, fromLng, toLat, toLng))
+                    .toFuture());
+            // one caller cancelling must not cancel the call the others share
+            return Mono.fromFuture(quote, true)
+                    .doOnNext(fare -> {
+                        if (osrmEnabled && "estimate".equals(fare.distanceSource())) {
+                            quotes.asMap().remove(key, quote);
+                        }
+                    });
+        });
+    }
+
+    private FareQuote build(Road road, double fromLat, double fromLng, double toLat, double toLng) {
+        List<String> buses = List.of();
+        List<String> transfers = null;
+        TransitNetwork.Hub fromHub = network.hubAt(fromLat, fromLng);
+        TransitNetwork.Hub toHub = network.hubAt(toLat, toLng);
+        // a short hop inside one hub's area is not worth a bus
+        boolean sameHubHop = fromHub != null && toHub != null && fromHub.id().equals(toHub.id())
+                && Geo.haversineKm(fromLat, fromLng, toLat, toLng) < 3;
+        if (fromHub != null && toHub != null && !sameHubHop) {
+            buses = network.directRoutes(fromHub.id(), toHub.id());
+            if (buses.isEmpty()) {
+                transfers = new ArrayList<>();
+                for (TransitNetwork.Transfer t : network.transfers(fromHub.id(), toHub.id(), 3)) {
+                    transfers.add(t.first() + " → " + t.transferHub() + " → " + t.second());
+                }
+            }
+        }
+        return new FareQuote(road.distanceKm(), road.source(), busFare(road.distanceKm()), buses, transfers,
+                metro(fromLat, fromLng, toLat, toLng), road.route());
+    }
+
+    private FareQuote.Metro metro(double fromLat, double fromLng, double toLat, double toLng) {
+        int from = network.nearestStation(fromLat, fromLng, METRO_WALK_KM);
+        int to = network.nearestStation(toLat, toLng, METRO_WALK_KM);
+        if (from < 0 || to < 0 || from == to) {
+            return FareQuote.Metro.UNAVAILABLE;
+        }
+        int fare = Math.min(100, 20 + Math.abs(from - to) * 5);
+        List<TransitNetwork.Station> stations = network.metroStations();
+        return new FareQuote.Metro(true, fare, stations.get(from).name(), stations.get(to).name());
+    }
+
+    static int busFare(double km) {
+        return (int) Math.ceil(Math.max(10, km * 2.45) / 5) * 5;
+    }
+
+    private Mono<Road> road(double fromLat, double fromLng, double toLat, double toLng) {
+        Road estimate = new Road(Geo.haversineKm(fromLat, fromLng, toLat, toLng) * detourFactor, "estimate", List.of());
+        if (!osrmEnabled) {
+            return Mono.just(estimate);
+        }
+        String coordinates = String.format(Locale.ROOT, "%.6f,%.6f;%.6f,%.6f", fromLng, fromLat, toLng, toLat);
+        return osrm.get()
+                .uri(builder -> builder.path("/route/v1/driving/{coordinates}")
+                        .queryParam("overview", "full")
+                        .queryParam("geometries", "geojson")
+                        .build(coordinates))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(osrmTimeout)
+                .flatMap(body -> Mono.justOrEmpty(toRoad(body)))
+                .onErrorResume(error -> Mono.empty())
+                .defaultIfEmpty(estimate);
+    }
+
+    private static Road toRoad(JsonNode body) {
+        JsonNode route = body.path("routes").path(0);
+        if (!route.has("distance")) {
+            return null;
+        }
+        List<double[]> points = new ArrayList<>();
+        // GeoJSON is [lng, lat]; the map wants [lat, lng]
+        for (JsonNode point : route.path("geometry").path("coordinates")) {
+            points.add(new double[]{point.get(1).asDouble(), point.get(0).asDouble()});
+        }
+        return new Road(route.get("distance").asDouble() / 1000, "osrm", points);
+    }
+
+    private static int quantize(double degrees) {
+        return (int) Math.round(degrees * QUANTUM);
+    }
+}
@@ -0,0 +1,260 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.Hotspot;
+import com.jatriovijog.util.StateGauges;
+import com.jatriovijog.util.Timestamps;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory complaint counts per thana and category over a sliding window,
+ * used to rank hotspots without reading the complaints table per request.
+ *
+ * <p>
+ * Every (thana, category) pair keeps a ring of time buckets; a bucket that
+ * falls out of the window is simply no longer summed and is reused once its
+ * slot comes round again. Counts are kept up to date from the complaint
+ * endpoints and rebuilt from Supabase with a keyset scan on startup. The
+ * ranking is recomputed only after a change or when the window has moved
+ * on by a bucket, so {@link #top(int)} just copies the first entries.
+ * </p>
+ *
+ * <p>
+ * Complaints marked {@code fake} are not counted. Every counted complaint
+ * is remembered by id, which makes repeated or out-of-order notifications
+ * (say, a live insert that the startup scan also returns) harmless.
+ * </p>
+ */
+@Component
+public class HotspotAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(HotspotAggregator.class);
+
+    private static final Comparator<Hotspot> RANKING = Comparator.comparingLong(Hotspot::count).reversed()
+            .thenComparing(Hotspot::lastSeen, Comparator.reverseOrder());
+
+    private final class Cell {
+        private final String thana;
+        private final String category;
+        private final long[] counts = new long[bucketCount];
+        private final long[] epochs = new long[bucketCount];
+        private long lastSeenMillis;
+
+        private Cell(String thana, String category) {
+            this.thana = thana;
+            this.category = category;
+        }
+
+        private void add(long epoch, long delta) {
+            int slot = (int) (epoch % bucketCount);
+            if (epochs[slot] != epoch) {
+                epochs[slot] = epoch;
+                counts[slot] = 0;
+            }
+            counts[slot] += delta;
+        }
+
+        private long sum(long currentEpoch) {
+            long total = 0;
+            for (int slot = 0; slot < bucketCount; slot++) {
+                if (currentEpoch - epochs[slot] < bucketCount) {
+                    total += counts[slot];
+                }
+            }
+            return total;
+        }
+    }
+
+    private record Counted(Cell cell, long epoch) {}
+
+    private record Ranking(long epoch, List<Hotspot> hotspots) {}
+
+    private final SupabaseService supabaseService;
+    private final Clock clock;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int rebuildPageSize;
+
+    private final Map<String, Cell> cells = new HashMap<>();
+    private final Map<Long, Counted> counted = new HashMap<>();
+    private volatile boolean dirty = true;
+    private volatile Ranking ranking = new Ranking(-1, List.of());
+    private volatile String rebuildState = "pending";
+
+    public HotspotAggregator(SupabaseService supabaseService,
+                             MeterRegistry meterRegistry,
+                             @Value("${hotspots.window-hours:24}") int windowHours,
+                             @Value("${hotspots.bucket-minutes:60}") int bucketMinutes,
+                             @Value("${hotspots.rebuild-page-size:500}") int rebuildPageSize) {
+        if (bucketMinutes < 1 || windowHours * 60 % bucketMinutes != 0) {
+            throw new IllegalArgumentException("hotspots.bucket-minutes must divide the window evenly");
+        }
+        this.supabaseService = supabaseService;
+        this.clock = Clock.systemUTC();
+        this.bucketMillis = bucketMinutes * 60_000L;
+        this.bucketCount = windowHours * 60 / bucketMinutes;
+        this.rebuildPageSize = rebuildPageSize;
+        Gauge.builder("hotspots.cells", this, aggregator -> aggregator.size(aggregator.cells))
+                .description("Thana and route pairs with complaints in the window")
+                .register(meterRegistry);
+        Gauge.builder("hotspots.tracked", this, aggregator -> aggregator.size(aggregator.counted))
+                .description("Complaints counted in the window")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "hotspots.rebuild", "State of the startup rebuild of the hotspot window",
+                () -> rebuildState);
+    }
+
+    private synchronized int size(Map<?, ?> map) {
+        return map.size();
+    }
+
+    // ---------- Feeding ----------
+
+    /**
+     * Reload the window from Supabase, newest complaints first, stopping at
+     * the first one older than the window. A failed load is retried with
+     * backoff; complaints counted by an earlier attempt are not counted
+     * twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildState = "running";
+        Flux.defer(() -> {
+                    long oldest = currentEpoch() - bucketCount + 1;
+                    return supabaseService.streamComplaints(ComplaintQuery.latest(rebuildPageSize))
+                            .takeWhile(row -> epochOf(row) >= oldest);
+                })
+                .doOnNext(this::apply)
+                .count()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(retry -> {
+                            rebuildState = "retrying";
+                            log.warn("Could not rebuild hotspot window from Supabase: {}", retry.failure().toString());
+                        }))
+                .subscribe(rows -> {
+                    rebuildState = "done";
+                    log.info("Hotspot window rebuilt from {} complaints", rows);
+                });
+    }
+
+    public void complaintCreated(Complaint complaint) {
+        apply(complaint);
+    }
+
+    /**
+     * A complaint's status changed. PostgREST returns the full row, so it
+     * carries the thana, category and creation time needed to (un)count it.
+     */
+    public void complaintUpdated(Complaint complaint) {
+        apply(complaint);
+    }
+
+    private synchronized void apply(Complaint row) {
+        Long id = row.getId();
+        if (id == null) {
+            return;
+        }
+        if ("fake".equalsIgnoreCase(row.getStatus())) {
+            Counted previous = counted.remove(id);
+            if (previous != null) {
+                previous.cell().add(previous.epoch(), -1);
+                dirty = true;
+            }
+            return;
+        }
+        if (row.getThana() == null || row.getThana().isBlank() || counted.containsKey(id)) {
+            return;
+        }
+        long createdMillis = createdMillisOf(row);
+        long epoch = createdMillis / bucketMillis;
+        if (currentEpoch() - epoch >= bucketCount) {
+            return;
+        }
+        String thana = row.getThana().trim();
+        String category = row.getCategory() == null || row.getCategory().isBlank() ? "Other" : row.getCategory().trim();
+        Cell cell = cells.computeIfAbsent(thana + '\u0000' + category, key -> new Cell(thana, category));
+        cell.add(epoch, 1);
+        cell.lastSeenMillis = Math.max(cell.lastSeenMillis, createdMillis);
+        counted.put(id, new Counted(cell, epoch));
+        dirty = true;
+    }
+
+    // ---------- Reads ----------
+
+    /**
+     * The {@code k} thana/category pairs with the most complaints in the
+     * window, most recent first among equal counts.
+     */
+    public List<Hotspot> top(int k) {
+        long epoch = currentEpoch();
+        Ranking current = ranking;
+        if (current.epoch() != epoch || dirty) {
+            current = rank(epoch);
+        }
+        List<Hotspot> hotspots = current.hotspots();
+        return hotspots.subList(0, Math.min(k, hotspots.size()));
+    }
+
+    private synchronized Ranking rank(long epoch) {
+        if (ranking.epoch() == epoch && !dirty) {
+            return ranking;
+        }
+        if (ranking.epoch() != epoch) {
+            // the window moved: forget complaints and cells that fell out of it
+            counted.values().removeIf(c -> epoch - c.epoch() >= bucketCount);
+        }
+        List<Hotspot> hotspots = new ArrayList<>();
+        for (Iterator<Cell> it = cells.values().iterator(); it.hasNext(); ) {
+            Cell cell = it.next();
+            long count = cell.sum(epoch);
+            if (count > 0) {
+                hotspots.add(new Hotspot(cell.thana, cell.category, count, Instant.ofEpochMilli(cell.lastSeenMillis)));
+            } else if (epoch - cell.lastSeenMillis / bucketMillis >= bucketCount) {
+                it.remove();
+            }
+        }
+        hotspots.sort(RANKING);
+        dirty = false;
+        ranking = new Ranking(epoch, List.copyOf(hotspots));
+        return ranking;
+    }
+
+    private long currentEpoch() {
+        return clock.millis() / bucketMillis;
+    }
+
+    private long epochOf(Complaint row) {
+        return createdMillisOf(row) / bucketMillis;
+    }
+
+    /**
+     * Rows without a readable {@code created_at} count as filed just now,
+     * and so do rows dated in the future, which would otherwise land in a
+     * bucket that never leaves the window.
+     */
+    private long createdMillisOf(Complaint row) {
+        long now = clock.millis();
+        return Math.min(Timestamps.toEpochMillis(row.getCreatedAt(), now), now);
+    }
+}
@@ -0,0 +1,169 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Groups single-row inserts into bulk inserts. Rows submitted within
+ * {@code maxWait} of each other, up to {@code maxSize} of them, are sent to
+ * {@code insertAll} as one array, and every caller's {@link Mono} completes
+ * with the row created for it. PostgREST returns the created rows in the
+ * order they were sent, which is how results are matched back to callers.
+ *
+ * <p>
+ * {@link #submitNow(Object)} skips the wait: the row is sent at once,
+ * together with whatever else happens to be queued at that moment.
+ * </p>
+ *
+ * <p>
+ * When Supabase rejects a bulk insert as invalid (one bad row fails the
+ * whole array) its rows are sent again one at a time, so only the caller of
+ * the bad row sees the error. Batch sizes and latencies are recorded as
+ * {@code supabase.batch.size} and {@code supabase.batch.latency}, tagged
+ * with the table.
+ * </p>
+ */
+public class InsertBatcher<T> {
+
+    private record Pending<T>(T row, MonoSink<T> sink) {}
+
+    private final Function<List<T>, Flux<T>> insertAll;
+    private final int maxSize;
+    private final Duration maxWait;
+
+    private final Queue<Pending<T>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Timer latency;
+    private final DistributionSummary size;
+    private final Counter failures;
+    private final Counter isolated;
+
+    /**
+     * @param table tag of this batcher's meters
+     */
+    public InsertBatcher(Function<List<T>, Flux<T>> insertAll, int maxSize, Duration maxWait,
+                         MeterRegistry meterRegistry, String table) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.insertAll = insertAll;
+        this.maxSize = maxSize;
+        this.maxWait = maxWait;
+        this.latency = LatencyTimers.timer(meterRegistry, "supabase.batch.latency",
+                "Time to send one bulk insert", "table", table);
+        this.size = DistributionSummary.builder("supabase.batch.size")
+                .description("Rows sent per bulk insert")
+                .baseUnit("rows")
+                .tags("table", table)
+                .register(meterRegistry);
+        this.failures = Counter.builder("supabase.batch.failures")
+                .description("Bulk inserts that failed")
+                .tags("table", table)
+                .register(meterRegistry);
+        this.isolated = Counter.builder("supabase.batch.isolated")
+                .description("Bulk inserts rejected as invalid and resent one row at a time")
+                .tags("table", table)
+                .register(meterRegistry);
+        Gauge.builder("supabase.batch.queued", queued, AtomicInteger::get)
+                .description("Rows waiting for the next bulk insert")
+                .tags("table", table)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a row for the next batch.
+     */
+    public Mono<T> submit(T row) {
+        return enqueue(row, false);
+    }
+
+    /**
+     * Queue a row and flush immediately, without waiting for the batch window.
+     */
+    public Mono<T> submitNow(T row) {
+        return enqueue(row, true);
+    }
+
+    private Mono<T> enqueue(T row, boolean immediate) {
+        return Mono.create(sink -> {
+            queue.add(new Pending<>(row, sink));
+            if (queued.incrementAndGet() >= maxSize || immediate) {
+                flush();
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                Schedulers.parallel().schedule(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                }, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void flush() {
+        while (true) {
+            List<Pending<T>> batch = new ArrayList<>(maxSize);
+            Pending<T> next;
+            while (batch.size() < maxSize && (next = queue.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            queued.addAndGet(-batch.size());
+            send(batch);
+            if (batch.size() < maxSize) {
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending<T>> batch) {
+        List<T> payload = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            payload.add(pending.row());
+        }
+        long start = System.nanoTime();
+        insertAll.apply(payload)
+                .collectList()
+                .subscribe(created -> {
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    size.record(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i < created.size()) {
+                            batch.get(i).sink().success(created.get(i));
+                        } else {
+                            batch.get(i).sink().error(
+                                    new IllegalStateException("Supabase returned fewer rows than were inserted"));
+                        }
+                    }
+                }, error -> {
+                    failures.increment();
+                    if (batch.size() > 1 && WriteJournal.isInvalid(error)) {
+                        // one bad row fails the whole array; resend so only its caller gets the error
+                        isolated.increment();
+                        batch.forEach(pending -> send(List.of(pending)));
+                    } else {
+                        batch.forEach(pending -> pending.sink().error(error));
+                    }
+                });
+    }
+}
@@ -0,0 +1,332 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatMember;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.model.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link SupabaseRepository} straight to Postgres over the pooled
+ * connections of {@code PostgresConfig} ({@code supabase.repository=jdbc}).
+ *
+ * <p>
+ * Every statement is a prepared statement with bound parameters, and bulk
+ * inserts are a single multi-row {@code INSERT ... RETURNING *}, so a batch
+ * is still one round trip. Rows are mapped through the same Jackson
+ * annotations as PostgREST's JSON, with timestamps formatted the way
+ * PostgREST formats them, so both repositories return identical objects
+ * and keyset cursors taken from either work with both. JDBC blocks, so
+ * calls run on the Supabase blocking scheduler; the pool size bounds how
+ * many run at once.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.repository", havingValue = "jdbc")
+public class JdbcRepository implements SupabaseRepository {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** PostgREST's rendering of timestamptz, e.g. 2024-05-01T10:15:30.123456+00:00 */
+    private static final DateTimeFormatter TIMESTAMP = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
+            .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
+            .appendOffset("+HH:MM", "+00:00")
+            .toFormatter();
+
+    private final JdbcTemplate jdbc;
+    private final Scheduler blockingScheduler;
+
+    public JdbcRepository(DataSource dataSource, Scheduler supabaseBlockingScheduler) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.blockingScheduler = supabaseBlockingScheduler;
+    }
+
+    @Override
+    public String name() {
+        return "jdbc";
+    }
+
+    // ---------- Complaints ----------
+
+    /**
+     * Filters and the keyset cursor become a {@code WHERE} clause; the cursor
+     * is compared as a row, {@code (created_at, id) < (?, ?)}, which Postgres
+     * answers with a range scan of the {@code (created_at, id)} index.
+     */
+    @Override
+    public Flux<Complaint> findComplaints(ComplaintQuery query) {
+        String direction = query.ascending() ? "ASC" : "DESC";
+        StringBuilder sql = new StringBuilder("SELECT * FROM complaints WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        eqFilter(sql, args, "status", query.status());
+        eqFilter(sql, args, "thana", query.thana());
+        eqFilter(sql, args, "route", query.route());
+        eqFilter(sql, args, "category", query.category());
+        if (query.duplicateOf() != null) {
+            sql.append(" AND duplicate_of = ?");
+            args.add(query.duplicateOf());
+        }
+        if (query.collapsed()) {
+            sql.append(" AND duplicate_of IS NULL");
+        }
+        if (query.hasCursor()) {
+            sql.append(" AND (created_at, id) ").append(query.ascending() ? ">" : "<")
+                    .append(" (CAST(? AS timestamptz), ?)");
+            args.add(query.cursorCreatedAt());
+            args.add(query.cursorId());
+        }
+        sql.append(" ORDER BY created_at ").append(direction).append(", id ").append(direction).append(" LIMIT ?");
+        args.add(query.limit());
+        return query(Complaint.class, sql.toString(), args.toArray());
+    }
+
+    private static void eqFilter(StringBuilder sql, List<Object> args, String column, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        sql.append(" AND ").append(column).append(" = ?");
+        args.add(value.trim());
+    }
+
+    @Override
+    public Mono<Complaint> findComplaint(long id) {
+        return query(Complaint.class, "SELECT * FROM complaints WHERE id = ?", id).singleOrEmpty();
+    }
+
+    @Override
+    public Flux<Complaint> insertComplaints(List<Complaint> complaints, boolean ignoreDuplicates) {
+        return insertAll("complaints", complaints, Complaint.class, ignoreDuplicates ? "client_key" : null);
+    }
+
+    @Override
+    public Flux<Complaint> updateComplaints(List<Long> ids, Complaint patch) {
+        return call(() -> {
+            JsonNode values = MAPPER.valueToTree(patch);
+            List<String> assignments = new ArrayList<>();
+            List<Object> args = new ArrayList<>();
+            values.fields().forEachRemaining(field -> {
+                assignments.add(quote(field.getKey()) + " = ?");
+                args.add(value(field.getValue()));
+            });
+            args.addAll(ids);
+            String sql = "UPDATE complaints SET " + String.join(", ", assignments)
+                    + " WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") RETURNING *";
+            return jdbc.query(sql, rowMapper(Complaint.class), args.toArray());
+        });
+    }
+
+    // ---------- Emergency reports ----------
+
+    @Override
+    public Flux<EmergencyReport> findEmergencies() {
+        return query(EmergencyReport.class, "SELECT * FROM emergency_reports");
+    }
+
+    @Override
+    public Flux<EmergencyReport> findEmergenciesAfter(Long afterId, int limit) {
+        return query(EmergencyReport.class, "SELECT * FROM emergency_reports WHERE id > ? ORDER BY id LIMIT ?",
+                afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    public Flux<EmergencyReport> findEmergenciesBefore(Long beforeId, int limit) {
+        return query(EmergencyReport.class, "SELECT * FROM emergency_reports WHERE id < ? ORDER BY id DESC LIMIT ?",
+                beforeId == null ? Long.MAX_VALUE : beforeId, limit);
+    }
+
+    @Override
+    public Flux<EmergencyReport> insertEmergencies(List<EmergencyReport> reports, boolean ignoreDuplicates) {
+        return insertAll("emergency_reports", reports, EmergencyReport.class, ignoreDuplicates ? "client_key" : null);
+    }
+
+    // ---------- Users ----------
+
+    @Override
+    public Mono<User> insertUser(User user) {
+        return insertAll("users", List.of(user), User.class, null).singleOrEmpty();
+    }
+
+    @Override
+    public Mono<User> findUserByEmail(String email) {
+        return query(User.class, "SELECT * FROM users WHERE email = ?", email).singleOrEmpty();
+    }
+
+    // ---------- Police chat ----------
+
+    @Override
+    public Flux<ChatChannel> findChatChannels() {
+        return query(ChatChannel.class, "SELECT * FROM chat_channels ORDER BY created_at");
+    }
+
+    @Override
+    public Mono<ChatChannel> insertChatChannel(ChatChannel channel) {
+        return insertAll("chat_channels", List.of(channel), ChatChannel.class, null).singleOrEmpty();
+    }
+
+    @Override
+    public Flux<ChatMember> findChatMembers() {
+        return query(ChatMember.class, "SELECT channel_id, officer FROM chat_members");
+    }
+
+    @Override
+    public Mono<Void> insertChatMember(ChatMember member) {
+        return update("INSERT INTO chat_members (channel_id, officer) VALUES (?, ?) "
+                + "ON CONFLICT (channel_id, officer) DO NOTHING", member.channelId(), member.officer());
+    }
+
+    @Override
+    public Mono<Void> deleteChatMember(ChatMember member) {
+        return update("DELETE FROM chat_members WHERE channel_id = ? AND officer = ?",
+                member.channelId(), member.officer());
+    }
+
+    @Override
+    public Flux<ChatMessage> findChatMessages(String channelId, long beforeSeq, int limit) {
+        return query(ChatMessage.class, "SELECT * FROM chat_messages WHERE channel_id = ? AND seq < ? "
+                + "ORDER BY seq DESC LIMIT ?", channelId, beforeSeq > 0 ? beforeSeq : Long.MAX_VALUE, limit);
+    }
+
+    @Override
+    public Flux<ChatMessage> insertChatMessages(List<ChatMessage> messages) {
+        return insertAll("chat_messages", messages, ChatMessage.class, null);
+    }
+
+    // ---------- Reactions ----------
+
+    @Override
+    public Flux<ReactionCounts> findReactionCounts(Long afterId, int limit) {
+        return query(ReactionCounts.class, "SELECT complaint_id, support, angry, watch, views "
+                        + "FROM complaint_reactions WHERE complaint_id > ? ORDER BY complaint_id LIMIT ?",
+                afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    public Mono<Void> addReactionCounts(String flushId, List<ReactionCounts> deltas) {
+        return call(() -> jdbc.queryForList("SELECT add_complaint_reactions(CAST(? AS uuid), CAST(? AS jsonb))",
+                flushId, MAPPER.writeValueAsString(deltas))).then();
+    }
+
+    // ---------- Bulk inserts ----------
+
+    /**
+     * One multi-row {@code INSERT ... RETURNING *}. The columns are the union
+     * of the rows' non-null properties; a row without one of them gets
+     * {@code DEFAULT} in its place, like PostgREST's {@code missing=default}.
+     *
+     * @param onConflict with a unique column, {@code ON CONFLICT (column) DO
+     *                   NOTHING}: conflicting rows are left out of the result
+     */
+    private <T> Flux<T> insertAll(String table, List<T> rows, Class<T> type, String onConflict) {
+        return call(() -> {
+            List<JsonNode> values = new ArrayList<>(rows.size());
+            Set<String> columns = new LinkedHashSet<>();
+            for (T row : rows) {
+                JsonNode node = MAPPER.valueToTree(row);
+                node.fieldNames().forEachRemaining(columns::add);
+                values.add(node);
+            }
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+            sql.append(String.join(", ", columns.stream().map(JdbcRepository::quote).toList())).append(") VALUES ");
+            List<Object> args = new ArrayList<>();
+            for (int i = 0; i < values.size(); i++) {
+                sql.append(i == 0 ? "(" : ", (");
+                int c = 0;
+                for (String column : columns) {
+                    JsonNode value = values.get(i).get(column);
+                    sql.append(c++ == 0 ? "" : ", ").append(value == null ? "DEFAULT" : "?");
+                    if (value != null) {
+                        args.add(value(value));
+                    }
+                }
+                sql.append(')');
+            }
+            if (onConflict != null) {
+                sql.append(" ON CONFLICT (").append(onConflict).append(") DO NOTHING");
+            }
+            sql.append(" RETURNING *");
+            return jdbc.query(sql.toString(), rowMapper(type), args.toArray());
+        });
+    }
+
+    private static String quote(String column) {
+        return '"' + column.replace("\"", "\"\"") + '"';
+    }
+
+    private static Object value(JsonNode node) {
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        return node.isTextual() ? node.textValue() : node.toString();
+    }
+
+    // ---------- Transport ----------
+
+    private <T> Flux<T> query(Class<T> type, String sql, Object... args) {
+        return call(() -> jdbc.query(sql, rowMapper(type), args));
+    }
+
+    private Mono<Void> update(String sql, Object... args) {
+        return call(() -> List.of(jdbc.update(sql, args))).then();
+    }
+
+    /**
+     * Run a blocking statement on the blocking scheduler and emit its rows.
+     */
+    private <T> Flux<T> call(Callable<List<T>> statement) {
+        return Mono.fromCallable(statement)
+                .subscribeOn(blockingScheduler)
+                .flatMapIterable(rows -> rows);
+    }
+
+    /**
+     * Map a row to {@code type} by column name with the model's Jackson
+     * annotations, as if it had been read from PostgREST's JSON.
+     */
+    private static <T> RowMapper<T> rowMapper(Class<T> type) {
+        return (rs, rowNum) -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Object value;
+                if ("timestamptz".equals(meta.getColumnTypeName(i))) {
+                    OffsetDateTime timestamp = rs.getObject(i, OffsetDateTime.class);
+                    value = timestamp == null ? null : TIMESTAMP.format(timestamp);
+                } else {
+                    value = rs.getObject(i);
+                }
+                row.put(meta.getColumnLabel(i), value);
+            }
+            return MAPPER.convertValue(row, type);
+        };
+    }
+}
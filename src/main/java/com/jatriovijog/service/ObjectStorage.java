@@ -0,0 +1,112 @@
+package com.jatriovijog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Where uploaded files end up. {@code uploads.storage=supabase} streams them
+ * to a Supabase Storage bucket; {@code local} (the default) writes them
+ * below {@code uploads.local.dir}, served by the backend under
+ * {@code /uploads}. Either way the body is copied from a channel in chunks
+ * and never held in memory as a whole.
+ */
+@Component
+public class ObjectStorage {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final WebClient storageClient;
+    private final boolean supabase;
+    private final String bucket;
+    private final String supabaseUrl;
+    private final Path localDir;
+    private final String publicBaseUrl;
+
+    public ObjectStorage(WebClient supabaseStorageWebClient,
+                         @Value("${uploads.storage:local}") String storage,
+                         @Value("${uploads.supabase.bucket:uploads}") String bucket,
+                         @Value("${supabase.url}") String supabaseUrl,
+                         @Value("${uploads.local.dir:./data/uploads}") String localDir,
+                         @Value("${uploads.local.public-base-url:/uploads}") String publicBaseUrl) {
+        this.storageClient = supabaseStorageWebClient;
+        this.supabase = "supabase".equalsIgnoreCase(storage);
+        this.bucket = bucket;
+        this.supabaseUrl = supabaseUrl.endsWith("/") ? supabaseUrl.substring(0, supabaseUrl.length() - 1) : supabaseUrl;
+        this.localDir = Path.of(localDir).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+    }
+
+    /**
+     * Store {@code size} bytes read from {@code body} under {@code key} and
+     * emit the public URL of the stored object. The channel is closed once
+     * it has been read.
+     *
+     * @param key relative path such as {@code images/2026/01/31/<id>.jpg};
+     *            generated by the caller, never taken from a client
+     */
+    public Mono<String> put(String key, ReadableByteChannel body, long size, String contentType) {
+        return supabase ? putSupabase(key, body, size, contentType) : putLocal(key, body, size);
+    }
+
+    private Mono<String> putSupabase(String key, ReadableByteChannel body, long size, String contentType) {
+        return storageClient.post()
+                .uri(builder -> builder.path("/object/" + bucket + "/" + key).build())
+                .contentType(MediaType.parseMediaType(contentType))
+                .contentLength(size)
+                .header("x-upsert", "false")
+                .body(BodyInserters.fromDataBuffers(DataBufferUtils.readByteChannel(() -> body,
+                                DefaultDataBufferFactory.sharedInstance, CHUNK_SIZE)
+                        .subscribeOn(Schedulers.boundedElastic())))
+                .retrieve()
+                .toBodilessEntity()
+                .thenReturn(supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + key);
+    }
+
+    /**
+     * Copy into a temporary file next to the target and move it into place,
+     * so a half-written file is never served.
+     */
+    private Mono<String> putLocal(String key, ReadableByteChannel body, long size) {
+        return Mono.fromCallable(() -> {
+            Path target = localDir.resolve(key).normalize();
+            if (!target.startsWith(localDir)) {
+                throw new IllegalArgumentException("Invalid object key");
+            }
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            try (ReadableByteChannel in = body;
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < size) {
+                    long copied = out.transferFrom(in, position, Math.min(CHUNK_SIZE * 16L, size - position));
+                    if (copied <= 0) {
+                        throw new IOException("Upload ended after " + position + " of " + size + " bytes");
+                    }
+                    position += copied;
+                }
+                out.force(false);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return publicBaseUrl + "/" + key;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
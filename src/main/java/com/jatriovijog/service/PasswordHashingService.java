@@ -0,0 +1,115 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, fixed-size thread
+ * pool so that the CPU-heavy work never lands on Netty or WebClient event
+ * loop threads. The pool has a bounded queue; when it is full new requests
+ * are rejected with {@link OverloadedException} instead of piling up, which
+ * the auth endpoints turn into {@code 429 Too Many Requests}.
+ *
+ * <p>
+ * Time spent waiting in the queue and time spent hashing are recorded by
+ * separate timers ({@code bcrypt.queue.wait} and {@code bcrypt.hashing}),
+ * so the BCrypt cost can be tuned against p99 login latency. The pool
+ * publishes the {@code executor.*} meters tagged {@code name=bcrypt} and
+ * rejected requests are counted as {@code bcrypt.rejected}.
+ * </p>
+ */
+@Service
+public class PasswordHashingService {
+
+    /**
+     * Thrown when the hashing queue is full.
+     */
+    public static class OverloadedException extends RuntimeException {
+        public OverloadedException() {
+            super("Too many concurrent sign-in requests, please retry shortly");
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueWait;
+    private final Timer hashing;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.bcrypt.threads:0}") int threads,
+                                  @Value("${security.bcrypt.queue-size:64}") int queueSize) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueWait = LatencyTimers.timer(meterRegistry, "bcrypt.queue.wait",
+                "Time a BCrypt task waits for a hashing thread");
+        this.hashing = LatencyTimers.timer(meterRegistry, "bcrypt.hashing", "Time to hash or verify a password");
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "bcrypt", Tags.empty()).bindTo(meterRegistry);
+        this.rejected = Counter.builder("bcrypt.rejected")
+                .description("Sign-in requests rejected because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    public Mono<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> encodedPassword != null && passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> Mono<T> submit(Callable<T> task) {
+        return Mono.create(sink -> {
+            long enqueued = System.nanoTime();
+            try {
+                Future<?> future = executor.submit(() -> {
+                    long started = System.nanoTime();
+                    queueWait.record(started - enqueued, TimeUnit.NANOSECONDS);
+                    try {
+                        sink.success(task.call());
+                    } catch (Exception e) {
+                        sink.error(e);
+                    } finally {
+                        hashing.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                });
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                sink.error(new OverloadedException());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,380 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatMember;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SupabaseRepository} over Supabase's auto-generated PostgREST API
+ * ({@code supabase.repository=rest}, the default). Reads are retried on
+ * transient failures ({@code supabase.http.retry.*}); writes never are.
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.repository", havingValue = "rest", matchIfMissing = true)
+public class PostgrestRepository implements SupabaseRepository {
+
+    private static final ObjectMapper COLUMNS_MAPPER = new ObjectMapper();
+
+    private final WebClient webClient;
+    private final RestClient restClient;
+    private final Scheduler blockingScheduler;
+    private final boolean blocking;
+    private final RetryBackoffSpec readRetry;
+
+    public PostgrestRepository(WebClient supabaseWebClient,
+                               RestClient supabaseRestClient,
+                               Scheduler supabaseBlockingScheduler,
+                               @Value("${supabase.client.mode:reactive}") String clientMode,
+                               RetryBackoffSpec supabaseReadRetry) {
+        if (!clientMode.equals("reactive") && !clientMode.equals("blocking")) {
+            throw new IllegalArgumentException("supabase.client.mode must be reactive or blocking");
+        }
+        this.webClient = supabaseWebClient;
+        this.restClient = supabaseRestClient;
+        this.blockingScheduler = supabaseBlockingScheduler;
+        this.blocking = clientMode.equals("blocking");
+        this.readRetry = supabaseReadRetry;
+    }
+
+    @Override
+    public String name() {
+        return "rest";
+    }
+
+    // ---------- Complaints ----------
+
+    /**
+     * Filters, ordering and the keyset cursor are all pushed down to
+     * PostgREST so only {@code query.limit()} rows ever leave the database.
+     * Rows are decoded one by one from the JSON array rather than buffered
+     * into a single list.
+     */
+    @Override
+    public Flux<Complaint> findComplaints(ComplaintQuery query) {
+        String direction = query.ascending() ? "asc" : "desc";
+        Map<String, Object> vars = new HashMap<>();
+        return exchange(HttpMethod.GET, builder -> {
+                    builder.path("/complaints")
+                            .queryParam("select", "*")
+                            .queryParam("order", "created_at." + direction + ",id." + direction)
+                            .queryParam("limit", query.limit());
+                    eqFilter(builder, vars, "status", query.status());
+                    eqFilter(builder, vars, "thana", query.thana());
+                    eqFilter(builder, vars, "route", query.route());
+                    eqFilter(builder, vars, "category", query.category());
+                    if (query.duplicateOf() != null) {
+                        builder.queryParam("duplicate_of", "eq." + query.duplicateOf());
+                    }
+                    if (query.collapsed()) {
+                        builder.queryParam("duplicate_of", "is.null");
+                    }
+                    if (query.hasCursor()) {
+                        // (created_at, id) strictly after the cursor row in sort order
+                        String op = query.ascending() ? "gt" : "lt";
+                        vars.put("cursorCreatedAt", query.cursorCreatedAt());
+                        vars.put("cursorId", query.cursorId());
+                        builder.queryParam("or", "(created_at." + op + ".\"{cursorCreatedAt}\","
+                                + "and(created_at.eq.\"{cursorCreatedAt}\",id." + op + ".{cursorId}))");
+                    }
+                    return builder.build(vars);
+                }, null, null, Complaint.class)
+                .transform(this::retryReads);
+    }
+
+    private static void eqFilter(UriBuilder builder, Map<String, Object> vars, String column, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        // values go through URI variables so they are strictly encoded (e.g. '+' and '&')
+        vars.put(column, value.trim());
+        builder.queryParam(column, "eq.{" + column + "}");
+    }
+
+    @Override
+    public Mono<Complaint> findComplaint(long id) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/complaints")
+                        .queryParam("select", "*")
+                        .queryParam("id", "eq." + id)
+                        .build(), null, null, Complaint.class)
+                .transform(this::retryReads)
+                .singleOrEmpty();
+    }
+
+    @Override
+    public Flux<Complaint> insertComplaints(List<Complaint> complaints, boolean ignoreDuplicates) {
+        return insertAll("/complaints", complaints, Complaint.class, ignoreDuplicates);
+    }
+
+    /**
+     * One {@code id=in.(...)} PATCH.
+     */
+    @Override
+    public Flux<Complaint> updateComplaints(List<Long> ids, Complaint patch) {
+        String filter = ids.size() == 1 ? "eq." + ids.get(0)
+                : "in.(" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")";
+        return exchange(HttpMethod.PATCH, builder -> builder.path("/complaints").queryParam("id", filter).build(),
+                "return=representation", patch, Complaint.class);
+    }
+
+    // ---------- Emergency reports ----------
+
+    @Override
+    public Flux<EmergencyReport> findEmergencies() {
+        return exchange(HttpMethod.GET, builder -> builder.path("/emergency_reports").queryParam("select", "*").build(),
+                        null, null, EmergencyReport.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Flux<EmergencyReport> findEmergenciesAfter(Long afterId, int limit) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/emergency_reports")
+                        .queryParam("select", "*")
+                        .queryParam("order", "id.asc")
+                        .queryParam("limit", limit)
+                        .queryParamIfPresent("id", Optional.ofNullable(afterId).map(id -> "gt." + id))
+                        .build(), null, null, EmergencyReport.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Flux<EmergencyReport> findEmergenciesBefore(Long beforeId, int limit) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/emergency_reports")
+                        .queryParam("select", "*")
+                        .queryParam("order", "id.desc")
+                        .queryParam("limit", limit)
+                        .queryParamIfPresent("id", Optional.ofNullable(beforeId).map(id -> "lt." + id))
+                        .build(), null, null, EmergencyReport.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Flux<EmergencyReport> insertEmergencies(List<EmergencyReport> reports, boolean ignoreDuplicates) {
+        return insertAll("/emergency_reports", reports, EmergencyReport.class, ignoreDuplicates);
+    }
+
+    // ---------- Users ----------
+
+    @Override
+    public Mono<User> insertUser(User user) {
+        return exchange(HttpMethod.POST, builder -> builder.path("/users").build(),
+                        "return=representation", user, User.class)
+                .singleOrEmpty();
+    }
+
+    @Override
+    public Mono<User> findUserByEmail(String email) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/users")
+                        .queryParam("select", "*")
+                        // through a URI variable so '+' and other reserved characters are encoded
+                        .queryParam("email", "eq.{email}")
+                        .build(Map.of("email", email)), null, null, User.class)
+                .transform(this::retryReads)
+                .singleOrEmpty();
+    }
+
+    // ---------- Police chat ----------
+
+    @Override
+    public Flux<ChatChannel> findChatChannels() {
+        return exchange(HttpMethod.GET, builder -> builder.path("/chat_channels")
+                        .queryParam("select", "*")
+                        .queryParam("order", "created_at.asc")
+                        .build(), null, null, ChatChannel.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Mono<ChatChannel> insertChatChannel(ChatChannel channel) {
+        return exchange(HttpMethod.POST, builder -> builder.path("/chat_channels").build(),
+                        "return=representation", channel, ChatChannel.class)
+                .singleOrEmpty();
+    }
+
+    @Override
+    public Flux<ChatMember> findChatMembers() {
+        return exchange(HttpMethod.GET, builder -> builder.path("/chat_members")
+                        .queryParam("select", "channel_id,officer")
+                        .build(), null, null, ChatMember.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Mono<Void> insertChatMember(ChatMember member) {
+        return exchange(HttpMethod.POST, builder -> builder.path("/chat_members")
+                                .queryParam("on_conflict", "channel_id,officer")
+                                .build(),
+                        "return=minimal,resolution=ignore-duplicates", member, ChatMember.class)
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deleteChatMember(ChatMember member) {
+        return exchange(HttpMethod.DELETE, builder -> builder.path("/chat_members")
+                        .queryParam("channel_id", "eq.{channel}")
+                        .queryParam("officer", "eq.{officer}")
+                        .build(Map.of("channel", member.channelId(), "officer", member.officer())),
+                        "return=minimal", null, ChatMember.class)
+                .then();
+    }
+
+    @Override
+    public Flux<ChatMessage> findChatMessages(String channelId, long beforeSeq, int limit) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/chat_messages")
+                        .queryParam("select", "*")
+                        .queryParam("channel_id", "eq.{channel}")
+                        .queryParamIfPresent("seq", Optional.of(beforeSeq).filter(seq -> seq > 0).map(seq -> "lt." + seq))
+                        .queryParam("order", "seq.desc")
+                        .queryParam("limit", limit)
+                        .build(Map.of("channel", channelId)), null, null, ChatMessage.class)
+                .transform(this::retryReads);
+    }
+
+    @Override
+    public Flux<ChatMessage> insertChatMessages(List<ChatMessage> messages) {
+        return insertAll("/chat_messages", messages, ChatMessage.class, false);
+    }
+
+    // ---------- Reactions ----------
+
+    @Override
+    public Flux<ReactionCounts> findReactionCounts(Long afterId, int limit) {
+        return exchange(HttpMethod.GET, builder -> builder.path("/complaint_reactions")
+                        .queryParam("select", "complaint_id,support,angry,watch,views")
+                        .queryParam("order", "complaint_id.asc")
+                        .queryParam("limit", limit)
+                        .queryParamIfPresent("complaint_id", Optional.ofNullable(afterId).map(id -> "gt." + id))
+                        .build(), null, null, ReactionCounts.class)
+                .transform(this::retryReads);
+    }
+
+    /**
+     * {@code POST /rpc/add_complaint_reactions}. Not retried here;
+     * {@link ReactionCounter} resends a failed call with the same flush id.
+     */
+    @Override
+    public Mono<Void> addReactionCounts(String flushId, List<ReactionCounts> deltas) {
+        return exchange(HttpMethod.POST, builder -> builder.path("/rpc/add_complaint_reactions").build(),
+                        null, Map.of("flush_id", flushId, "deltas", deltas), Object.class)
+                .then();
+    }
+
+    // ---------- Bulk inserts ----------
+
+    /**
+     * POST rows as one JSON array. PostgREST requires every object of a bulk
+     * insert to have the same keys, but null properties are not serialized,
+     * so for more than one row the union of columns is named explicitly and
+     * {@code missing=default} fills the gaps with column defaults.
+     *
+     * @param ignoreDuplicates insert with {@code ON CONFLICT (client_key) DO
+     *                         NOTHING}; conflicting rows are left out of the
+     *                         response
+     */
+    private <T> Flux<T> insertAll(String path, List<T> rows, Class<T> type, boolean ignoreDuplicates) {
+        // ✅ PostgREST returns an ARRAY when inserting, in insertion order.
+        Optional<String> columns = rows.size() > 1 ? Optional.of(columnsOf(rows)) : Optional.empty();
+        Optional<String> onConflict = ignoreDuplicates ? Optional.of("client_key") : Optional.empty();
+        String prefer = ignoreDuplicates
+                ? "return=representation,missing=default,resolution=ignore-duplicates"
+                : "return=representation,missing=default";
+        return exchange(HttpMethod.POST, builder -> builder.path(path)
+                        .queryParamIfPresent("columns", columns)
+                        .queryParamIfPresent("on_conflict", onConflict)
+                        .build(),
+                prefer, rows, type);
+    }
+
+    private static String columnsOf(List<?> rows) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Object row : rows) {
+            COLUMNS_MAPPER.valueToTree(row).fieldNames().forEachRemaining(columns::add);
+        }
+        return String.join(",", columns);
+    }
+
+    // ---------- Transport ----------
+
+    /**
+     * Send one PostgREST request and emit the rows of the JSON array it
+     * answers with. In {@code reactive} mode this goes through the
+     * {@link WebClient} and rows are decoded as they arrive. In
+     * {@code blocking} mode the call is made with the {@link RestClient} on
+     * the blocking scheduler (virtual threads on Java 21 when enabled), and
+     * the rows are emitted once the whole response has been read.
+     *
+     * @param prefer value of the {@code Prefer} header, or {@code null}
+     * @param body   JSON request body, or {@code null}
+     */
+    private <T> Flux<T> exchange(HttpMethod method, Function<UriBuilder, URI> uri, String prefer, Object body,
+                                 Class<T> type) {
+        if (blocking) {
+            ParameterizedTypeReference<List<T>> listType =
+                    ParameterizedTypeReference.forType(ResolvableType.forClassWithGenerics(List.class, type).getType());
+            return Mono.fromCallable(() -> {
+                        RestClient.RequestBodySpec request = restClient.method(method).uri(uri);
+                        if (prefer != null) {
+                            request.header("Prefer", prefer);
+                        }
+                        if (body != null) {
+                            request.contentType(MediaType.APPLICATION_JSON).body(body);
+                        }
+                        return Optional.ofNullable(request.retrieve().body(listType)).orElse(List.of());
+                    })
+                    .subscribeOn(blockingScheduler)
+                    .flatMapIterable(rows -> rows);
+        }
+        WebClient.RequestBodySpec request = webClient.method(method).uri(uri);
+        if (prefer != null) {
+            request.header("Prefer", prefer);
+        }
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+        }
+        return request.retrieve().bodyToFlux(type);
+    }
+
+    // ---------- Retries ----------
+
+    /**
+     * Retry a read on transient failures, but only while nothing has been
+     * emitted yet: once rows have gone downstream a retry would repeat them.
+     */
+    private <T> Flux<T> retryReads(Flux<T> read) {
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return read.doOnNext(row -> emitted.set(true))
+                    .retryWhen(readRetry.modifyErrorFilter(transientError -> transientError.and(error -> !emitted.get())));
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.jatriovijog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets for the public write endpoints. Each policy
+ * ({@code auth}, {@code complaints}, {@code emergencies}, {@code uploads},
+ * {@code reactions})
+ * allows a burst of {@code capacity} requests per client and refills at
+ * {@code per-minute} requests a minute; a policy with {@code per-minute=0}
+ * is not limited. SOS reports have their own policy, so a client that used
+ * up its complaint budget can still send them.
+ *
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will
+ * be full again, updated with compare-and-set, so no request ever waits on
+ * a lock. Buckets live in a bounded cache and are dropped once idle for
+ * longer than the slowest policy needs to refill completely, at which point
+ * a fresh bucket behaves the same. Only when more than {@code max-keys}
+ * clients are active at once can a partly drained bucket be dropped early.
+ * </p>
+ *
+ * <p>
+ * Decisions are published to Micrometer as the {@code ratelimit.requests}
+ * counter, tagged by policy and outcome, the tracked buckets as the
+ * {@code ratelimit.buckets} gauge and buckets dropped early as the
+ * {@code ratelimit.evictions} counter.
+ * </p>
+ */
+@Component
+public class RateLimiter {
+
+    private record Policy(long capacity, long intervalNanos, Counter allowed, Counter rejected) {
+
+        boolean unlimited() {
+            return intervalNanos <= 0;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, Policy> policies = new LinkedHashMap<>();
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${ratelimit.enabled:true}") boolean enabled,
+                       @Value("${ratelimit.max-keys:100000}") long maxKeys,
+                       @Value("${ratelimit.auth.capacity:10}") long authCapacity,
+                       @Value("${ratelimit.auth.per-minute:10}") long authPerMinute,
+                       @Value("${ratelimit.complaints.capacity:10}") long complaintCapacity,
+                       @Value("${ratelimit.complaints.per-minute:6}") long complaintPerMinute,
+                       @Value("${ratelimit.emergencies.capacity:20}") long emergencyCapacity,
+                       @Value("${ratelimit.emergencies.per-minute:20}") long emergencyPerMinute,
+                       @Value("${ratelimit.uploads.capacity:20}") long uploadCapacity,
+                       @Value("${ratelimit.uploads.per-minute:10}") long uploadPerMinute,
+                       @Value("${ratelimit.reactions.capacity:30}") long reactionCapacity,
+                       @Value("${ratelimit.reactions.per-minute:120}") long reactionPerMinute) {
+        this.enabled = enabled;
+        addPolicy(meterRegistry, "auth", authCapacity, authPerMinute);
+        addPolicy(meterRegistry, "complaints", complaintCapacity, complaintPerMinute);
+        addPolicy(meterRegistry, "emergencies", emergencyCapacity, emergencyPerMinute);
+        addPolicy(meterRegistry, "uploads", uploadCapacity, uploadPerMinute);
+        addPolicy(meterRegistry, "reactions", reactionCapacity, reactionPerMinute);
+        long refillNanos = policies.values().stream()
+                .filter(policy -> !policy.unlimited())
+                .mapToLong(policy -> policy.capacity() * policy.intervalNanos())
+                .max()
+                .orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(refillNanos, TimeUnit.SECONDS.toNanos(1))))
+                .recordStats()
+                .build();
+        Gauge.builder("ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+        FunctionCounter.builder("ratelimit.evictions", buckets, cache -> cache.stats().evictionCount())
+                .description("Buckets dropped because more than max-keys clients were active")
+                .register(meterRegistry);
+    }
+
+    private void addPolicy(MeterRegistry meterRegistry, String name, long capacity, long perMinute) {
+        long intervalNanos = perMinute <= 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / perMinute;
+        policies.put(name, new Policy(Math.max(1, capacity), intervalNanos,
+                counter(meterRegistry, name, "allowed"), counter(meterRegistry, name, "rejected")));
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String policy, String outcome) {
+        return Counter.builder("ratelimit.requests")
+                .description("Requests checked against a rate limit policy")
+                .tag("policy", policy)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take one token from {@code client}'s bucket for {@code policy}.
+     *
+     * @param policy policy name
+     * @param client user or address the request is attributed to
+     * @return {@code 0} when the request may proceed, otherwise how many
+     *         nanoseconds until a token is available
+     */
+    public long tryAcquire(String policy, String client) {
+        Policy limits = policies.get(policy);
+        if (!enabled || limits == null || limits.unlimited()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(policy + ':' + client, key -> new AtomicLong(now));
+        long burst = limits.capacity() * limits.intervalNanos();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt - now, 0) + now + limits.intervalNanos();
+            long wait = next - now - burst;
+            if (wait > 0) {
+                limits.rejected().increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                limits.allowed().increment();
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.util.LatencyTimers;
+import com.jatriovijog.util.StateGauges;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Public reaction ({@code support}, {@code angry}, {@code watch}) and view
+ * counters of complaints.
+ *
+ * <p>
+ * A popular complaint can collect many clicks per second, so clicks never
+ * write to Supabase directly. Each counter is a {@link LongAdder}, which
+ * spreads concurrent increments over several cells instead of contending on
+ * one value, and every {@code reactions.flush-interval-ms} whatever has
+ * accumulated is taken out and added to {@code complaint_reactions} with one
+ * call for every complaint that changed. Reads are answered from memory:
+ * the stored totals, loaded on startup, plus the increments not yet stored.
+ * </p>
+ *
+ * <p>
+ * Every call carries a new flush id. A call that fails is resent unchanged,
+ * under the same id, before any newer increments are taken, and
+ * {@code add_complaint_reactions} ignores an id it has already applied, so
+ * a call whose response was lost is not counted twice. The last flush runs
+ * on shutdown; a crash loses the increments not yet stored, which is one
+ * interval of clicks, or more while Supabase cannot be reached. The totals
+ * are kept per instance, so only one backend instance should serve them.
+ * </p>
+ */
+@Service
+public class ReactionCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactionCounter.class);
+    private static final List<String> REACTIONS = List.of("support", "angry", "watch");
+    private static final int VIEWS = 3;
+    private static final int KINDS = 4;
+    private static final int LOAD_PAGE = 1000;
+
+    /**
+     * Thrown for a reaction other than {@code support}, {@code angry} and
+     * {@code watch}.
+     */
+    public static class UnknownReactionException extends RuntimeException {
+        public UnknownReactionException(String type) {
+            super("Unknown reaction: " + type + " (expected one of " + REACTIONS + ")");
+        }
+    }
+
+    /** One call of a flush, resent as is until it succeeds. */
+    private record Batch(String flushId, List<Counts> counts, List<ReactionCounts> deltas) {}
+
+    private final class Counts {
+        private final long complaintId;
+        /** clicks not yet taken by a flush */
+        private final LongAdder[] pending = new LongAdder[KINDS];
+        /** taken by a flush that has not finished yet */
+        private final AtomicLongArray inFlight = new AtomicLongArray(KINDS);
+        /** totals in Supabase */
+        private final AtomicLongArray stored = new AtomicLongArray(KINDS);
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private Counts(long complaintId) {
+            this.complaintId = complaintId;
+            for (int i = 0; i < KINDS; i++) {
+                pending[i] = new LongAdder();
+            }
+        }
+
+        private void add(int kind, long amount) {
+            pending[kind].add(amount);
+            if (!dirty.get() && dirty.compareAndSet(false, true)) {
+                changedCount.incrementAndGet();
+                changed.add(this);
+            }
+        }
+
+        private long total(int kind) {
+            return stored.get(kind) + inFlight.get(kind) + pending[kind].sum();
+        }
+
+        private ReactionCounts snapshot() {
+            return new ReactionCounts(complaintId, total(0), total(1), total(2), total(VIEWS));
+        }
+    }
+
+    private final SupabaseService supabaseService;
+    private final Duration flushInterval;
+    private final int flushMaxRows;
+
+    private final Map<Long, Counts> counters = new ConcurrentHashMap<>();
+    private final Queue<Counts> changed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger changedCount = new AtomicInteger();
+    private final Queue<Batch> unsent = new ConcurrentLinkedQueue<>();
+    private volatile String loadState = "pending";
+    private volatile Disposable flusher;
+
+    private final Counter reactions;
+    private final Counter views;
+    private final DistributionSummary rowsFlushed;
+    private final Counter flushFailures;
+    private final Timer flushLatency;
+
+    public ReactionCounter(SupabaseService supabaseService,
+                           @Value("${reactions.flush-interval-ms:5000}") long flushIntervalMs,
+                           @Value("${reactions.flush-max-rows:500}") int flushMaxRows,
+                           MeterRegistry meterRegistry) {
+        this.supabaseService = supabaseService;
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+        this.flushMaxRows = flushMaxRows;
+        Gauge.builder("reactions.pending", changedCount, AtomicInteger::get)
+                .description("Complaints with reactions or views not yet stored in Supabase")
+                .register(meterRegistry);
+        Gauge.builder("reactions.unsent", unsent, Queue::size)
+                .description("Flush calls that failed and are waiting to be resent")
+                .register(meterRegistry);
+        Gauge.builder("reactions.complaints", counters, Map::size)
+                .description("Complaints with reaction or view counts in memory")
+                .register(meterRegistry);
+        StateGauges.register(meterRegistry, "reactions.load", "State of the startup load of the stored totals",
+                () -> loadState);
+        this.reactions = clicks(meterRegistry, "reaction");
+        this.views = clicks(meterRegistry, "view");
+        this.rowsFlushed = DistributionSummary.builder("reactions.flush.rows")
+                .description("Complaints stored by one flush")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("reactions.flush.failures")
+                .description("Flush calls that failed and will be resent")
+                .register(meterRegistry);
+        this.flushLatency = LatencyTimers.timer(meterRegistry, "reactions.flush",
+                "Time to store one batch of reaction and view counts in Supabase");
+    }
+
+    private static Counter clicks(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("reactions.clicks")
+                .description("Reactions and views counted")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    // ---------- Loading ----------
+
+    /**
+     * Load the stored totals, retrying with backoff while Supabase cannot be
+     * reached, then start flushing. Clicks made in the meantime are counted
+     * and flushed once loading is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadState = "running";
+        Flux.defer(() -> supabaseService.streamReactionCounts(LOAD_PAGE)
+                        .doOnNext(row -> {
+                            AtomicLongArray stored = counts(row.complaintId()).stored;
+                            stored.set(0, row.support());
+                            stored.set(1, row.angry());
+                            stored.set(2, row.watch());
+                            stored.set(VIEWS, row.views());
+                        }))
+                .count()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .doBeforeRetry(retry -> {
+                            loadState = "retrying";
+                            log.warn("Could not load reaction counters from Supabase: {}", retry.failure().toString());
+                        }))
+                .subscribe(loaded -> {
+                    loadState = "done";
+                    log.info("Loaded reaction counters of {} complaints", loaded);
+                    // one flush at a time; ticks that arrive during a slow flush are skipped
+                    flusher = Flux.interval(flushInterval)
+                            .onBackpressureDrop()
+                            .concatMap(tick -> flush(), 1)
+                            .subscribe();
+                });
+    }
+
+    private Counts counts(long complaintId) {
+        return counters.computeIfAbsent(complaintId, Counts::new);
+    }
+
+    // ---------- Counting ----------
+
+    /**
+     * Count one reaction to a complaint.
+     *
+     * @return the complaint's counters including this reaction, or empty when
+     *         the complaint does not exist
+     */
+    public Mono<ReactionCounts> react(long complaintId, String type) {
+        int kind = REACTIONS.indexOf(type);
+        if (kind < 0) {
+            return Mono.error(new UnknownReactionException(type));
+        }
+        return add(complaintId, kind).doOnNext(counts -> reactions.increment());
+    }
+
+    /**
+     * Count one view of a complaint.
+     *
+     * @return the complaint's counters including this view, or empty when the
+     *         complaint does not exist
+     */
+    public Mono<ReactionCounts> view(long complaintId) {
+        return add(complaintId, VIEWS).doOnNext(counts -> views.increment());
+    }
+
+    private Mono<ReactionCounts> add(long complaintId, int kind) {
+        Counts counts = counters.get(complaintId);
+        if (counts != null) {
+            counts.add(kind, 1);
+            return Mono.just(counts.snapshot());
+        }
+        // first click on a complaint without counters: make sure it exists before keeping any
+        return supabaseService.getComplaint(complaintId)
+                .map(complaint -> {
+                    Counts created = counts(complaintId);
+                    created.add(kind, 1);
+                    return created.snapshot();
+                });
+    }
+
+    /**
+     * Current counters of the given complaints, in the order asked, zero for
+     * complaints nobody has reacted to yet.
+     */
+    public List<ReactionCounts> get(Collection<Long> complaintIds) {
+        List<ReactionCounts> out = new ArrayList<>(complaintIds.size());
+        for (Long id : complaintIds) {
+            Counts counts = counters.get(id);
+            out.add(counts != null ? counts.snapshot() : new ReactionCounts(id, 0, 0, 0, 0));
+        }
+        return out;
+    }
+
+    // ---------- Flushing ----------
+
+    /**
+     * Resend the calls of earlier flushes that failed, then, once they are
+     * all stored, add the increments accumulated since the last flush to
+     * Supabase, at most {@code reactions.flush-max-rows} complaints per call.
+     * The first call to fail ends the flush; it and the calls after it are
+     * resent by the next one.
+     */
+    Mono<Void> flush() {
+        return Flux.defer(() -> Flux.fromIterable(List.copyOf(unsent)))
+                .concatMap(this::store)
+                .thenMany(Flux.defer(this::take).concatMap(this::store))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /** Take the pending increments out as new calls, queued until stored. */
+    private Flux<Batch> take() {
+        List<Counts> batch = new ArrayList<>();
+        List<ReactionCounts> deltas = new ArrayList<>();
+        Counts counts;
+        while ((counts = changed.poll()) != null) {
+            changedCount.decrementAndGet();
+            // cleared before taking the counts, so a click racing with the flush marks it again
+            counts.dirty.set(false);
+            long[] taken = new long[KINDS];
+            boolean any = false;
+            for (int i = 0; i < KINDS; i++) {
+                taken[i] = counts.pending[i].sumThenReset();
+                counts.inFlight.addAndGet(i, taken[i]);
+                any |= taken[i] != 0;
+            }
+            if (!any) {
+                continue;
+            }
+            batch.add(counts);
+            deltas.add(new ReactionCounts(counts.complaintId, taken[0], taken[1], taken[2], taken[VIEWS]));
+        }
+        List<Batch> calls = new ArrayList<>();
+        for (int from = 0; from < deltas.size(); from += flushMaxRows) {
+            int to = Math.min(from + flushMaxRows, deltas.size());
+            Batch call = new Batch(UUID.randomUUID().toString(), List.copyOf(batch.subList(from, to)),
+                    List.copyOf(deltas.subList(from, to)));
+            unsent.add(call);
+            calls.add(call);
+        }
+        return Flux.fromIterable(calls);
+    }
+
+    private Mono<Void> store(Batch batch) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return supabaseService.addReactionCounts(batch.flushId(), batch.deltas())
+                    .doOnSuccess(done -> {
+                        unsent.remove(batch);
+                        for (int i = 0; i < batch.counts().size(); i++) {
+                            settle(batch.counts().get(i), batch.deltas().get(i));
+                        }
+                        rowsFlushed.record(batch.deltas().size());
+                        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    })
+                    .doOnError(error -> {
+                        flushFailures.increment();
+                        log.warn("Could not store reactions of {} complaints, resending with the next flush: {}",
+                                batch.deltas().size(), error.toString());
+                    });
+        });
+    }
+
+    /** Move a stored call's increments from in flight to stored. */
+    private void settle(Counts counts, ReactionCounts delta) {
+        long[] taken = {delta.support(), delta.angry(), delta.watch(), delta.views()};
+        for (int i = 0; i < KINDS; i++) {
+            if (taken[i] != 0) {
+                // stored first, so a concurrent read sees the total rise or stay, never dip
+                counts.stored.addAndGet(i, taken[i]);
+                counts.inFlight.addAndGet(i, -taken[i]);
+            }
+        }
+    }
+
+    /**
+     * Stop the periodic flush and store what is left. Runs when the context
+     * starts closing, while the HTTP client is still usable.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        Disposable running = flusher;
+        if (running != null) {
+            running.dispose();
+            flush().block(Duration.ofSeconds(10));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.util.StateGauges;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms a new instance up before it reports ready, so the first requests
+ * after a scale-out do not pay for connection setup and lazy bean
+ * creation.
+ *
+ * <p>
+ * Runs after the web server has started and before
+ * {@link ApplicationReadyEvent}, which is when the readiness probe turns
+ * to {@code UP}. It opens {@code startup.warmup.connections} database
+ * connections with concurrent one-row reads, then requests each of
+ * {@code startup.warmup.paths} from the instance itself, which creates the
+ * controllers and services behind them under lazy initialization. Failures
+ * are logged and never stop the startup.
+ * </p>
+ *
+ * <p>
+ * Also records how long startup took and how long each warm-up request
+ * took, as the {@code startup.jvm.ready.time}, {@code startup.warmup.time}
+ * and {@code startup.warmup.requests} meters, next to Spring Boot's own
+ * {@code application.ready.time}. The {@code startup.build} gauge tells
+ * how the instance was started. These are the figures to compare between
+ * builds.
+ * </p>
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final SupabaseRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final boolean enabled;
+    private final int connections;
+    private final Duration timeout;
+    private final List<String> paths;
+
+    private volatile String state = "pending";
+    private volatile long warmupMillis;
+    private volatile long jvmReadyMillis;
+
+    public StartupWarmup(SupabaseRepository repository,
+                         MeterRegistry meterRegistry,
+                         Environment environment,
+                         @Value("${startup.warmup.enabled:false}") boolean enabled,
+                         @Value("${startup.warmup.connections:4}") int connections,
+                         @Value("${startup.warmup.timeout-ms:10000}") long timeoutMs,
+                         @Value("${startup.warmup.paths:}") List<String> paths) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.paths = paths.stream().map(String::trim).filter(path -> !path.isEmpty()).toList();
+        StateGauges.register(meterRegistry, "startup.warmup", "State of the warm-up before the instance reports ready",
+                () -> state);
+        TimeGauge.builder("startup.warmup.time", this, TimeUnit.MILLISECONDS, warmup -> warmup.warmupMillis)
+                .description("Time the warm-up took")
+                .register(meterRegistry);
+        TimeGauge.builder("startup.jvm.ready.time", this, TimeUnit.MILLISECONDS, warmup -> warmup.jvmReadyMillis)
+                .description("Time from launching the JVM to the instance reporting ready")
+                .register(meterRegistry);
+        Gauge.builder("startup.build", () -> 1)
+                .description("How the instance was started")
+                .tag("aot", String.valueOf(AotDetector.useGeneratedArtifacts()))
+                .tag("cds", String.valueOf(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                        .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"))))
+                .tag("lazy", environment.getProperty("spring.main.lazy-initialization", "false"))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = "disabled";
+            return;
+        }
+        state = "running";
+        long start = System.nanoTime();
+        warmDatabase();
+        warmEndpoints();
+        warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        state = "done";
+        log.info("Warm-up finished in {} ms", warmupMillis);
+    }
+
+    /**
+     * Concurrent reads so the pool opens that many connections. They go to
+     * the repository directly, as the read cache would answer all but the
+     * first one.
+     */
+    private void warmDatabase() {
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            Flux.range(0, connections)
+                    .flatMap(i -> repository.findComplaints(ComplaintQuery.latest(1))
+                            .then()
+                            .onErrorResume(error -> {
+                                failed.incrementAndGet();
+                                log.warn("Warm-up read failed: {}", error.toString());
+                                return Mono.empty();
+                            }), connections)
+                    .then()
+                    .block(timeout);
+        } catch (RuntimeException e) {
+            failed.set(connections);
+            log.warn("Warm-up reads did not finish: {}", e.toString());
+        }
+        record("database", start, failed.get() == 0 ? "ok" : "failed");
+    }
+
+    /**
+     * One request per path, in order, timed from the caller's side. The
+     * first of them also initializes the dispatcher servlet.
+     */
+    private void warmEndpoints() {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || paths.isEmpty()) {
+            return;
+        }
+        RestClient client = RestClient.create("http://localhost:" + port);
+        for (String path : paths) {
+            long start = System.nanoTime();
+            String outcome;
+            try {
+                outcome = String.valueOf(client.get().uri(path).retrieve().toBodilessEntity().getStatusCode().value());
+            } catch (RuntimeException e) {
+                outcome = e.getClass().getSimpleName();
+                log.warn("Warm-up request {} failed: {}", path, e.toString());
+            }
+            record(path, start, outcome);
+        }
+    }
+
+    private void record(String target, long start, String outcome) {
+        long nanos = System.nanoTime() - start;
+        int query = target.indexOf('?');
+        Timer.builder("startup.warmup.requests")
+                .description("Warm-up requests made before the instance reports ready")
+                .tag("target", query < 0 ? target : target.substring(0, query))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        jvmReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
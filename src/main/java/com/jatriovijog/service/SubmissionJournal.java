@@ -0,0 +1,146 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.EmergencyReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Durable intake for complaints and SOS reports. With
+ * {@code journal.enabled} a submission is acknowledged as soon as it is in a
+ * local {@link WriteJournal}, one per table, and stored in Supabase in the
+ * background; a Supabase outage then delays rows instead of losing them.
+ * SOS reports have their own journal so they never queue behind complaints.
+ *
+ * <p>
+ * Every journaled row gets a {@code client_key} (a UUID, unless the client
+ * sent one) that makes replays idempotent, and a {@code created_at} of the
+ * moment it was accepted rather than the moment it reached the database.
+ * </p>
+ */
+@Component
+public class SubmissionJournal {
+
+    private final boolean enabled;
+    private final WriteJournal<Complaint> complaints;
+    private final WriteJournal<EmergencyReport> emergencies;
+
+    public SubmissionJournal(SupabaseService supabaseService,
+                             MeterRegistry meterRegistry,
+                             @Value("${journal.enabled:false}") boolean enabled,
+                             @Value("${journal.dir:./data/journal}") String dir,
+                             @Value("${journal.max-pending:100000}") int maxPending,
+                             @Value("${journal.batch-size:50}") int batchSize,
+                             @Value("${journal.retry.backoff-ms:200}") long backoffMs,
+                             @Value("${journal.retry.max-backoff-ms:30000}") long maxBackoffMs) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.complaints = null;
+            this.emergencies = null;
+            return;
+        }
+        Duration backoff = Duration.ofMillis(backoffMs);
+        Duration maxBackoff = Duration.ofMillis(maxBackoffMs);
+        try {
+            Path path = Files.createDirectories(Path.of(dir));
+            this.complaints = new WriteJournal<>(path, "complaints", Complaint.class,
+                    supabaseService::insertComplaintsOnce, maxPending, batchSize, backoff, maxBackoff,
+                    meterRegistry);
+            this.emergencies = new WriteJournal<>(path, "emergencies", EmergencyReport.class,
+                    supabaseService::insertEmergenciesOnce, maxPending, batchSize, backoff, maxBackoff,
+                    meterRegistry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the submission journal in " + dir, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journal a complaint; emits it with its key once it is on disk.
+     */
+    public Mono<Complaint> submitComplaint(Complaint complaint) {
+        complaint.setClientKey(clientKey(complaint.getClientKey()));
+        if (complaint.getCreatedAt() == null) {
+            complaint.setCreatedAt(Instant.now().toString());
+        }
+        return complaints.append(complaint).thenReturn(complaint);
+    }
+
+    /**
+     * Journal an SOS report; emits it with its key once it is on disk.
+     */
+    public Mono<EmergencyReport> submitEmergency(EmergencyReport report) {
+        report.setClientKey(clientKey(report.getClientKey()));
+        if (report.getCreatedAt() == null) {
+            report.setCreatedAt(Instant.now().toString());
+        }
+        return emergencies.append(report).thenReturn(report);
+    }
+
+    private static String clientKey(String key) {
+        if (key == null || key.isBlank()) {
+            return UUID.randomUUID().toString();
+        }
+        try {
+            return UUID.fromString(key.trim()).toString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("clientKey must be a UUID");
+        }
+    }
+
+    /**
+     * Called with every journaled complaint once it is stored. Does nothing
+     * when the journal is disabled.
+     */
+    public void onComplaintStored(Consumer<Complaint> listener) {
+        if (enabled) {
+            complaints.onStored(listener);
+        }
+    }
+
+    /**
+     * Called with every journaled SOS report once it is stored. Does nothing
+     * when the journal is disabled.
+     */
+    public void onEmergencyStored(Consumer<EmergencyReport> listener) {
+        if (enabled) {
+            emergencies.onStored(listener);
+        }
+    }
+
+    /**
+     * Replay what an earlier run left in the journals, then keep draining.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            complaints.start();
+            emergencies.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            complaints.close();
+            emergencies.close();
+        }
+    }
+}
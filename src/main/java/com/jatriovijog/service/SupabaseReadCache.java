@@ -0,0 +1,166 @@
+package com.jatriovijog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded read-through cache for the list reads of {@link SupabaseService}.
+ * Complaint pages are keyed by their {@link ComplaintQuery}, so every
+ * distinct filter/sort/cursor combination is its own entry. Entries expire
+ * after a short TTL and the least recently used ones are evicted once the
+ * cache is full.
+ *
+ * <p>
+ * Writes do not flush the cache. A new complaint only invalidates the pages
+ * whose filters it matches, a status change patches the row in place where
+ * it stays visible and a new emergency report is appended to the cached
+ * list.
+ * </p>
+ *
+ * <p>
+ * Both caches publish the {@code cache.*} meters (tagged
+ * {@code cache=supabase.complaints} and {@code supabase.emergencies});
+ * invalidated and patched entries are counted as
+ * {@code supabase.cache.invalidations} and {@code supabase.cache.patches}.
+ * </p>
+ */
+@Component
+public class SupabaseReadCache {
+
+    private static final String ALL_EMERGENCIES = "all";
+
+    private final Cache<ComplaintQuery, List<Complaint>> complaints;
+    private final Cache<String, List<EmergencyReport>> emergencies;
+    private final Counter invalidations;
+    private final Counter patches;
+
+    public SupabaseReadCache(MeterRegistry meterRegistry,
+                             @Value("${supabase.cache.max-entries:1000}") long maxEntries,
+                             @Value("${supabase.cache.ttl-seconds:15}") long ttlSeconds) {
+        this.complaints = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.emergencies = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, complaints, "supabase.complaints");
+        CaffeineCacheMetrics.monitor(meterRegistry, emergencies, "supabase.emergencies");
+        this.invalidations = Counter.builder("supabase.cache.invalidations")
+                .description("Cached pages dropped because a write may have changed them")
+                .register(meterRegistry);
+        this.patches = Counter.builder("supabase.cache.patches")
+                .description("Cached pages updated in place after a write")
+                .register(meterRegistry);
+    }
+
+    // ---------- Reads ----------
+
+    public List<Complaint> getComplaints(ComplaintQuery query) {
+        return complaints.getIfPresent(query);
+    }
+
+    public void putComplaints(ComplaintQuery query, List<Complaint> rows) {
+        complaints.put(query, List.copyOf(rows));
+    }
+
+    public List<EmergencyReport> getEmergencies() {
+        return emergencies.getIfPresent(ALL_EMERGENCIES);
+    }
+
+    public void putEmergencies(List<EmergencyReport> rows) {
+        emergencies.put(ALL_EMERGENCIES, List.copyOf(rows));
+    }
+
+    // ---------- Write notifications ----------
+
+    /**
+     * A complaint was inserted. Only pages whose filters accept the new row
+     * can change, every other page is kept.
+     */
+    public void complaintCreated(Complaint row) {
+        for (ComplaintQuery query : complaints.asMap().keySet()) {
+            if (matches(query, row)) {
+                complaints.invalidate(query);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * The status of a complaint changed. Pages that contain the row and
+     * still accept it are patched in place. Pages that contain it but filter
+     * on the old status, and pages filtering on the new status that may now
+     * need to include it, are invalidated.
+     */
+    public void complaintUpdated(Complaint row) {
+        Long id = row.getId();
+        for (ComplaintQuery query : complaints.asMap().keySet()) {
+            boolean accepts = matches(query, row);
+            complaints.asMap().computeIfPresent(query, (q, rows) -> {
+                int index = indexOf(rows, id);
+                if (index >= 0 && accepts) {
+                    // PostgREST returns the full updated row, so it replaces the cached one
+                    List<Complaint> patched = new ArrayList<>(rows);
+                    patched.set(index, row);
+                    patches.increment();
+                    return List.copyOf(patched);
+                }
+                if (index >= 0 || (accepts && q.status() != null)) {
+                    invalidations.increment();
+                    return null;
+                }
+                return rows;
+            });
+        }
+    }
+
+    /**
+     * An emergency report was inserted; append it to the cached list.
+     */
+    public void emergencyCreated(EmergencyReport row) {
+        emergencies.asMap().computeIfPresent(ALL_EMERGENCIES, (k, rows) -> {
+            List<EmergencyReport> patched = new ArrayList<>(rows.size() + 1);
+            patched.addAll(rows);
+            patched.add(row);
+            patches.increment();
+            return List.copyOf(patched);
+        });
+    }
+
+    private static boolean matches(ComplaintQuery query, Complaint row) {
+        return accepts(query.status(), row.getStatus())
+                && accepts(query.thana(), row.getThana())
+                && accepts(query.route(), row.getRoute())
+                && accepts(query.category(), row.getCategory());
+    }
+
+    private static boolean accepts(String filter, String value) {
+        return filter == null || filter.isBlank() || Objects.equals(filter.trim(), value);
+    }
+
+    private static int indexOf(List<Complaint> rows, Long id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (Objects.equals(id, rows.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
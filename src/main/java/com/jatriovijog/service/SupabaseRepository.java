@@ -0,0 +1,118 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatMember;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The database operations behind {@link SupabaseService}, one round trip
+ * each. {@link PostgrestRepository} sends them to Supabase's REST API and
+ * {@link JdbcRepository} straight to Postgres; {@code supabase.repository}
+ * picks one. Caching, batching, paging and metrics stay in
+ * {@link SupabaseService}, so both behave the same towards the rest of the
+ * application.
+ *
+ * <p>
+ * Inserts take the rows' non-null properties as columns and leave the
+ * others to the column defaults. With {@code ignoreDuplicates} rows whose
+ * {@code client_key} is already stored are skipped and left out of the
+ * result. Inserted rows are emitted as stored, in request order.
+ * </p>
+ */
+public interface SupabaseRepository {
+
+    /**
+     * {@code rest} or {@code jdbc}, the {@code repository} tag of the
+     * {@code supabase.requests} metric.
+     */
+    String name();
+
+    // ---------- Complaints ----------
+
+    /**
+     * One page of complaints with the filters, order and cursor of
+     * {@code query}.
+     */
+    Flux<Complaint> findComplaints(ComplaintQuery query);
+
+    Mono<Complaint> findComplaint(long id);
+
+    Flux<Complaint> insertComplaints(List<Complaint> complaints, boolean ignoreDuplicates);
+
+    /**
+     * Set the non-null properties of {@code patch} on the complaints with the
+     * given ids, emitting the rows that matched.
+     */
+    Flux<Complaint> updateComplaints(List<Long> ids, Complaint patch);
+
+    // ---------- Emergency reports ----------
+
+    Flux<EmergencyReport> findEmergencies();
+
+    /**
+     * Up to {@code limit} reports with an id above {@code afterId}
+     * ({@code null} for the first page), in id order.
+     */
+    Flux<EmergencyReport> findEmergenciesAfter(Long afterId, int limit);
+
+    /**
+     * Up to {@code limit} reports with an id below {@code beforeId}
+     * ({@code null} for the first page), newest first.
+     */
+    Flux<EmergencyReport> findEmergenciesBefore(Long beforeId, int limit);
+
+    Flux<EmergencyReport> insertEmergencies(List<EmergencyReport> reports, boolean ignoreDuplicates);
+
+    // ---------- Users ----------
+
+    Mono<User> insertUser(User user);
+
+    Mono<User> findUserByEmail(String email);
+
+    // ---------- Police chat ----------
+
+    Flux<ChatChannel> findChatChannels();
+
+    Mono<ChatChannel> insertChatChannel(ChatChannel channel);
+
+    Flux<ChatMember> findChatMembers();
+
+    /**
+     * Store a membership; one that exists already is left as it is.
+     */
+    Mono<Void> insertChatMember(ChatMember member);
+
+    Mono<Void> deleteChatMember(ChatMember member);
+
+    /**
+     * Up to {@code limit} messages of a channel, newest first, with a
+     * {@code seq} below {@code beforeSeq} ({@code 0} for the newest).
+     */
+    Flux<ChatMessage> findChatMessages(String channelId, long beforeSeq, int limit);
+
+    Flux<ChatMessage> insertChatMessages(List<ChatMessage> messages);
+
+    // ---------- Reactions ----------
+
+    /**
+     * Up to {@code limit} reaction counters with a complaint id above
+     * {@code afterId} ({@code null} for the first page), in id order.
+     */
+    Flux<ReactionCounts> findReactionCounts(Long afterId, int limit);
+
+    /**
+     * Add increments to the counters of several complaints in one call of the
+     * {@code add_complaint_reactions} function. A call with a
+     * {@code flushId} that was already applied changes nothing.
+     */
+    Mono<Void> addReactionCounts(String flushId, List<ReactionCounts> deltas);
+}
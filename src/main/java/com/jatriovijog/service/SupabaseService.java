@@ -1,121 +1,420 @@
 package com.jatriovijog.service;
 
+import com.jatriovijog.model.ChatChannel;
+import com.jatriovijog.model.ChatMember;
+import com.jatriovijog.model.ChatMessage;
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintQuery;
+import com.jatriovijog.model.EmergencyReport;
+import com.jatriovijog.model.ReactionCounts;
+import com.jatriovijog.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Service
 public class SupabaseService {
 
-    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST_OF_MAP =
-            new ParameterizedTypeReference<>() {};
+    /** Ids per update of {@link #updateComplaintStatuses}. */
+    public static final int STATUS_BATCH_CHUNK = 100;
 
-    private final WebClient webClient;
+    private final SupabaseRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final SupabaseReadCache readCache;
+    private final UserLookupCache userCache;
+    private final InsertBatcher<Complaint> complaintBatcher;
+    private final InsertBatcher<EmergencyReport> emergencyBatcher;
+    private final boolean emergencyImmediate;
 
-    public SupabaseService(@Value("${supabase.url}") String baseUrl,
-                           @Value("${supabase.apikey}") String apiKey) {
+    public SupabaseService(SupabaseRepository repository,
+                           MeterRegistry meterRegistry,
+                           @Value("${supabase.batch.enabled:false}") boolean batchEnabled,
+                           @Value("${supabase.batch.max-size:50}") int batchMaxSize,
+                           @Value("${supabase.batch.max-wait-ms:20}") long batchMaxWaitMs,
+                           @Value("${supabase.batch.emergency-immediate:true}") boolean emergencyImmediate,
+                           SupabaseReadCache readCache,
+                           UserLookupCache userCache) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.readCache = readCache;
+        this.userCache = userCache;
+        this.emergencyImmediate = emergencyImmediate;
 
-        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        String restUrl = trimmed + "/rest/v1";
-
-        this.webClient = WebClient.builder()
-                .baseUrl(restUrl)
-                // ✅ Supabase requires: apikey + Authorization
-                .defaultHeader("apikey", apiKey)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .defaultHeader(HttpHeaders.ACCEPT, "application/json")
-                .build();
+        Duration batchMaxWait = Duration.ofMillis(batchMaxWaitMs);
+        this.complaintBatcher = batchEnabled
+                ? new InsertBatcher<>(this::insertComplaints, batchMaxSize, batchMaxWait, meterRegistry, "complaints")
+                : null;
+        this.emergencyBatcher = batchEnabled
+                ? new InsertBatcher<>(this::insertEmergencies, batchMaxSize, batchMaxWait, meterRegistry,
+                "emergency_reports")
+                : null;
     }
 
     // ---------- Complaints ----------
 
-    public Mono<List<Map<String, Object>>> getComplaints() {
-        return webClient.get()
-                .uri("/complaints?select=*")
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP);
+    /**
+     * Read one page of complaints. Filters, ordering and the keyset cursor are
+     * all pushed down to PostgREST so only {@code query.limit()} rows ever
+     * leave the database. Rows are decoded one by one from the JSON array
+     * rather than buffered into a single list.
+     *
+     * <p>
+     * Pages are served from {@link SupabaseReadCache} when present; a miss
+     * fetches the page and stores it once it has been read completely.
+     * </p>
+     */
+    public Flux<Complaint> getComplaints(ComplaintQuery query) {
+        List<Complaint> cached = readCache.getComplaints(query);
+        if (cached != null) {
+            return Flux.fromIterable(cached);
+        }
+        return Flux.defer(() -> {
+            List<Complaint> page = new ArrayList<>();
+            return fetchComplaints(query)
+                    .doOnNext(page::add)
+                    .doOnComplete(() -> readCache.putComplaints(query, page));
+        });
+    }
+
+    private Flux<Complaint> fetchComplaints(ComplaintQuery query) {
+        return repository.findComplaints(query)
+                .transform(call -> instrument("getComplaints", call));
+    }
+
+    /**
+     * Stream every complaint matching the filters of {@code query}, walking
+     * the keyset cursor one page of {@code query.limit()} rows at a time.
+     * Bypasses the read cache; only one page is in flight at any time and
+     * the next one is requested only after the previous has been consumed.
+     */
+    public Flux<Complaint> streamComplaints(ComplaintQuery query) {
+        return keysetScan(last -> fetchComplaints(last == null
+                ? query
+                : query.next(last.getCreatedAt(), last.getId())), query.limit());
+    }
+
+    /**
+     * The complaint with the given id, or empty when there is none.
+     */
+    public Mono<Complaint> getComplaint(long id) {
+        return repository.findComplaint(id)
+                .transform(call -> instrument("getComplaint", call));
     }
 
-    public Mono<Map<String, Object>> createComplaint(Map<String, Object> payload) {
-        // ✅ PostgREST returns an ARRAY when inserting. We take first item.
-        return webClient.post()
-                .uri("/complaints")
-                .header("Prefer", "return=representation")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP)
-                .map(list -> list.isEmpty() ? Map.of() : list.get(0));
+    /**
+     * Insert a complaint. With {@code supabase.batch.enabled} the row is
+     * grouped with other inserts arriving within the batch window and sent as
+     * one bulk POST; the returned {@code Mono} still emits this row only.
+     */
+    public Mono<Complaint> createComplaint(Complaint complaint) {
+        Mono<Complaint> created = complaintBatcher != null
+                ? complaintBatcher.submit(complaint)
+                : insertComplaints(List.of(complaint)).singleOrEmpty();
+        return created.doOnNext(readCache::complaintCreated);
+    }
+
+    private Flux<Complaint> insertComplaints(List<Complaint> complaints) {
+        return repository.insertComplaints(complaints, false)
+                .transform(call -> instrument("createComplaint", call));
+    }
+
+    /**
+     * Insert complaints that carry a {@code client_key}, skipping any whose
+     * key is already stored. Emits only the rows actually created.
+     */
+    public Flux<Complaint> insertComplaintsOnce(List<Complaint> complaints) {
+        return repository.insertComplaints(complaints, true)
+                .transform(call -> instrument("replayComplaints", call))
+                .doOnNext(readCache::complaintCreated);
     }
 
     // ---------- Emergency Reports ----------
 
-    public Mono<List<Map<String, Object>>> getEmergencies() {
-        return webClient.get()
-                .uri("/emergency_reports?select=*")
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP);
+    public Mono<List<EmergencyReport>> getEmergencies() {
+        List<EmergencyReport> cached = readCache.getEmergencies();
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return repository.findEmergencies()
+                .transform(call -> instrument("getEmergencies", call))
+                .collectList()
+                .doOnNext(readCache::putEmergencies);
+    }
+
+    /**
+     * Stream every emergency report in {@code id} order, one page of
+     * {@code pageSize} rows per request.
+     */
+    public Flux<EmergencyReport> streamEmergencies(int pageSize) {
+        return keysetScan(last -> repository.findEmergenciesAfter(last == null ? null : last.getId(), pageSize)
+                .transform(call -> instrument("streamEmergencies", call)), pageSize);
+    }
+
+    /**
+     * Stream emergency reports newest first, in descending {@code id}
+     * order, so a caller after the recent ones can stop early.
+     */
+    public Flux<EmergencyReport> streamLatestEmergencies(int pageSize) {
+        return keysetScan(last -> repository.findEmergenciesBefore(last == null ? null : last.getId(), pageSize)
+                .transform(call -> instrument("streamLatestEmergencies", call)), pageSize);
+    }
+
+    /**
+     * Insert an emergency report. When batching is enabled SOS reports still
+     * default to {@code supabase.batch.emergency-immediate}: they are sent at
+     * once, taking along any other reports already queued, and never wait for
+     * the batch window.
+     */
+    public Mono<EmergencyReport> createEmergency(EmergencyReport report) {
+        Mono<EmergencyReport> created;
+        if (emergencyBatcher == null) {
+            created = insertEmergencies(List.of(report)).singleOrEmpty();
+        } else if (emergencyImmediate) {
+            created = emergencyBatcher.submitNow(report);
+        } else {
+            created = emergencyBatcher.submit(report);
+        }
+        return created.doOnNext(readCache::emergencyCreated);
+    }
+
+    private Flux<EmergencyReport> insertEmergencies(List<EmergencyReport> reports) {
+        return repository.insertEmergencies(reports, false)
+                .transform(call -> instrument("createEmergency", call));
+    }
+
+    /**
+     * Insert emergency reports that carry a {@code client_key}, skipping any
+     * whose key is already stored. Emits only the rows actually created.
+     */
+    public Flux<EmergencyReport> insertEmergenciesOnce(List<EmergencyReport> reports) {
+        return repository.insertEmergencies(reports, true)
+                .transform(call -> instrument("replayEmergencies", call))
+                .doOnNext(readCache::emergencyCreated);
+    }
+
+    // ---------- Police chat ----------
+
+    public Flux<ChatChannel> getChatChannels() {
+        return repository.findChatChannels()
+                .transform(call -> instrument("getChatChannels", call));
+    }
+
+    public Flux<ChatMember> getChatMembers() {
+        return repository.findChatMembers()
+                .transform(call -> instrument("getChatMembers", call));
+    }
+
+    /**
+     * Up to {@code limit} messages of a channel, newest first, with a
+     * {@code seq} below {@code beforeSeq} ({@code 0} for the newest).
+     */
+    public Flux<ChatMessage> getChatMessages(String channelId, long beforeSeq, int limit) {
+        return repository.findChatMessages(channelId, beforeSeq, limit)
+                .transform(call -> instrument("getChatMessages", call));
     }
 
-    public Mono<Map<String, Object>> createEmergency(Map<String, Object> payload) {
-        return webClient.post()
-                .uri("/emergency_reports")
-                .header("Prefer", "return=representation")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP)
-                .map(list -> list.isEmpty() ? Map.of() : list.get(0));
+    public Mono<ChatChannel> createChatChannel(ChatChannel channel) {
+        return repository.insertChatChannel(channel)
+                .transform(call -> instrument("createChatChannel", call));
+    }
+
+    /**
+     * Store a membership; storing one that exists already is not an error.
+     */
+    public Mono<Void> addChatMember(ChatMember member) {
+        return repository.insertChatMember(member)
+                .transform(call -> instrument("addChatMember", call));
+    }
+
+    public Mono<Void> removeChatMember(ChatMember member) {
+        return repository.deleteChatMember(member)
+                .transform(call -> instrument("removeChatMember", call));
+    }
+
+    /**
+     * Insert chat messages as one bulk insert. Used by the chat service's
+     * write-behind batcher.
+     */
+    public Flux<ChatMessage> insertChatMessages(List<ChatMessage> messages) {
+        return repository.insertChatMessages(messages)
+                .transform(call -> instrument("createChatMessages", call));
+    }
+
+    // ---------- Reactions ----------
+
+    /**
+     * Stream the reaction counters of every complaint in {@code complaint_id}
+     * order, one page of {@code pageSize} rows per request.
+     */
+    public Flux<ReactionCounts> streamReactionCounts(int pageSize) {
+        return keysetScan(last -> repository.findReactionCounts(last == null ? null : last.complaintId(), pageSize)
+                .transform(call -> instrument("streamReactionCounts", call)), pageSize);
+    }
+
+    /**
+     * Add increments to the reaction counters of several complaints in one
+     * call of the {@code add_complaint_reactions} function. Not retried
+     * here; resending the same {@code flushId} is how a failed call is
+     * retried without counting twice.
+     */
+    public Mono<Void> addReactionCounts(String flushId, List<ReactionCounts> deltas) {
+        return repository.addReactionCounts(flushId, deltas)
+                .transform(call -> instrument("addReactionCounts", call));
+    }
+
+    // ---------- Metrics ----------
+
+    /**
+     * Time one repository call (including its retries) as
+     * {@code supabase.requests}, tagged by repository ({@code rest} or
+     * {@code jdbc}), operation, outcome and HTTP status ({@code SQL_ERROR}
+     * for a failed SQL statement), and record the number of rows it returned
+     * as {@code supabase.response.rows}. The same operation over both
+     * repositories can be compared under the same load with these timers.
+     */
+    private <T> Flux<T> instrument(String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicLong rows = new AtomicLong();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            return call.doOnNext(row -> rows.incrementAndGet())
+                    .doOnError(failure::set)
+                    .doFinally(signal -> {
+                        Throwable error = failure.get();
+                        String outcome = signal == SignalType.CANCEL ? "CANCELLED" : error == null ? "SUCCESS" : "ERROR";
+                        String status = error == null ? "2xx"
+                                : error instanceof WebClientResponseException response
+                                ? String.valueOf(response.getStatusCode().value())
+                                : error instanceof RestClientResponseException response
+                                ? String.valueOf(response.getStatusCode().value())
+                                : error instanceof DataAccessException ? "SQL_ERROR"
+                                : "IO_ERROR";
+                        sample.stop(Timer.builder("supabase.requests")
+                                .description("Database round trips made by SupabaseService")
+                                .tags("repository", repository.name(), "operation", operation,
+                                        "outcome", outcome, "status", status)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry));
+                        DistributionSummary.builder("supabase.response.rows")
+                                .description("Rows returned per database call")
+                                .tags("repository", repository.name(), "operation", operation)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry)
+                                .record(rows.get());
+                    });
+        });
+    }
+
+    private <T> Mono<T> instrument(String operation, Mono<T> call) {
+        return instrument(operation, call.flux()).singleOrEmpty();
+    }
+
+    // ---------- Paging ----------
+
+    /**
+     * Concatenate keyset pages until one comes back short. {@code fetchAfter}
+     * is called with the last row of the previous page, or {@code null} for
+     * the first one. Pages are fetched strictly one after another so the
+     * downstream demand drives how fast Supabase is read.
+     */
+    private static <T> Flux<T> keysetScan(Function<T, Flux<T>> fetchAfter, int pageSize) {
+        return Flux.defer(() -> {
+            AtomicReference<T> last = new AtomicReference<>();
+            AtomicInteger count = new AtomicInteger();
+            return Flux.defer(() -> {
+                        count.set(0);
+                        return fetchAfter.apply(last.get());
+                    })
+                    .doOnNext(row -> {
+                        last.set(row);
+                        count.incrementAndGet();
+                    })
+                    .repeat(() -> count.get() == pageSize);
+        });
     }
 
     // ---------- Users ----------
 
-    public Mono<Map<String, Object>> createUser(Map<String, Object> payload) {
-        return webClient.post()
-                .uri("/users")
-                .header("Prefer", "return=representation")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP)
-                .map(list -> list.isEmpty() ? Map.of() : list.get(0));
+    /**
+     * Insert a user. Any cached lookup of the email, such as the "no user"
+     * result of the signup check, is dropped once the row exists.
+     */
+    public Mono<User> createUser(User user) {
+        return repository.insertUser(user)
+                .transform(call -> instrument("createUser", call))
+                .doOnNext(created -> {
+                    userCache.invalidate(user.getEmail());
+                    userCache.invalidate(created.getEmail());
+                });
     }
 
-    public Mono<List<Map<String, Object>>> getUserByEmail(String email) {
-        // If email contains special chars, safest is encoding, but for basic email it’s fine.
-        String filter = "?select=*&email=eq." + email;
-        return webClient.get()
-                .uri("/users" + filter)
-                .retrieve()
-                .bodyToMono(LIST_OF_MAP);
+    /**
+     * Look up the user with the given email. Emails are unique, so this
+     * emits at most one user and completes empty when there is none.
+     * Answered from {@link UserLookupCache} when possible; concurrent
+     * lookups of one email share a single request.
+     */
+    public Mono<User> getUserByEmail(String email) {
+        return userCache.get(email, this::fetchUserByEmail);
     }
 
+    private Mono<User> fetchUserByEmail(String email) {
+        return repository.findUserByEmail(email)
+                .transform(call -> instrument("getUserByEmail", call));
+    }
 
-    public Mono<Map<String, Object>> updateComplaintStatus(long id, String status, String note) {
-    Map<String, Object> payload = new HashMap<>();
-    payload.put("status", status);
+
+    public Mono<Complaint> updateComplaintStatus(long id, String status, String note) {
+    return repository.updateComplaints(List.of(id), statusPatch(status, note))
+            .transform(call -> instrument("updateComplaintStatus", call))
+            .singleOrEmpty()
+            .doOnNext(readCache::complaintUpdated);
+}
+
+/**
+ * Set the same status (and note) on many complaints, with one update
+ * per {@value #STATUS_BATCH_CHUNK} ids. Emits the
+ * updated rows; ids that match no complaint are simply absent.
+ */
+public Flux<Complaint> updateComplaintStatuses(List<Long> ids, String status, String note) {
+    Complaint payload = statusPatch(status, note);
+    List<List<Long>> chunks = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i += STATUS_BATCH_CHUNK) {
+        chunks.add(ids.subList(i, Math.min(ids.size(), i + STATUS_BATCH_CHUNK)));
+    }
+    return Flux.fromIterable(chunks)
+            .concatMap(chunk -> repository.updateComplaints(chunk, payload)
+                    .transform(call -> instrument("updateComplaintStatuses", call)))
+            .doOnNext(readCache::complaintUpdated);
+}
+
+private static Complaint statusPatch(String status, String note) {
+    Complaint payload = new Complaint();
+    payload.setStatus(status);
 
     // Optional columns (only if you add SQL below)
     if (note != null && !note.trim().isEmpty()) {
-        payload.put("verification_note", note.trim());
+        payload.setVerificationNote(note.trim());
     }
-
-    return webClient.patch()
-            .uri("/complaints?id=eq." + id)
-            .header("Prefer", "return=representation")
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(payload)
-            .retrieve()
-            .bodyToMono(LIST_OF_MAP)
-            .map(list -> list == null || list.isEmpty() ? Map.of() : list.get(0));
+    return payload;
 }
 
 }
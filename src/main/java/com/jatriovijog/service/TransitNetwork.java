@@ -0,0 +1,250 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.util.Geo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Dhaka bus and metro network used for fares: MRT Line 6 stations in
+ * line order, bus hubs with their catchment radius, and the bus routes as
+ * lists of hubs. The same data the fare page used to carry in the browser.
+ *
+ * <p>
+ * Everything derived from it is computed once: for every hub a bit mask of
+ * the routes stopping there, and a coarse grid over hubs and stations so
+ * nearest lookups only look at the few points around the query.
+ * </p>
+ */
+@Component
+public class TransitNetwork {
+
+    public record Station(String name, double lat, double lng) {}
+
+    public record Hub(String id, double lat, double lng, double radiusKm) {}
+
+    public record BusRoute(String name, List<String> stops) {}
+
+    /**
+     * A bus that needs one change: ride {@code first} to {@code transferHub},
+     * then {@code second} to the destination.
+     */
+    public record Transfer(String first, String transferHub, String second) {}
+
+    private static final List<Station> METRO_STATIONS = List.of(
+            new Station("Uttara North", 23.8734, 90.3961),
+            new Station("Uttara Center", 23.8674, 90.3942),
+            new Station("Uttara South", 23.8584, 90.3912),
+            new Station("Pallabi", 23.8248, 90.3653),
+            new Station("Mirpur 11", 23.8169, 90.3664),
+            new Station("Mirpur 10", 23.8071, 90.3686),
+            new Station("Kazipara", 23.7961, 90.3721),
+            new Station("Shewrapara", 23.7876, 90.3751),
+            new Station("Agargaon", 23.7780, 90.3787),
+            new Station("Bijoy Sarani", 23.7648, 90.3861),
+            new Station("Farmgate", 23.7561, 90.3895),
+            new Station("Karwan Bazar", 23.7505, 90.3934),
+            new Station("Shahbag", 23.7410, 90.3971),
+            new Station("Dhaka Univ.", 23.7335, 90.3995),
+            new Station("Press Club", 23.7295, 90.4065),
+            new Station("Motijheel", 23.7330, 90.4172),
+            new Station("Kamalapur", 23.7370, 90.4248));
+
+    private static final List<Hub> HUBS = List.of(
+            // North
+            new Hub("Uttara", 23.8731, 90.3962, 3.5),
+            new Hub("Airport", 23.8513, 90.4069, 2.0),
+            new Hub("Abdullahpur", 23.8797, 90.4005, 2.0),
+            new Hub("Tongi", 23.8915, 90.4023, 3.0),
+            // West
+            new Hub("Gabtoli", 23.7832, 90.3442, 3.0),
+            new Hub("Mirpur-1", 23.7956, 90.3537, 2.0),
+            new Hub("Mirpur-10", 23.8071, 90.3686, 2.5),
+            new Hub("Kallyanpur", 23.7797, 90.3581, 1.5),
+            new Hub("Mohammadpur", 23.7594, 90.3583, 2.0),
+            // Central
+            new Hub("Farmgate", 23.7575, 90.3890, 2.5),
+            new Hub("KarwanBazar", 23.7515, 90.3916, 1.8),
+            new Hub("Shahbag", 23.7376, 90.3954, 2.0),
+            new Hub("NewMarket", 23.7333, 90.3854, 1.8),
+            new Hub("Dhanmondi", 23.7465, 90.3760, 2.0),
+            // East
+            new Hub("Kuril", 23.8103, 90.4125, 2.0),
+            new Hub("Badda", 23.7805, 90.4210, 2.0),
+            new Hub("Rampura", 23.7615, 90.4203, 2.0),
+            new Hub("Malibagh", 23.7486, 90.4114, 1.8),
+            // South
+            new Hub("Motijheel", 23.7330, 90.4172, 3.0),
+            new Hub("Gulistan", 23.7286, 90.4104, 3.0),
+            new Hub("Kamalapur", 23.7370, 90.4248, 2.0),
+            new Hub("Sayedabad", 23.7099, 90.4287, 3.0),
+            new Hub("Jatrabari", 23.7112, 90.4331, 3.0),
+            // Peripheral
+            new Hub("Savar", 23.8583, 90.2667, 4.0),
+            new Hub("Keraniganj", 23.6940, 90.3636, 3.0),
+            new Hub("Demra", 23.7223, 90.4760, 3.0));
+
+    private static final List<BusRoute> ROUTES = List.of(
+            // Uttara based
+            new BusRoute("Raida", List.of("Abdullahpur", "Uttara", "Airport", "Kuril", "Badda", "Rampura", "Jatrabari")),
+            new BusRoute("Turag", List.of("Tongi", "Uttara", "Airport", "Kuril", "Badda", "Rampura")),
+            new BusRoute("Airport Bangabandhu", List.of("Uttara", "Airport", "Mohakhali", "Farmgate", "Shahbag", "Motijheel")),
+            // Mirpur based
+            new BusRoute("Bikolpo", List.of("Mirpur-10", "Mirpur-1", "Kallyanpur", "Farmgate", "Shahbag", "Motijheel")),
+            new BusRoute("Shikho", List.of("Mirpur-10", "Farmgate", "Shahbag", "Gulistan")),
+            new BusRoute("Basumati", List.of("Gabtoli", "Mirpur-1", "Farmgate", "Shahbag", "Motijheel")),
+            new BusRoute("Alif", List.of("Mirpur-10", "Mohakhali", "Kuril")),
+            // Gabtoli based
+            new BusRoute("8 Number", List.of("Gabtoli", "Kallyanpur", "Farmgate", "Shahbag", "Jatrabari")),
+            new BusRoute("Achim Paribahan", List.of("Gabtoli", "Mirpur-10", "Farmgate", "Shahbag", "Gulistan", "Sayedabad")),
+            // Savar
+            new BusRoute("Thikana", List.of("Savar", "Gabtoli", "Farmgate", "Motijheel")),
+            new BusRoute("City Link", List.of("Savar", "Gabtoli", "Mirpur-10", "Farmgate")),
+            // South Dhaka
+            new BusRoute("Somoy", List.of("Demra", "Jatrabari", "Gulistan", "Shahbag")),
+            new BusRoute("Moitree", List.of("Keraniganj", "Gulistan", "Motijheel")),
+            // BRTC
+            new BusRoute("BRTC Mirpur–Motijheel", List.of("Mirpur-10", "Farmgate", "Shahbag", "Motijheel")),
+            new BusRoute("BRTC Gabtoli–Sayedabad", List.of("Gabtoli", "Farmgate", "Gulistan", "Sayedabad")));
+
+    /** Grid cell size in degrees, about 2.2 km. */
+    private static final double CELL_DEGREES = 0.02;
+
+    private final Map<String, Long> routesByHub = new LinkedHashMap<>();
+    private final double maxHubRadiusKm;
+    private final Map<Long, List<Integer>> hubGrid = new HashMap<>();
+    private final Map<Long, List<Integer>> stationGrid = new HashMap<>();
+
+    public TransitNetwork() {
+        if (ROUTES.size() > Long.SIZE) {
+            throw new IllegalStateException("Route masks hold at most " + Long.SIZE + " routes");
+        }
+        for (int r = 0; r < ROUTES.size(); r++) {
+            for (String stop : ROUTES.get(r).stops()) {
+                routesByHub.merge(stop, 1L << r, (a, b) -> a | b);
+            }
+        }
+        double maxRadius = 0;
+        for (int i = 0; i < HUBS.size(); i++) {
+            Hub hub = HUBS.get(i);
+            hubGrid.computeIfAbsent(cellOf(hub.lat(), hub.lng()), k -> new ArrayList<>()).add(i);
+            maxRadius = Math.max(maxRadius, hub.radiusKm());
+        }
+        this.maxHubRadiusKm = maxRadius;
+        for (int i = 0; i < METRO_STATIONS.size(); i++) {
+            Station station = METRO_STATIONS.get(i);
+            stationGrid.computeIfAbsent(cellOf(station.lat(), station.lng()), k -> new ArrayList<>()).add(i);
+        }
+    }
+
+    public List<Station> metroStations() {
+        return METRO_STATIONS;
+    }
+
+    /**
+     * Position of the metro station nearest to the point within
+     * {@code maxKm}, or -1 when there is none.
+     */
+    public int nearestStation(double lat, double lng, double maxKm) {
+        int best = -1;
+        double bestKm = maxKm;
+        for (int i : candidates(stationGrid, lat, lng, maxKm)) {
+            Station station = METRO_STATIONS.get(i);
+            double km = Geo.haversineKm(lat, lng, station.lat(), station.lng());
+            if (km <= bestKm) {
+                best = i;
+                bestKm = km;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The nearest bus hub whose catchment radius covers the point, or
+     * {@code null}.
+     */
+    public Hub hubAt(double lat, double lng) {
+        Hub best = null;
+        double bestKm = Double.MAX_VALUE;
+        for (int i : candidates(hubGrid, lat, lng, maxHubRadiusKm)) {
+            Hub hub = HUBS.get(i);
+            double km = Geo.haversineKm(lat, lng, hub.lat(), hub.lng());
+            if (km <= hub.radiusKm() && km < bestKm) {
+                best = hub;
+                bestKm = km;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Routes stopping at both hubs, in route order.
+     */
+    public List<String> directRoutes(String from, String to) {
+        return namesOf(routesByHub.getOrDefault(from, 0L) & routesByHub.getOrDefault(to, 0L));
+    }
+
+    /**
+     * Journeys with one change between two hubs that no single route
+     * connects, at most {@code limit} of them.
+     */
+    public List<Transfer> transfers(String from, String to, int limit) {
+        long fromRoutes = routesByHub.getOrDefault(from, 0L);
+        long toRoutes = routesByHub.getOrDefault(to, 0L);
+        List<Transfer> out = new ArrayList<>();
+        if ((fromRoutes & toRoutes) != 0) {
+            return out;
+        }
+        for (Map.Entry<String, Long> hub : routesByHub.entrySet()) {
+            long first = fromRoutes & hub.getValue();
+            long second = toRoutes & hub.getValue();
+            if (first != 0 && second != 0) {
+                out.add(new Transfer(ROUTES.get(Long.numberOfTrailingZeros(first)).name(), hub.getKey(),
+                        ROUTES.get(Long.numberOfTrailingZeros(second)).name()));
+                if (out.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>(Long.bitCount(mask));
+        for (long m = mask; m != 0; m &= m - 1) {
+            names.add(ROUTES.get(Long.numberOfTrailingZeros(m)).name());
+        }
+        return names;
+    }
+
+    private static List<Integer> candidates(Map<Long, List<Integer>> grid, double lat, double lng, double km) {
+        double dLat = km / Geo.KM_PER_DEGREE;
+        double dLng = Geo.lngDegrees(km, lat);
+        List<Integer> out = new ArrayList<>();
+        for (int i = index(lat - dLat); i <= index(lat + dLat); i++) {
+            for (int j = index(lng - dLng); j <= index(lng + dLng); j++) {
+                List<Integer> points = grid.get(key(i, j));
+                if (points != null) {
+                    out.addAll(points);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static long cellOf(double lat, double lng) {
+        return key(index(lat), index(lng));
+    }
+
+    private static int index(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,313 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.UploadResult;
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores complaint photos and SOS audio clips in {@link ObjectStorage}.
+ *
+ * <p>
+ * Audio is streamed through unchanged. Photos are decoded, downscaled to at
+ * most {@code uploads.image.max-dimension} pixels on the long side and
+ * re-encoded as JPEG, and a thumbnail is stored next to them. Large photos
+ * are subsampled while decoding, so a 12 MP phone photo is never expanded
+ * to full resolution in memory. Image work runs on a small fixed pool with
+ * a bounded queue; when it is full uploads are rejected with
+ * {@link OverloadedException} rather than piling up.
+ * </p>
+ */
+@Service
+public class UploadService {
+
+    /**
+     * Thrown when the image processing queue is full.
+     */
+    public static class OverloadedException extends RuntimeException {
+        public OverloadedException() {
+            super("Too many uploads in progress, please retry shortly");
+        }
+    }
+
+    private static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+    private static final Map<String, String> AUDIO_EXTENSIONS = Map.of(
+            "audio/webm", "webm",
+            "audio/ogg", "ogg",
+            "audio/mpeg", "mp3",
+            "audio/mp4", "m4a",
+            "audio/aac", "aac",
+            "audio/wav", "wav",
+            "audio/x-wav", "wav");
+
+    private record Rendition(byte[] image, byte[] thumbnail) {}
+
+    private final ObjectStorage storage;
+    private final int maxDimension;
+    private final int thumbnailSize;
+    private final float quality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer processing;
+    private final Counter images;
+    private final Counter audioClips;
+    private final Counter bytesIn;
+    private final Counter bytesStored;
+    private final Counter rejected;
+
+    public UploadService(ObjectStorage storage,
+                         MeterRegistry meterRegistry,
+                         @Value("${uploads.image.max-dimension:1600}") int maxDimension,
+                         @Value("${uploads.image.thumbnail-size:320}") int thumbnailSize,
+                         @Value("${uploads.image.quality:0.82}") float quality,
+                         @Value("${uploads.image.max-megapixels:50}") int maxMegapixels,
+                         @Value("${uploads.image.threads:2}") int threads,
+                         @Value("${uploads.image.queue-size:16}") int queueSize) {
+        this.storage = storage;
+        this.maxDimension = maxDimension;
+        this.thumbnailSize = thumbnailSize;
+        this.quality = quality;
+        this.maxPixels = maxMegapixels * 1_000_000L;
+        this.processing = LatencyTimers.timer(meterRegistry, "uploads.image.processing",
+                "Time to decode, resize and encode an uploaded image");
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "image", Tags.empty()).bindTo(meterRegistry);
+        this.images = stored(meterRegistry, "image");
+        this.audioClips = stored(meterRegistry, "audio");
+        this.bytesIn = bytes(meterRegistry, "uploads.bytes.received", "Bytes of uploaded files received");
+        this.bytesStored = bytes(meterRegistry, "uploads.bytes.stored", "Bytes written to object storage");
+        this.rejected = Counter.builder("uploads.rejected")
+                .description("Image uploads rejected because the processing queue was full")
+                .register(meterRegistry);
+    }
+
+    private static Counter stored(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("uploads.stored")
+                .description("Uploads stored")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private static Counter bytes(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public static boolean isImage(String contentType) {
+        return IMAGE_TYPES.contains(baseType(contentType));
+    }
+
+    public static boolean isAudio(String contentType) {
+        return AUDIO_EXTENSIONS.containsKey(baseType(contentType));
+    }
+
+    // ---------- Images ----------
+
+    /**
+     * Downscale a photo, store it with a thumbnail and emit both URLs.
+     */
+    public Mono<UploadResult> storeImage(MultipartFile file) {
+        String key = newKey("images", "jpg");
+        String thumbnailKey = key.substring(0, key.length() - ".jpg".length()) + "_thumb.jpg";
+        return submit(() -> {
+            try (InputStream in = file.getInputStream()) {
+                return render(in);
+            }
+        }).flatMap(rendition -> {
+            bytesIn.increment(file.getSize());
+            Mono<String> image = put(key, rendition.image(), "image/jpeg");
+            Mono<String> thumbnail = put(thumbnailKey, rendition.thumbnail(), "image/jpeg");
+            return Mono.zip(image, thumbnail)
+                    .doOnNext(urls -> images.increment())
+                    .map(urls -> new UploadResult(urls.getT1(), urls.getT2(), "image/jpeg",
+                            rendition.image().length));
+        });
+    }
+
+    private Mono<String> put(String key, byte[] bytes, String contentType) {
+        bytesStored.increment(bytes.length);
+        return storage.put(key, Channels.newChannel(new ByteArrayInputStream(bytes)), bytes.length, contentType);
+    }
+
+    private Rendition render(InputStream in) throws IOException {
+        BufferedImage decoded = decode(in);
+        BufferedImage image = scale(decoded, maxDimension);
+        BufferedImage thumbnail = scale(image, thumbnailSize);
+        return new Rendition(encode(image), encode(thumbnail));
+    }
+
+    /**
+     * Decode the first frame, skipping rows and columns of images larger
+     * than twice the target size so memory stays proportional to the
+     * output rather than the input.
+     */
+    private BufferedImage decode(InputStream in) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is too large");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (maxDimension * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxSide) {
+        double factor = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha; transparent PNG areas become white
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // ---------- Audio ----------
+
+    /**
+     * Stream an audio clip to storage unchanged and emit its URL.
+     */
+    public Mono<UploadResult> storeAudio(MultipartFile file) {
+        String contentType = baseType(file.getContentType());
+        String key = newKey("audio", AUDIO_EXTENSIONS.get(contentType));
+        long size = file.getSize();
+        return Mono.fromCallable(() -> Channels.newChannel(file.getInputStream()))
+                .flatMap(body -> storage.put(key, body, size, contentType))
+                .doOnNext(url -> {
+                    audioClips.increment();
+                    bytesIn.increment(size);
+                    bytesStored.increment(size);
+                })
+                .map(url -> new UploadResult(url, null, contentType, size));
+    }
+
+    // ---------- Helpers ----------
+
+    private static String newKey(String folder, String extension) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return String.format("%s/%d/%02d/%02d/%s.%s", folder, today.getYear(), today.getMonthValue(),
+                today.getDayOfMonth(), UUID.randomUUID(), extension);
+    }
+
+    private static String baseType(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private <T> Mono<T> submit(Callable<T> task) {
+        return Mono.create(sink -> {
+            try {
+                Future<?> future = executor.submit(() -> {
+                    long started = System.nanoTime();
+                    try {
+                        sink.success(task.call());
+                    } catch (Exception e) {
+                        sink.error(e);
+                    } finally {
+                        processing.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                });
+                sink.onCancel(() -> future.cancel(false));
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                sink.error(new OverloadedException());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
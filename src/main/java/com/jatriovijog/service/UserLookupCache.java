@@ -0,0 +1,76 @@
+package com.jatriovijog.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jatriovijog.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of user lookups by email for {@link SupabaseService}.
+ * Concurrent lookups of the same email share one in-flight request: the
+ * first caller starts it and everybody else, until it completes, waits for
+ * the same result. Lookups that found no user are cached as well, and a
+ * failed lookup is dropped so the next caller tries again.
+ *
+ * <p>
+ * Every caller receives its own copy of the user; callers clear the
+ * password before answering and must not affect the cached entry.
+ * </p>
+ *
+ * <p>
+ * The cache publishes the {@code cache.*} meters tagged
+ * {@code cache=users}; callers that joined an in-flight lookup count as
+ * hits.
+ * </p>
+ */
+@Component
+public class UserLookupCache {
+
+    private final AsyncCache<String, Optional<User>> users;
+
+    public UserLookupCache(MeterRegistry meterRegistry,
+                           @Value("${supabase.user-cache.max-entries:10000}") long maxEntries,
+                           @Value("${supabase.user-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /**
+     * The user with the given email, from the cache or from {@code fetch},
+     * which is called at most once per email while a lookup is in flight.
+     */
+    public Mono<User> get(String email, Function<String, Mono<User>> fetch) {
+        return Mono.defer(() -> {
+                    CompletableFuture<Optional<User>> lookup = users.get(email, (key, executor) -> fetch.apply(key)
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .toFuture());
+                    // one caller cancelling must not cancel the lookup the others share
+                    return Mono.fromFuture(lookup, true);
+                })
+                .flatMap(Mono::justOrEmpty)
+                .map(User::new);
+    }
+
+    /**
+     * Forget the lookup for {@code email}, including one still in flight.
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            users.synchronous().invalidate(email);
+        }
+    }
+}
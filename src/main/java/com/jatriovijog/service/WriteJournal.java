@@ -0,0 +1,552 @@
+package com.jatriovijog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Local append-only journal in front of inserts into one Supabase table.
+ * {@link #append(Object)} writes the row as one JSON line and completes once
+ * the line is on disk; a background drainer then inserts the journaled rows
+ * in order, retrying with backoff for as long as Supabase is unreachable.
+ *
+ * <p>
+ * Appends are group-committed: a writer thread takes every row waiting at
+ * that moment, writes them with one call and forces the file once for the
+ * whole group. The drainer sends consecutive rows as one bulk insert through
+ * {@code insertOnce}, which must skip rows whose idempotency key is already
+ * stored, so a row replayed after a crash is never inserted twice. Rows
+ * rejected by Supabase as invalid are moved to a dead-letter file next to
+ * the journal instead of blocking the rows behind them.
+ * </p>
+ *
+ * <p>
+ * The offset up to which rows are stored is kept in a small side file. On
+ * startup everything after it is read back and queued again. A torn last
+ * line from a crash mid-write, the only line without a trailing newline, is
+ * cut off; a complete line that cannot be read is moved to the dead-letter
+ * file and the lines after it are still replayed. Once every row is stored
+ * the journal file is truncated.
+ * </p>
+ *
+ * <p>
+ * Backlog, group commits, stored rows, retries and dead letters are
+ * published as {@code journal.*} meters tagged with the journal's name.
+ * </p>
+ */
+public class WriteJournal<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteJournal.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_GROUP = 256;
+
+    /**
+     * Thrown when too many rows are waiting to be stored.
+     */
+    public static class FullException extends RuntimeException {
+        public FullException(String name) {
+            super("The " + name + " journal is full, please retry shortly");
+        }
+    }
+
+    private record Append<T>(T row, byte[] line, MonoSink<Void> sink) {}
+
+    /** A journaled row and the file offset just past its line. */
+    private record Entry<T>(T row, long end) {}
+
+    private final String name;
+    private final Class<T> type;
+    private final Function<List<T>, Flux<T>> insertOnce;
+    private final int maxPending;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+
+    private final FileChannel journal;
+    private final FileChannel offsetFile;
+    private final FileChannel deadLetters;
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private volatile long end;
+
+    private final BlockingQueue<Append<T>> appends = new LinkedBlockingQueue<>();
+    private final Deque<Entry<T>> pending = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean started;
+    private volatile boolean isolate;
+    private volatile Duration backoff;
+
+    private final DistributionSummary groups;
+    private final Counter stored;
+    private final Counter duplicates;
+    private final Counter retries;
+    private final Counter deadLettered;
+    private final Counter rejected;
+
+    /**
+     * Open (or create) {@code <dir>/<name>.journal} and queue the rows that
+     * were journaled but not yet stored. Draining starts with {@link #start()}.
+     *
+     * @param insertOnce bulk insert that ignores rows already stored and
+     *                   emits the rows it created
+     * @param maxPending rows accepted but not yet stored before appends fail
+     *                   with {@link FullException}
+     * @param batchSize  rows sent per insert
+     */
+    public WriteJournal(Path dir, String name, Class<T> type, Function<List<T>, Flux<T>> insertOnce,
+                        int maxPending, int batchSize, Duration retryBackoff, Duration maxRetryBackoff,
+                        MeterRegistry meterRegistry) throws IOException {
+        this.name = name;
+        this.type = type;
+        this.insertOnce = insertOnce;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.backoff = retryBackoff;
+        this.groups = DistributionSummary.builder("journal.group.size")
+                .description("Rows written and forced to disk together")
+                .baseUnit("rows")
+                .tags("journal", name)
+                .register(meterRegistry);
+        this.stored = counter(meterRegistry, name, "journal.stored", "Journaled rows stored in Supabase");
+        this.duplicates = counter(meterRegistry, name, "journal.duplicates",
+                "Journaled rows found to be stored already");
+        this.retries = counter(meterRegistry, name, "journal.retries", "Failed inserts retried with backoff");
+        this.deadLettered = counter(meterRegistry, name, "journal.dead.lettered",
+                "Rows moved to the dead-letter file");
+        this.rejected = counter(meterRegistry, name, "journal.rejected",
+                "Appends refused because the backlog was full");
+        Gauge.builder("journal.pending", queued, AtomicInteger::get)
+                .description("Rows accepted but not yet stored")
+                .tags("journal", name)
+                .register(meterRegistry);
+        Gauge.builder("journal.bytes", this, writeJournal -> writeJournal.end)
+                .description("Size of the journal file")
+                .baseUnit("bytes")
+                .tags("journal", name)
+                .register(meterRegistry);
+        this.journal = FileChannel.open(dir.resolve(name + ".journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.offsetFile = FileChannel.open(dir.resolve(name + ".offset"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.deadLetters = FileChannel.open(dir.resolve(name + ".dead"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        recover();
+        this.writer = new Thread(this::writeLoop, "journal-" + name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Register a callback for every row the drainer stores, with the
+     * columns Supabase filled in. Rows found to be stored already are not
+     * reported again.
+     */
+    public void onStored(Consumer<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Journal a row. The returned {@code Mono} completes once the row is on
+     * disk, or fails with {@link FullException} when the backlog is full.
+     */
+    public Mono<Void> append(T row) {
+        return Mono.create(sink -> {
+            if (queued.incrementAndGet() > maxPending) {
+                queued.decrementAndGet();
+                rejected.increment();
+                sink.error(new FullException(name));
+                return;
+            }
+            byte[] line;
+            try {
+                line = lineOf(row);
+            } catch (IOException e) {
+                queued.decrementAndGet();
+                sink.error(e);
+                return;
+            }
+            if (!running) {
+                queued.decrementAndGet();
+                sink.error(new IllegalStateException("The " + name + " journal is closed"));
+                return;
+            }
+            appends.add(new Append<>(row, line, sink));
+        });
+    }
+
+    /**
+     * Start storing journaled rows. Rows appended before this are written
+     * to disk but only sent once it is called.
+     */
+    public void start() {
+        started = true;
+        drain();
+    }
+
+    // ---------- Writing ----------
+
+    private void writeLoop() {
+        List<Append<T>> group = new ArrayList<>();
+        while (running) {
+            try {
+                group.add(appends.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            appends.drainTo(group, MAX_GROUP - 1);
+            IOException failure = write(group);
+            for (Append<T> append : group) {
+                if (failure == null) {
+                    append.sink().success();
+                } else {
+                    queued.decrementAndGet();
+                    append.sink().error(failure);
+                }
+            }
+            group.clear();
+            if (failure == null && started) {
+                drain();
+            }
+        }
+        Append<T> left;
+        while ((left = appends.poll()) != null) {
+            left.sink().error(new IllegalStateException("The " + name + " journal is closed"));
+        }
+    }
+
+    /**
+     * Write and force one group. Entries become visible to the drainer only
+     * once they are durable; on failure the partial write is cut off.
+     */
+    private IOException write(List<Append<T>> group) {
+        ByteBuffer[] buffers = new ByteBuffer[group.size()];
+        for (int i = 0; i < group.size(); i++) {
+            buffers[i] = ByteBuffer.wrap(group.get(i).line());
+        }
+        fileLock.lock();
+        try {
+            long start = end;
+            try {
+                journal.position(start);
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    journal.write(buffers);
+                }
+                journal.force(false);
+            } catch (IOException e) {
+                log.error("Could not write to the {} journal: {}", name, e.toString());
+                try {
+                    journal.truncate(start);
+                } catch (IOException ignored) {
+                    // recover() cuts off the torn line on the next start
+                }
+                return e;
+            }
+            long offset = start;
+            for (Append<T> append : group) {
+                offset += append.line().length;
+                pending.add(new Entry<>(append.row(), offset));
+            }
+            end = offset;
+            groups.record(group.size());
+            return null;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // ---------- Draining ----------
+
+    /**
+     * Insert the next batch of journaled rows unless a batch is already in
+     * flight. Each completed batch starts the next one.
+     */
+    private void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        List<Entry<T>> batch = new ArrayList<>();
+        int size = isolate ? 1 : batchSize;
+        for (Entry<T> entry : pending) {
+            if (batch.size() == size) {
+                break;
+            }
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            compact();
+            draining.set(false);
+            if (!pending.isEmpty()) {
+                drain();
+            }
+            return;
+        }
+        List<T> rows = new ArrayList<>(batch.size());
+        batch.forEach(entry -> rows.add(entry.row()));
+        Flux.defer(() -> insertOnce.apply(rows))
+                .collectList()
+                .subscribe(created -> {
+                    isolate = false;
+                    backoff = retryBackoff;
+                    stored.increment(created.size());
+                    duplicates.increment(batch.size() - created.size());
+                    commit(batch);
+                    for (T row : created) {
+                        notifyStored(row);
+                    }
+                    draining.set(false);
+                    drain();
+                }, error -> failed(batch, error));
+    }
+
+    private void failed(List<Entry<T>> batch, Throwable error) {
+        if (isInvalid(error)) {
+            if (batch.size() > 1) {
+                // retry one row at a time to find the row Supabase rejects
+                isolate = true;
+            } else {
+                deadLetter(batch.get(0), error);
+                commit(batch);
+            }
+            draining.set(false);
+            drain();
+            return;
+        }
+        retries.increment();
+        Duration delay = backoff;
+        backoff = delay.multipliedBy(2).compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : delay.multipliedBy(2);
+        log.warn("Could not store {} journaled {} rows, retrying in {} ms: {}",
+                batch.size(), name, delay.toMillis(), error.toString());
+        Schedulers.parallel().schedule(() -> {
+            draining.set(false);
+            drain();
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rows Supabase refuses outright (bad request, constraint violation,
+     * payload too large). Anything else, including auth and routing errors,
+     * is retried so a misconfiguration does not throw rows away. Also used
+     * by {@link InsertBatcher} to decide when to resend rows one at a time.
+     */
+    static boolean isInvalid(Throwable error) {
+        if (error instanceof DataIntegrityViolationException) {
+            return true;
+        }
+        int status;
+        if (error instanceof WebClientResponseException response) {
+            status = response.getStatusCode().value();
+        } else if (error instanceof RestClientResponseException response) {
+            status = response.getStatusCode().value();
+        } else {
+            return false;
+        }
+        return status == 400 || status == 409 || status == 413 || status == 422;
+    }
+
+    private void notifyStored(T row) {
+        for (Consumer<T> listener : listeners) {
+            try {
+                listener.accept(row);
+            } catch (RuntimeException e) {
+                log.warn("Listener failed for a stored {} row: {}", name, e.toString());
+            }
+        }
+    }
+
+    private void deadLetter(Entry<T> entry, Throwable error) {
+        log.error("Supabase rejected a journaled {} row, moved to the dead-letter file: {}", name, error.toString());
+        try {
+            deadLetter(lineOf(entry.row()));
+        } catch (IOException e) {
+            log.error("Could not write the {} dead-letter file: {}", name, e.toString());
+        }
+    }
+
+    private void deadLetter(byte[] line) throws IOException {
+        deadLettered.increment();
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            deadLetters.write(buffer);
+        }
+        deadLetters.force(false);
+    }
+
+    /**
+     * Drop stored entries and record how far the journal is stored. The
+     * offset is not forced: after a crash a stale offset only replays rows
+     * that the idempotent insert then skips.
+     */
+    private void commit(List<Entry<T>> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            pending.poll();
+        }
+        queued.addAndGet(-batch.size());
+        writeOffset(batch.get(batch.size() - 1).end());
+    }
+
+    /**
+     * Truncate the journal once everything in it is stored. Entries are
+     * added under the same lock after they are written, so an empty backlog
+     * seen under the lock means nothing in the file is unstored.
+     */
+    private void compact() {
+        fileLock.lock();
+        try {
+            if (end == 0 || !pending.isEmpty()) {
+                return;
+            }
+            journal.truncate(0);
+            end = 0;
+            // forced, or after a crash a stale offset could point into the rows appended next
+            writeOffset(0);
+            offsetFile.force(false);
+        } catch (IOException e) {
+            log.warn("Could not truncate the {} journal: {}", name, e.toString());
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private void writeOffset(long offset) {
+        try {
+            offsetFile.write(ByteBuffer.allocate(Long.BYTES).putLong(0, offset), 0);
+        } catch (IOException e) {
+            log.warn("Could not record the {} journal offset: {}", name, e.toString());
+        }
+    }
+
+    // ---------- Recovery ----------
+
+    /**
+     * Queue every complete line after the stored offset, dead-letter the
+     * complete lines that cannot be read and cut off a torn tail.
+     */
+    private void recover() throws IOException {
+        long offset = 0;
+        if (offsetFile.size() >= Long.BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            offsetFile.read(buffer, 0);
+            offset = buffer.getLong(0);
+        }
+        long size = journal.size();
+        if (offset < 0 || offset > size || !atLineStart(offset)) {
+            // replaying from the start is safe, the insert skips rows already stored
+            offset = 0;
+        }
+        long position = offset;
+        journal.position(offset);
+        InputStream in = new BufferedInputStream(Channels.newInputStream(journal));
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            long lineStart = position;
+            position += line.size() + 1;
+            try {
+                pending.add(new Entry<>(MAPPER.readValue(line.toByteArray(), type), position));
+            } catch (IOException e) {
+                log.error("Unreadable line at offset {} of the {} journal, moved to the dead-letter file",
+                        lineStart, name);
+                line.write('\n');
+                deadLetter(line.toByteArray());
+                if (pending.isEmpty()) {
+                    writeOffset(position);
+                }
+            }
+            line.reset();
+        }
+        if (position < size) {
+            journal.truncate(position);
+        }
+        end = position;
+        queued.set(pending.size());
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} journaled {} rows", pending.size(), name);
+        }
+    }
+
+    /** Whether {@code offset} is the start of the file or just past a newline. */
+    private boolean atLineStart(long offset) throws IOException {
+        if (offset == 0) {
+            return true;
+        }
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        return journal.read(previous, offset - 1) == 1 && previous.get(0) == '\n';
+    }
+
+    private static byte[] lineOf(Object row) throws IOException {
+        byte[] json = MAPPER.writeValueAsBytes(row);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String journal, String name, String description) {
+        return Counter.builder(name).description(description).tags("journal", journal).register(meterRegistry);
+    }
+
+    /**
+     * Stop the writer, failing appends that were not written, and close the
+     * files. Rows not yet stored stay in the journal for the next start.
+     */
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+            offsetFile.close();
+            deadLetters.close();
+        } catch (IOException e) {
+            log.warn("Could not close the {} journal: {}", name, e.toString());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.jatriovijog.util;
+
+/**
+ * Great-circle distances between latitude/longitude points.
+ */
+public final class Geo {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE = 111.32;
+
+    private Geo() {
+    }
+
+    /**
+     * Haversine distance in kilometres.
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Degrees of longitude spanned by {@code km} at the given latitude.
+     */
+    public static double lngDegrees(double km, double lat) {
+        return km / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 1e-6));
+    }
+}
@@ -1,31 +1,54 @@
 package com.jatriovijog.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for generating and validating JWTs. The secret key used
  * for signing is provided via Spring configuration. Tokens expire after
  * a configurable period (default 24 hours).
+ *
+ * <p>
+ * Validation uses a single, immutable parser. Successfully verified tokens
+ * are remembered by their SHA-256 hash until they expire, so a dashboard
+ * sending the same token on every request pays for the signature check
+ * only once. The cache publishes the {@code cache.*} meters tagged
+ * {@code cache=jwt.verified}.
+ * </p>
  */
 @Component
 public class JwtUtil {
 
     private final SecretKey secretKey;
     private final long expirationMillis;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, Claims> verified;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret,
-                   @Value("${jwt.expirationMillis:86400000}") long expirationMillis) {
+    public JwtUtil(MeterRegistry meterRegistry,
+                   @Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expirationMillis:86400000}") long expirationMillis,
+                   @Value("${jwt.cache.max-entries:10000}") long cacheMaxEntries,
+                   @Value("${jwt.cache.max-ttl-seconds:300}") long cacheMaxTtlSeconds) {
         // The provided secret may be a base64 encoded string. Try to decode it
         // first; if decoding fails then treat it as plain text.
         byte[] keyBytes;
@@ -36,6 +59,37 @@ public class JwtUtil {
         }
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
         this.expirationMillis = expirationMillis;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(cacheMaxTtlSeconds);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new Expiry<ByteBuffer, Claims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+                        // never keep a token past its own exp claim
+                        Date exp = claims.getExpiration();
+                        if (exp == null) {
+                            return maxTtlNanos;
+                        }
+                        long untilExp = TimeUnit.MILLISECONDS.toNanos(exp.getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExp, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.verified");
     }
 
     /**
@@ -65,10 +119,23 @@ public class JwtUtil {
      * @return claims embedded in the token
      */
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        ByteBuffer key = hash(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        verified.put(key, claims);
+        return claims;
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 }
\ No newline at end of file
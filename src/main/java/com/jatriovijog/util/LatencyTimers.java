@@ -0,0 +1,53 @@
+package com.jatriovijog.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer timers for the latencies reported under {@code /api/stats}.
+ * Each timer publishes p50, p90 and p99 computed in the application, for
+ * the stats endpoint and registries without histogram support, and a
+ * percentile histogram that Prometheus can aggregate across instances.
+ */
+public final class LatencyTimers {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private LatencyTimers() {
+    }
+
+    /**
+     * Register (or look up) the timer {@code name}, tagged with
+     * {@code tags} as key/value pairs.
+     */
+    public static Timer timer(MeterRegistry meterRegistry, String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count and mean in milliseconds since startup, max and p50/p90/p99
+     * over the timer's last few minutes.
+     */
+    public static Map<String, Object> snapshot(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", snapshot.count());
+        out.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        out.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            out.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return out;
+    }
+}
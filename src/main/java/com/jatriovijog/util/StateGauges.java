@@ -0,0 +1,35 @@
+package com.jatriovijog.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer gauges for the state of a startup load or rebuild
+ * ({@code pending}, {@code running}, {@code retrying}, {@code done},
+ * {@code failed} or {@code disabled}). One gauge per state, tagged with it,
+ * reads 1 for the current state and 0 for the others, so a dashboard can
+ * show or alert on {@code state="done"}.
+ */
+public final class StateGauges {
+
+    private static final List<String> STATES = List.of("pending", "running", "retrying", "done", "failed", "disabled");
+
+    private StateGauges() {
+    }
+
+    /**
+     * Register the gauges {@code name}, one per state, reading the current
+     * state from {@code state}.
+     */
+    public static void register(MeterRegistry meterRegistry, String name, String description, Supplier<String> state) {
+        for (String value : STATES) {
+            Gauge.builder(name, () -> value.equals(state.get()) ? 1 : 0)
+                    .description(description)
+                    .tag("state", value)
+                    .register(meterRegistry);
+        }
+    }
+}
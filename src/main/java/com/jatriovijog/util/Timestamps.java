@@ -0,0 +1,35 @@
+package com.jatriovijog.util;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsing of the {@code created_at} strings PostgREST returns.
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+    }
+
+    /**
+     * Epoch milliseconds of an ISO timestamp with or without an offset
+     * ({@code timestamptz} or {@code timestamp} columns; the latter is read
+     * as UTC), or {@code fallback} when it is missing or unreadable.
+     */
+    public static long toEpochMillis(String timestamp, long fallback) {
+        if (timestamp == null) {
+            return fallback;
+        }
+        try {
+            return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(timestamp).toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return fallback;
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- Flyway migration: index backing keyset pagination of complaints.
+
+-- GET /api/complaints orders by (created_at, id) and pages with a
+-- "created_at < cursor OR (created_at = cursor AND id < cursor_id)" filter.
+-- This composite index lets Postgres answer every page with an index range
+-- scan instead of sorting the whole table.
+CREATE INDEX IF NOT EXISTS idx_complaints_created_at_id
+    ON complaints (created_at DESC, id DESC);
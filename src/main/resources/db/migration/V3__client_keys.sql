@@ -0,0 +1,9 @@
+-- Flyway migration: idempotency keys for journaled submissions.
+
+-- With journal.enabled complaints and SOS reports are acknowledged once
+-- they are on local disk and inserted later, possibly more than once after
+-- a crash or a timed-out request. Each row carries the UUID it was accepted
+-- under; inserts use ON CONFLICT (client_key) DO NOTHING so a replay never
+-- creates a second row. Rows inserted directly leave the key NULL.
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS client_key UUID UNIQUE;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS client_key UUID UNIQUE;
@@ -0,0 +1,46 @@
+-- Flyway migration: police team chat.
+
+-- Channels officers coordinate in. The id is a short slug used in URLs.
+CREATE TABLE IF NOT EXISTS chat_channels (
+    id TEXT PRIMARY KEY,
+    name TEXT NOT NULL,
+    type TEXT NOT NULL DEFAULT 'Team',
+    description TEXT,
+    created_by TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Channel membership; officer is the email the officer logs in with.
+CREATE TABLE IF NOT EXISTS chat_members (
+    channel_id TEXT NOT NULL REFERENCES chat_channels(id) ON DELETE CASCADE,
+    officer TEXT NOT NULL,
+    joined_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (channel_id, officer)
+);
+
+-- Messages are numbered per channel by the backend (seq), which is also how
+-- history is paged. A message may tag a complaint as a case (case_id with
+-- case_tag "assigned" or "resolved").
+CREATE TABLE IF NOT EXISTS chat_messages (
+    channel_id TEXT NOT NULL REFERENCES chat_channels(id) ON DELETE CASCADE,
+    seq BIGINT NOT NULL,
+    sender TEXT NOT NULL,
+    sender_name TEXT,
+    text TEXT,
+    image_url TEXT,
+    case_id BIGINT REFERENCES complaints(id),
+    case_tag TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (channel_id, seq)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_messages_case_id
+    ON chat_messages (case_id) WHERE case_id IS NOT NULL;
+
+-- The channels the team chat page used to hard-code.
+INSERT INTO chat_channels (id, name, type, description) VALUES
+    ('fraud', 'Fare & Fraud Cell', 'Team', 'Handles overcharging, fake tickets & fare scams.'),
+    ('traffic', 'Traffic Enforcement', 'Team', 'Reckless driving, speeding and road-safety issues.'),
+    ('women', 'Women & Child Safety', 'Team', 'Harassment & gender-based safety cases.'),
+    ('control', 'Central Control Room', 'Broadcast', 'Emergency coordination and routing.')
+ON CONFLICT (id) DO NOTHING;
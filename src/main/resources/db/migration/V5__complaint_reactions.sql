@@ -0,0 +1,33 @@
+-- Flyway migration: public reaction and view counters of complaints.
+
+-- One row per complaint that has been reacted to or viewed. The backend
+-- counts in memory and adds what accumulated every few seconds through
+-- add_complaint_reactions(), one call for every complaint that changed.
+CREATE TABLE IF NOT EXISTS complaint_reactions (
+    complaint_id BIGINT PRIMARY KEY REFERENCES complaints(id) ON DELETE CASCADE,
+    support BIGINT NOT NULL DEFAULT 0,
+    angry BIGINT NOT NULL DEFAULT 0,
+    watch BIGINT NOT NULL DEFAULT 0,
+    views BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- PostgREST upserts can only overwrite columns, so the increments are added
+-- here. deltas is a JSON array of {complaint_id, support, angry, watch,
+-- views}, at most one element per complaint; ids of deleted complaints are
+-- skipped. Called as POST /rpc/add_complaint_reactions {"deltas": [...]}.
+CREATE OR REPLACE FUNCTION add_complaint_reactions(deltas JSONB)
+RETURNS VOID
+LANGUAGE SQL
+AS $$
+    INSERT INTO complaint_reactions AS r (complaint_id, support, angry, watch, views)
+    SELECT d.complaint_id, COALESCE(d.support, 0), COALESCE(d.angry, 0), COALESCE(d.watch, 0), COALESCE(d.views, 0)
+    FROM jsonb_to_recordset(deltas) AS d(complaint_id BIGINT, support BIGINT, angry BIGINT, watch BIGINT, views BIGINT)
+    JOIN complaints c ON c.id = d.complaint_id
+    ON CONFLICT (complaint_id) DO UPDATE SET
+        support = r.support + EXCLUDED.support,
+        angry = r.angry + EXCLUDED.angry,
+        watch = r.watch + EXCLUDED.watch,
+        views = r.views + EXCLUDED.views,
+        updated_at = CURRENT_TIMESTAMP;
+$$;
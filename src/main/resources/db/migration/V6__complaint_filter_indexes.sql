@@ -0,0 +1,11 @@
+-- Flyway migration: indexes behind the status and thana filters.
+
+-- GET /api/complaints?status=… and ?thana=… page through one value in
+-- (created_at, id) order. V2's index serves the unfiltered feed; with a
+-- filter Postgres would have to walk it and discard the other values. With
+-- the filter column leading, every filtered page is one range scan.
+CREATE INDEX IF NOT EXISTS idx_complaints_status_created_at_id
+    ON complaints (status, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_complaints_thana_created_at_id
+    ON complaints (thana, created_at DESC, id DESC);
@@ -0,0 +1,18 @@
+-- Flyway migration: near-duplicate complaints.
+
+-- A complaint that repeats a recent report about the same bus on the same
+-- route is stored with duplicate_of set to the id of the first complaint of
+-- its cluster; that first complaint keeps it NULL. The dashboard reads only
+-- the NULL rows (collapse=true) and opens a cluster with duplicateOf=<id>.
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS duplicate_of BIGINT
+    REFERENCES complaints (id) ON DELETE SET NULL;
+
+CREATE INDEX IF NOT EXISTS idx_complaints_duplicate_of
+    ON complaints (duplicate_of, created_at DESC, id DESC)
+    WHERE duplicate_of IS NOT NULL;
+
+-- The collapsed feed pages through the cluster roots in (created_at, id)
+-- order.
+CREATE INDEX IF NOT EXISTS idx_complaints_roots_created_at_id
+    ON complaints (created_at DESC, id DESC)
+    WHERE duplicate_of IS NULL;
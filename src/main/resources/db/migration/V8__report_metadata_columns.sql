@@ -0,0 +1,16 @@
+-- Flyway migration: columns the app writes that the initial schema lacks.
+
+-- The emergency page sends SOS metadata for the police UI along with the
+-- location and audio, and police verification stores a note (and the
+-- frontend a verified flag) on the complaint. The Supabase tables have
+-- these columns; without them a JDBC insert or update against a database
+-- created by these migrations fails on the unknown column.
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS status TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS type TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS passenger TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS location TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS description TEXT;
+ALTER TABLE emergency_reports ADD COLUMN IF NOT EXISTS audio TEXT;
+
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS verification_note TEXT;
+ALTER TABLE complaints ADD COLUMN IF NOT EXISTS verified BOOLEAN;
@@ -0,0 +1,29 @@
+-- Flyway migration: idempotent reaction flushes.
+
+-- A flush whose response is lost may still have been applied, so the
+-- backend resends a failed flush unchanged under the UUID it was first sent
+-- with. Each applied flush id is recorded here, and a flush id seen before
+-- is ignored instead of being added a second time. Ids are kept for a day,
+-- far longer than a flush is retried for.
+CREATE TABLE IF NOT EXISTS reaction_flushes (
+    flush_id UUID PRIMARY KEY,
+    applied_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS reaction_flushes_applied_at_idx ON reaction_flushes (applied_at);
+
+-- Called as POST /rpc/add_complaint_reactions {"flush_id": "...", "deltas": [...]}.
+-- The one-argument version stays for callers without a flush id.
+CREATE OR REPLACE FUNCTION add_complaint_reactions(flush_id UUID, deltas JSONB)
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    INSERT INTO reaction_flushes (flush_id) VALUES (add_complaint_reactions.flush_id) ON CONFLICT DO NOTHING;
+    IF NOT FOUND THEN
+        RETURN;
+    END IF;
+    DELETE FROM reaction_flushes WHERE applied_at < CURRENT_TIMESTAMP - INTERVAL '1 day';
+    PERFORM add_complaint_reactions(deltas);
+END;
+$$;
@@ -4,6 +4,10 @@ let mediaRecorder = null;
 let audioChunks = [];
 let countdownInterval = null;
 
+// Longest the SOS waits for the audio upload; after that the upload is
+// abandoned and the clip goes out inline with the SOS instead.
+const AUDIO_UPLOAD_TIMEOUT_MS = 2000;
+
 document.addEventListener("DOMContentLoaded", () => {
   const sosButton = document.getElementById("sosButton");
   const locationStatus = document.getElementById("locationStatus");
@@ -205,13 +209,44 @@ async function blobToBase64(blob) {
   });
 }
 
+// Upload an audio clip; resolves to its URL, or null on failure or when it
+// takes longer than timeoutMs
+async function uploadAudio(audioBlob, token, timeoutMs) {
+  if (!audioBlob) return null;
+  const controller = new AbortController();
+  const timer = setTimeout(() => controller.abort(), timeoutMs);
+  try {
+    const form = new FormData();
+    form.append("file", audioBlob, "sos.webm");
+    const resp = await fetch("/api/uploads/audio", {
+      method: "POST",
+      headers: token ? { Authorization: `Bearer ${token}` } : {},
+      body: form,
+      signal: controller.signal,
+    });
+    if (!resp.ok) return null;
+    const data = await resp.json();
+    return data.url || null;
+  } catch (_) {
+    return null;
+  } finally {
+    clearTimeout(timer);
+  }
+}
+
 // Send emergency report to backend
 function sendEmergencyToBackend(location, audioBlob) {
   return new Promise(async (resolve, reject) => {
     try {
       const token = localStorage.getItem("token");
-      // Convert audio to base64 string (optional). You could instead upload the blob to storage and send URL.
-      const audioBase64 = await blobToBase64(audioBlob);
+      // Upload the clip and encode it inline at the same time; the SOS
+      // carries the URL if the upload finished in time, the clip otherwise,
+      // so a slow or failed upload never holds it back.
+      const [audioUrl, inlineAudio] = await Promise.all([
+        uploadAudio(audioBlob, token, AUDIO_UPLOAD_TIMEOUT_MS),
+        audioBlob ? blobToBase64(audioBlob).catch(() => null) : null,
+      ]);
+      const audioBase64 = audioUrl ? null : inlineAudio;
       // Derive current user name, if available, for display on police portal
       let currentUser = null;
       try {
@@ -222,7 +257,8 @@ function sendEmergencyToBackend(location, audioBlob) {
         latitude: location ? location.latitude : null,
         longitude: location ? location.longitude : null,
         accuracy: location ? location.accuracy : null,
-        // audio encoded as base64 string
+        audioUrl: audioUrl,
+        // audio encoded as base64 string when the upload failed
         audio: audioBase64,
         createdAt: new Date().toISOString(),
         status: "new",
@@ -8,7 +8,7 @@ let routeLine = null;
 let routeDot = null;         // Track the animated dot
 let routeDotInterval = null; // Track the animation timer
 
-// MRT variables
+// MRT variables (stations are only drawn here; fares are computed by /api/fare)
 let metroLayerGroup = L.layerGroup();
 const metroStations = [
   { name: "Uttara North", lat: 23.8734, lng: 90.3961 },
@@ -30,78 +30,6 @@ const metroStations = [
   { name: "Kamalapur", lat: 23.7370, lng: 90.4248 }
 ];
 
-// --- BUS DATA ---
-const BUS_HUBS = [
-  // North
-  { id: "Uttara", lat: 23.8731, lng: 90.3962, r: 3.5 },
-  { id: "Airport", lat: 23.8513, lng: 90.4069, r: 2.0 },
-  { id: "Abdullahpur", lat: 23.8797, lng: 90.4005, r: 2.0 },
-  { id: "Tongi", lat: 23.8915, lng: 90.4023, r: 3.0 },
-
-  // West
-  { id: "Gabtoli", lat: 23.7832, lng: 90.3442, r: 3.0 },
-  { id: "Mirpur-1", lat: 23.7956, lng: 90.3537, r: 2.0 },
-  { id: "Mirpur-10", lat: 23.8071, lng: 90.3686, r: 2.5 },
-  { id: "Kallyanpur", lat: 23.7797, lng: 90.3581, r: 1.5 },
-  { id: "Mohammadpur", lat: 23.7594, lng: 90.3583, r: 2.0 },
-
-  // Central
-  { id: "Farmgate", lat: 23.7575, lng: 90.3890, r: 2.5 },
-  { id: "KarwanBazar", lat: 23.7515, lng: 90.3916, r: 1.8 },
-  { id: "Shahbag", lat: 23.7376, lng: 90.3954, r: 2.0 },
-  { id: "NewMarket", lat: 23.7333, lng: 90.3854, r: 1.8 },
-  { id: "Dhanmondi", lat: 23.7465, lng: 90.3760, r: 2.0 },
-
-  // East
-  { id: "Kuril", lat: 23.8103, lng: 90.4125, r: 2.0 },
-  { id: "Badda", lat: 23.7805, lng: 90.4210, r: 2.0 },
-  { id: "Rampura", lat: 23.7615, lng: 90.4203, r: 2.0 },
-  { id: "Malibagh", lat: 23.7486, lng: 90.4114, r: 1.8 },
-
-  // South
-  { id: "Motijheel", lat: 23.7330, lng: 90.4172, r: 3.0 },
-  { id: "Gulistan", lat: 23.7286, lng: 90.4104, r: 3.0 },
-  { id: "Kamalapur", lat: 23.7370, lng: 90.4248, r: 2.0 },
-  { id: "Sayedabad", lat: 23.7099, lng: 90.4287, r: 3.0 },
-  { id: "Jatrabari", lat: 23.7112, lng: 90.4331, r: 3.0 },
-
-  // Peripheral
-  { id: "Savar", lat: 23.8583, lng: 90.2667, r: 4.0 },
-  { id: "Keraniganj", lat: 23.6940, lng: 90.3636, r: 3.0 },
-  { id: "Demra", lat: 23.7223, lng: 90.4760, r: 3.0 }
-];
-;
-
-const BUS_ROUTES = [
-  // Uttara Based
-  { name: "Raida", stops: ["Abdullahpur", "Uttara", "Airport", "Kuril", "Badda", "Rampura", "Jatrabari"] },
-  { name: "Turag", stops: ["Tongi", "Uttara", "Airport", "Kuril", "Badda", "Rampura"] },
-  { name: "Airport Bangabandhu", stops: ["Uttara", "Airport", "Mohakhali", "Farmgate", "Shahbag", "Motijheel"] },
-
-  // Mirpur Based
-  { name: "Bikolpo", stops: ["Mirpur-10", "Mirpur-1", "Kallyanpur", "Farmgate", "Shahbag", "Motijheel"] },
-  { name: "Shikho", stops: ["Mirpur-10", "Farmgate", "Shahbag", "Gulistan"] },
-  { name: "Basumati", stops: ["Gabtoli", "Mirpur-1", "Farmgate", "Shahbag", "Motijheel"] },
-  { name: "Alif", stops: ["Mirpur-10", "Mohakhali", "Kuril"] },
-
-  // Gabtoli Based
-  { name: "8 Number", stops: ["Gabtoli", "Kallyanpur", "Farmgate", "Shahbag", "Jatrabari"] },
-  { name: "Achim Paribahan", stops: ["Gabtoli", "Mirpur-10", "Farmgate", "Shahbag", "Gulistan", "Sayedabad"] },
-
-  // Savar
-  { name: "Thikana", stops: ["Savar", "Gabtoli", "Farmgate", "Motijheel"] },
-  { name: "City Link", stops: ["Savar", "Gabtoli", "Mirpur-10", "Farmgate"] },
-
-  // South Dhaka
-  { name: "Somoy", stops: ["Demra", "Jatrabari", "Gulistan", "Shahbag"] },
-  { name: "Moitree", stops: ["Keraniganj", "Gulistan", "Motijheel"] },
-
-  // BRTC
-  { name: "BRTC Mirpur–Motijheel", stops: ["Mirpur-10", "Farmgate", "Shahbag", "Motijheel"] },
-  { name: "BRTC Gabtoli–Sayedabad", stops: ["Gabtoli", "Farmgate", "Gulistan", "Sayedabad"] }
-];
-
-
 const DHAKA_BOUNDS = L.latLngBounds(L.latLng(23.65, 90.30), L.latLng(23.95, 90.55));
 const routePresetsData = {
   "Uttara → Motijheel": { coords: [[23.8731, 90.3962], [23.7330, 90.4172]] },
@@ -123,15 +51,10 @@ document.addEventListener("DOMContentLoaded", () => {
 
 // --- CORE MAP LOGIC ---
 
-async function handleMapClick(e) {
+// OSRM snaps both end points to the road network when routing, so pins are used as dropped
+function handleMapClick(e) {
   if (!DHAKA_BOUNDS.contains(e.latlng)) { alert("Stay inside Dhaka!"); return; }
-  const tempPopup = L.popup().setLatLng(e.latlng).setContent('Finding nearest road...').openOn(map);
-  try {
-    const snapped = await findNearestMainRoad(e.latlng.lat, e.latlng.lng);
-    map.closePopup();
-    if (!snapped) { alert("No main road found."); return; }
-    setMarker(snapped.lat, snapped.lng);
-  } catch { map.closePopup(); }
+  setMarker(e.latlng.lat, e.latlng.lng);
 }
 
 function setMarker(lat, lng) {
@@ -142,21 +65,6 @@ function setMarker(lat, lng) {
 
 function createMarker(lat, lng, title) { return L.marker([lat, lng]).addTo(map).bindPopup(title).openPopup(); }
 
-async function findNearestMainRoad(lat, lng) {
-  const query = `[out:json];way(around:600,${lat},${lng})["highway"~"^(trunk|primary|secondary|tertiary)$"];out geom;`;
-  try {
-    const r = await fetch(`https://overpass-api.de/api/interpreter?data=${encodeURIComponent(query)}`);
-    const d = await r.json();
-    if (!d.elements.length) return null;
-    let min=Infinity, pt=null;
-    d.elements.forEach(el => el.geometry?.forEach(p => {
-      let dst = getDistance(lat, lng, p.lat, p.lon);
-      if(dst<min){ min=dst; pt={lat:p.lat, lng:p.lon}; }
-    }));
-    return pt;
-  } catch { return {lat,lng}; }
-}
-
 // --- RENDERING UI & ROUTING ---
 async function updateRouteIfReady() {
   if (!fromMarker || !toMarker) return;
@@ -166,14 +74,14 @@ async function updateRouteIfReady() {
   if(breakdownEl) breakdownEl.textContent = "Calculating best route...";
 
   try {
-    const rData = await fetchRouteData(from, to);
-    drawRoutePreview(rData.coords);
-    
-    const busFare = calcBusFare(rData.distanceKm);
-    const metroInfo = calcMetro(from, to);
-    const busList = findSuggestedBuses(from.lat, from.lng, to.lat, to.lng);
+    const quote = await fetchFareQuote(from, to);
+    drawRoutePreview(quote.route.length ? quote.route : [[from.lat, from.lng], [to.lat, to.lng]]);
+
+    const busFare = quote.bus_fare;
+    const metroInfo = quote.metro;
+    const busList = quote.buses;
     const distEl = document.getElementById("distanceLabel");
-    if(distEl) distEl.textContent = rData.distanceKm.toFixed(1) + " km";
+    if(distEl) distEl.textContent = quote.distance_km.toFixed(1) + " km";
 
     // --- Update UI using CSS classes instead of inline styles ---
     // Update bus fare value
@@ -187,14 +95,20 @@ async function updateRouteIfReady() {
     if (busList.length > 0) {
       const tagsHtml = busList.map(bus => `<span class="bus-tag">🚌 ${bus}</span>`).join("");
       recommendedHtml = `<div class="recommended-label">Recommended Buses</div><div class="bus-tags">${tagsHtml}</div>`;
+    } else if (quote.transfers && quote.transfers.length > 0) {
+      const tagsHtml = quote.transfers.map(t => `<span class="bus-tag">🚌 ${t}</span>`).join("");
+      recommendedHtml = `<div class="recommended-label">With One Change</div><div class="bus-tags">${tagsHtml}</div>`;
     } else {
       recommendedHtml = `<span class="no-bus-msg">Check local counters (No direct database match)</span>`;
     }
 
     // Prepare metro rail section HTML
     let metroHtmlSection = "";
+    metroLayerGroup.clearLayers();
     if (metroInfo.available) {
-      metroHtmlSection = `<div class="metro-section"><div class="metro-header"><div class="metro-title">🚇 Metro Rail</div><div class="metro-fare">${metroInfo.fare} ৳</div></div><div class="metro-details">${metroInfo.details}</div></div>`;
+      drawMetroNetwork();
+      const details = `Walk to <b>${metroInfo.from_station}</b> → Ride to <b>${metroInfo.to_station}</b>`;
+      metroHtmlSection = `<div class="metro-section"><div class="metro-header"><div class="metro-title">🚇 Metro Rail</div><div class="metro-fare">${metroInfo.fare} ৳</div></div><div class="metro-details">${details}</div></div>`;
     }
 
     // Inject into breakdown container
@@ -208,51 +122,11 @@ async function updateRouteIfReady() {
 
 // --- HELPER LOGIC ---
 
-function findSuggestedBuses(startLat, startLng, endLat, endLng) {
-  const startHub = BUS_HUBS.find(h => getDistance(startLat, startLng, h.lat, h.lng) <= h.r);
-  const endHub = BUS_HUBS.find(h => getDistance(endLat, endLng, h.lat, h.lng) <= h.r);
-  
-  if (!startHub || !endHub) return []; 
-  if (startHub.id === endHub.id && getDistance(startLat, startLng, endLat, endLng) < 3) return [];
-
-  const matches = BUS_ROUTES.filter(bus => bus.stops.includes(startHub.id) && bus.stops.includes(endHub.id));
-  return matches.map(b => b.name);
-}
-
-function getDistance(lat1, lon1, lat2, lon2) {
-  const R=6371, dLat=(lat2-lat1)*Math.PI/180, dLon=(lon2-lon1)*Math.PI/180;
-  const a=Math.sin(dLat/2)**2 + Math.cos(lat1*Math.PI/180)*Math.cos(lat2*Math.PI/180)*Math.sin(dLon/2)**2;
-  return R*2*Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-}
-
-async function fetchRouteData(f, t) {
-  const u = `https://router.project-osrm.org/route/v1/driving/${f.lng},${f.lat};${t.lng},${t.lat}?overview=full&geometries=geojson`;
-  const d = await (await fetch(u)).json();
-  return { distanceKm: d.routes[0].distance/1000, coords: d.routes[0].geometry.coordinates.map(([x,y])=>[y,x]) };
-}
-
-function calcBusFare(km) { return Math.ceil(Math.max(10, km*2.45)/5)*5; }
-
-function calcMetro(f, t) {
-  const getSt = p => {
-    let m={d:Infinity, s:null}; metroStations.forEach(s=>{ let d=getDistance(p.lat,p.lng,s.lat,s.lng); if(d<m.d) m={d,s}; });
-    return m;
-  };
-  const s1=getSt(f), s2=getSt(t);
-
-  if (s1.d > 2.0 || s2.d > 2.0 || s1.s.name === s2.s.name) {
-    metroLayerGroup.clearLayers(); 
-    return { available: false };
-  }
-
-  metroLayerGroup.clearLayers(); 
-  drawMetroNetwork(); 
-
-  const idx1 = metroStations.indexOf(s1.s), idx2 = metroStations.indexOf(s2.s);
-  let fare = 20 + Math.abs(idx1-idx2)*5; 
-  if(fare>100) fare=100;
-
-  return { available:true, fare, details: `Walk to <b>${s1.s.name}</b> → Ride to <b>${s2.s.name}</b>` };
+async function fetchFareQuote(f, t) {
+  const params = new URLSearchParams({ from: `${f.lat},${f.lng}`, to: `${t.lat},${t.lng}` });
+  const r = await fetch(`/api/fare?${params}`);
+  if (!r.ok) throw new Error(`Fare request failed: ${r.status}`);
+  return r.json();
 }
 
 // --- VISUALIZATION (With Animation) ---
@@ -71,6 +71,7 @@ async function loadIssues() {
         statusUpdated: c.status || "",
         description: c.description || "",
         reactions: { support: 0, angry: 0, watch: 0 },
+        views: 0,
         comments: [],
       };
     });
@@ -80,6 +81,38 @@ async function loadIssues() {
   }
 }
 
+// Fill in the reaction counters of the loaded issues, 200 ids per request
+async function loadReactions() {
+  const byId = new Map(issues.map((issue) => [issue.id, issue]));
+  const ids = [...byId.keys()].filter((id) => id != null);
+  for (let i = 0; i < ids.length; i += 200) {
+    try {
+      const resp = await fetch(`/api/complaints/reactions?ids=${ids.slice(i, i + 200).join(",")}`);
+      if (!resp.ok) continue;
+      (await resp.json()).forEach((counts) => applyCounts(byId.get(counts.complaint_id), counts));
+    } catch (err) {
+      console.error("Error fetching reactions", err);
+    }
+  }
+}
+
+function applyCounts(issue, counts) {
+  if (!issue || !counts) return;
+  issue.reactions = { support: counts.support, angry: counts.angry, watch: counts.watch };
+  issue.views = counts.views;
+}
+
+// Count a reaction or view; resolves to the complaint's counters, or null
+async function postCount(issue, path) {
+  try {
+    const resp = await fetch(`/api/complaints/${issue.id}/${path}`, { method: "POST" });
+    return resp.ok ? await resp.json() : null;
+  } catch (err) {
+    console.error("Error counting", path, err);
+    return null;
+  }
+}
+
 // State
 let currentFilter = "all";
 let currentSort = "recent";
@@ -87,6 +120,7 @@ let currentSort = "recent";
 document.addEventListener("DOMContentLoaded", async () => {
   // Load issues from backend first
   await loadIssues();
+  await loadReactions();
   // Initial Render
   applyFilterAndSort();
 
@@ -249,11 +283,18 @@ function renderFeed(data) {
     // 1. Reaction Logic
     const reactionButtons = card.querySelectorAll(".reaction-btn");
     reactionButtons.forEach((btn) => {
-      btn.addEventListener("click", () => {
+      btn.addEventListener("click", async () => {
         const type = btn.dataset.type;
         issue.reactions[type]++;
         btn.querySelector(".count").textContent = issue.reactions[type];
         // Note: Real sorting won't update until you re-click sort button
+        const counts = await postCount(issue, `reactions/${type}`);
+        if (counts) {
+          applyCounts(issue, counts);
+          reactionButtons.forEach((b) => {
+            b.querySelector(".count").textContent = issue.reactions[b.dataset.type];
+          });
+        }
       });
     });
 
@@ -262,6 +303,11 @@ function renderFeed(data) {
     const commentsContainer = card.querySelector(".comments-container");
     toggle.addEventListener("click", () => {
       commentsContainer.classList.toggle("open");
+      // opening the discussion counts as a view, once per page load
+      if (commentsContainer.classList.contains("open") && !issue.viewed) {
+        issue.viewed = true;
+        postCount(issue, "views").then((counts) => applyCounts(issue, counts));
+      }
     });
 
     // 3. Comment Submit
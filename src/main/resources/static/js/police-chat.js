@@ -1,80 +1,156 @@
 // police-chat.js - Modernized Logic
 
 // --- DATA ---
-const channels = [
-  {
-    id: "fraud",
-    name: "Fare & Fraud Cell",
-    type: "Team",
-    description: "Handles overcharging, fake tickets & fare scams.",
-    members: ["Officer Rahim", "Officer Nabila", "Officer Hasan"],
-    unread: 2
-  },
-  {
-    id: "traffic",
-    name: "Traffic Enforcement",
-    type: "Team",
-    description: "Reckless driving, speeding and road-safety issues.",
-    members: ["Officer Karim", "Officer Biplob"],
-    unread: 0
-  },
-  {
-    id: "women",
-    name: "Women & Child Safety",
-    type: "Team",
-    description: "Harassment & gender-based safety cases.",
-    members: ["Officer Asma", "Officer Tania"],
-    unread: 5
-  },
-  {
-    id: "control",
-    name: "Central Control Room",
-    type: "Broadcast",
-    description: "Emergency coordination and routing.",
-    members: ["Duty Officer", "SOS Monitor"],
-    unread: 0
-  },
-];
-
-const channelMessages = {
-  fraud: [
-    { from: "Officer Rahim", me: false, text: "We have repeated fare complaints on Raida bus DHA-15-9988.", time: "09:20 AM" },
-    { from: "Me", me: true, text: "Copy. I’ll request GPS and ticket logs for the last 3 days.", time: "09:22 AM" },
-  ],
-  traffic: [
-    { from: "Officer Karim", me: false, text: "Reckless driving on Jatrabari flyover yesterday, case #53.", time: "06:45 PM" },
-  ],
-  women: [
-    { from: "Officer Asma", me: false, text: "Farmgate harassment case, need CCTV tags by tonight.", time: "02:10 PM" },
-  ],
-  control: [
-    { from: "Duty Officer", me: false, text: "New SOS alert from Mirpur-10, sending details.", time: "09:30 PM" },
-  ],
-};
-
-let cases = [
-  { id: 42, category: "Fare Dispute", status: "open", thana: "Uttara East", bus: "Asmani (DHA-12-3456)", assignedTo: "None" },
-  { id: 37, category: "Harassment", status: "progress", thana: "Tejgaon", bus: "Raida (DHA-15-9988)", assignedTo: "Women & Child Safety" },
-  { id: 53, category: "Reckless Driving", status: "resolved", thana: "Jatrabari", bus: "City Link (DHA-17-2211)", assignedTo: "Traffic Enforcement" },
-  { id: 61, category: "Fare Dispute", status: "open", thana: "Mohammadpur", bus: "Shyamoli (DHA-19-4432)", assignedTo: "None" },
-];
+// Channels, history and live messages come from the backend chat
+// (/api/chat and the /ws/chat WebSocket); cases are open complaints.
+let channels = [];
+const channelMessages = {};
+let cases = [];
+
+const token = localStorage.getItem("token");
+let currentUser = null;
+try {
+  currentUser = JSON.parse(localStorage.getItem("currentUser"));
+} catch (_) {}
+const myEmail = currentUser ? currentUser.email : null;
 
 // --- STATE ---
 let currentChannelId = null;
-let pendingImageDataUrl = null;
+let pendingImageFile = null;
+let socket = null;
 
 // --- INIT ---
-document.addEventListener("DOMContentLoaded", () => {
-  renderChannels();
-  renderCaseList();
-  
-  if (channels.length > 0) {
-    switchChannel(channels[0].id);
-  }
-  
+document.addEventListener("DOMContentLoaded", async () => {
   attachInputHandlers();
+  connectSocket();
+  try {
+    await loadChannels();
+    renderChannels();
+    if (channels.length > 0) {
+      await switchChannel(channels[0].id);
+    }
+  } catch (e) {
+    console.error("Failed to load chat", e);
+  }
+  loadCases();
 });
 
+// --- BACKEND ---
+async function api(path, options = {}) {
+  const resp = await fetch(path, {
+    ...options,
+    headers: {
+      ...(options.body ? { "Content-Type": "application/json" } : {}),
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+    },
+  });
+  const data = await resp.json().catch(() => ({}));
+  if (!resp.ok) {
+    throw new Error(data.error || `Request failed (${resp.status})`);
+  }
+  return data;
+}
+
+function toChannel(c) {
+  const old = channels.find(x => x.id === c.id);
+  return {
+    id: c.id,
+    name: c.name,
+    type: c.type,
+    description: c.description || "",
+    members: c.members || [],
+    unread: old ? old.unread : 0,
+  };
+}
+
+function toMessage(m) {
+  return {
+    seq: m.seq,
+    from: m.sender_name || m.sender,
+    me: m.sender === myEmail,
+    text: m.text || "",
+    time: new Date(m.created_at).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' }),
+    imageDataUrl: m.image_url,
+    caseId: m.case_id,
+    caseTagType: m.case_tag,
+  };
+}
+
+async function loadChannels() {
+  const data = await api("/api/chat/channels");
+  channels = data.map(toChannel);
+}
+
+async function loadHistory(id) {
+  const ch = channels.find(c => c.id === id);
+  if (ch && myEmail && !ch.members.includes(myEmail)) {
+    Object.assign(ch, toChannel(await api(`/api/chat/channels/${id}/members`, { method: "POST" })));
+  }
+  const data = await api(`/api/chat/channels/${id}/messages?limit=100`);
+  channelMessages[id] = data.map(toMessage);
+}
+
+function connectSocket() {
+  if (!token) return;
+  const scheme = location.protocol === "https:" ? "wss" : "ws";
+  const name = currentUser && currentUser.name ? `&name=${encodeURIComponent(currentUser.name)}` : "";
+  socket = new WebSocket(`${scheme}://${location.host}/ws/chat?token=${encodeURIComponent(token)}${name}`);
+  const ping = setInterval(() => {
+    if (socket.readyState === WebSocket.OPEN) socket.send(JSON.stringify({ type: "ping" }));
+  }, 30000);
+
+  socket.onmessage = (event) => {
+    const frame = JSON.parse(event.data);
+    if (frame.type === "message") {
+      receiveMessage(frame.message);
+    } else if (frame.type === "members") {
+      const i = channels.findIndex(c => c.id === frame.channel.id);
+      if (i >= 0) channels[i] = toChannel(frame.channel);
+      renderChannels();
+    } else if (frame.type === "error") {
+      alert(frame.error);
+    }
+  };
+  socket.onclose = () => {
+    clearInterval(ping);
+    // reconnect and reload the open channel to pick up anything missed
+    setTimeout(async () => {
+      connectSocket();
+      if (currentChannelId) {
+        await loadHistory(currentChannelId).catch(() => {});
+        renderMessages();
+      }
+    }, 3000);
+  };
+}
+
+function receiveMessage(m) {
+  const list = channelMessages[m.channel_id];
+  if (list) {
+    if (list.length && list[list.length - 1].seq >= m.seq) return;
+    list.push(toMessage(m));
+  }
+  if (m.channel_id === currentChannelId) {
+    renderMessages();
+  } else {
+    const ch = channels.find(c => c.id === m.channel_id);
+    if (ch) ch.unread++;
+    renderChannels();
+  }
+}
+
+async function uploadImage(file) {
+  const form = new FormData();
+  form.append("file", file);
+  const resp = await fetch("/api/uploads/image", {
+    method: "POST",
+    headers: token ? { Authorization: `Bearer ${token}` } : {},
+    body: form,
+  });
+  if (!resp.ok) throw new Error("Image upload failed");
+  return (await resp.json()).url;
+}
+
 // --- CHANNELS ---
 function renderChannels() {
   const list = document.getElementById("channelList");
@@ -101,10 +177,18 @@ function renderChannels() {
   });
 }
 
-function switchChannel(id) {
+async function switchChannel(id) {
   currentChannelId = id;
   const ch = channels.find(c => c.id === id);
   if (!ch) return;
+  ch.unread = 0;
+  if (!channelMessages[id]) {
+    try {
+      await loadHistory(id);
+    } catch (e) {
+      alert(e.message);
+    }
+  }
 
   // Update Header
   document.getElementById("currentChannelName").textContent = "# " + ch.name;
@@ -179,50 +263,88 @@ function attachInputHandlers() {
     }
   });
 
-  sendBtn.addEventListener("click", sendMessage);
+  sendBtn.addEventListener("click", () => sendMessage());
 
   if (imgInput) {
     imgInput.addEventListener("change", (e) => {
       const file = e.target.files[0];
       if (file) {
-        const reader = new FileReader();
-        reader.onload = (ev) => {
-          pendingImageDataUrl = ev.target.result;
-          input.placeholder = "Image attached. Type caption or press send...";
-          input.focus();
-        };
-        reader.readAsDataURL(file);
+        pendingImageFile = file;
+        input.placeholder = "Image attached. Type caption or press send...";
+        input.focus();
       }
     });
   }
 }
 
-function sendMessage(extra = {}) {
+async function sendMessage(extra = {}) {
   const input = document.getElementById("chatInput");
   const text = input.value.trim();
 
-  if (!text && !pendingImageDataUrl && !extra.text) return;
-
-  const msg = {
-    from: "Me",
-    me: true,
-    text: text || extra.text || "",
-    time: new Date().toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' }),
-    imageDataUrl: pendingImageDataUrl,
-    ...extra
-  };
+  if (!currentChannelId || (!text && !pendingImageFile && !extra.text)) return;
+  if (!socket || socket.readyState !== WebSocket.OPEN) {
+    alert("Chat is not connected. Please sign in as police and retry.");
+    return;
+  }
 
-  if (!channelMessages[currentChannelId]) channelMessages[currentChannelId] = [];
-  channelMessages[currentChannelId].push(msg);
+  let imageUrl = null;
+  if (pendingImageFile) {
+    try {
+      imageUrl = await uploadImage(pendingImageFile);
+    } catch (e) {
+      alert(e.message);
+      return;
+    }
+  }
 
-  // Reset
+  socket.send(JSON.stringify({
+    type: "send",
+    message: {
+      channel_id: currentChannelId,
+      text: text || extra.text || "",
+      image_url: imageUrl,
+      case_id: extra.caseId,
+      case_tag: extra.caseTagType,
+    },
+  }));
+
+  // Reset; the message appears once the server delivers it back
   input.value = "";
   input.placeholder = "Type a message...";
-  pendingImageDataUrl = null;
-  renderMessages();
+  pendingImageFile = null;
 }
 
 // --- CASES PANEL ---
+const CASE_STATUS = { new: "open", working: "progress", resolved: "resolved" };
+
+async function loadCases() {
+  try {
+    const data = await api("/api/complaints?limit=50");
+    cases = data
+      .filter(c => CASE_STATUS[c.status || "new"] && c.status !== "resolved")
+      .slice(0, 20)
+      .map(c => ({
+        id: c.id,
+        category: c.category || "Complaint",
+        status: CASE_STATUS[c.status || "new"],
+        thana: c.thana || "-",
+        bus: `${c.bus_name || "-"}${c.bus_number ? ` (${c.bus_number})` : ""}`,
+      }));
+  } catch (e) {
+    console.error("Failed to load cases", e);
+    cases = [];
+  }
+  renderCaseList();
+}
+
+// Move the complaint along as well, so the manage page shows the same status
+function updateCaseStatus(id, status) {
+  return api(`/api/complaints/${id}/status`, {
+    method: "PATCH",
+    body: JSON.stringify({ status }),
+  }).catch(e => console.error("Failed to update case", e));
+}
+
 function renderCaseList() {
   const list = document.getElementById("caseList");
   if (!list) return;
@@ -253,6 +375,7 @@ function assignCase(id) {
   const c = cases.find(x => x.id === id);
   if (!c) return;
   c.status = "progress";
+  updateCaseStatus(id, "working");
   sendMessage({ 
     text: `Taking ownership of Case #${id}`,
     caseId: id,
@@ -265,6 +388,7 @@ function resolveCase(id) {
   const c = cases.find(x => x.id === id);
   if (!c) return;
   c.status = "resolved";
+  updateCaseStatus(id, "resolved");
   sendMessage({ 
     text: `Case #${id} has been resolved.`,
     caseId: id,
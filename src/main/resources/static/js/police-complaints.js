@@ -14,17 +14,7 @@ async function loadComplaints() {
     });
     const data = await resp.json();
     if (resp.ok) {
-      // Map Supabase keys to camelCase expected by UI
-      complaintsData = data.map((c) => {
-        return {
-          ...c,
-          busName: c.bus_name ?? c.busName ?? "",
-          busNumber: c.bus_number ?? c.busNumber ?? "",
-          imageUrl: c.image_url ?? c.imageUrl ?? "",
-          reporterType: c.reporter_type ?? c.reporterType ?? "",
-          createdAt: c.created_at ?? c.createdAt ?? "",
-        };
-      });
+      complaintsData = data.map(toUiComplaint);
     } else {
       console.error("Failed to load complaints", data);
       complaintsData = [];
@@ -35,6 +25,45 @@ async function loadComplaints() {
   }
 }
 
+// Map Supabase keys to camelCase expected by UI
+function toUiComplaint(c) {
+  return {
+    ...c,
+    busName: c.bus_name ?? c.busName ?? "",
+    busNumber: c.bus_number ?? c.busNumber ?? "",
+    imageUrl: c.image_url ?? c.imageUrl ?? "",
+    reporterType: c.reporter_type ?? c.reporterType ?? "",
+    createdAt: c.created_at ?? c.createdAt ?? "",
+    duplicateOf: c.duplicate_of ?? c.duplicateOf ?? null,
+  };
+}
+
+// Text search runs on the server index over every complaint, not only the loaded page
+let searchResults = null;
+let searchTimer = null;
+
+function scheduleSearch() {
+  clearTimeout(searchTimer);
+  if (!searchQuery.trim()) {
+    searchResults = null;
+    renderComplaints();
+    return;
+  }
+  searchTimer = setTimeout(async () => {
+    const query = searchQuery;
+    try {
+      const resp = await fetch(`/api/complaints/search?${new URLSearchParams({ q: query, limit: 200 })}`);
+      const data = await resp.json();
+      if (query !== searchQuery) return;
+      searchResults = resp.ok ? data.hits.map((h) => toUiComplaint(h.complaint)) : [];
+    } catch (err) {
+      console.error("Search failed:", err);
+      searchResults = [];
+    }
+    renderComplaints();
+  }, 200);
+}
+
 // ===== State =====
 let selectedThana = "all";
 let selectedStatus = "all";
@@ -57,7 +86,7 @@ function initFilters() {
   if (searchInput) {
     searchInput.addEventListener("input", (e) => {
       searchQuery = e.target.value.toLowerCase();
-      renderComplaints();
+      scheduleSearch();
     });
   }
 
@@ -81,9 +110,19 @@ function renderComplaints() {
   const container = document.getElementById("policeComplaintsList");
   if (!container) return;
 
+  // Duplicates of a complaint on the page are folded into its card
+  const source = searchResults ?? complaintsData;
+  const shown = new Set(source.map(c => c.id));
+  const duplicateCounts = {};
+  source.forEach(c => {
+    if (c.duplicateOf && shown.has(c.duplicateOf)) {
+      duplicateCounts[c.duplicateOf] = (duplicateCounts[c.duplicateOf] || 0) + 1;
+    }
+  });
+
   // Filter Data
-  const filtered = complaintsData.filter(c => {
-    const matchesSearch = 
+  const filtered = source.filter(c => !(c.duplicateOf && shown.has(c.duplicateOf))).filter(c => {
+    const matchesSearch = searchResults !== null ||
       c.busName.toLowerCase().includes(searchQuery) || 
       c.busNumber.toLowerCase().includes(searchQuery) ||
       String(c.id).includes(searchQuery);
@@ -119,7 +158,7 @@ function renderComplaints() {
       <div class="complaint-content">
         <div class="complaint-row-top">
           <div>
-            <div class="complaint-id">#${c.id} · ${c.category}</div>
+            <div class="complaint-id">#${c.id} · ${c.category}${duplicateCounts[c.id] ? ` · +${duplicateCounts[c.id]} similar` : ""}${c.duplicateOf && !shown.has(c.duplicateOf) ? ` · repeats #${c.duplicateOf}` : ""}</div>
             <div class="complaint-bus">${c.busName} (${c.busNumber})</div>
           </div>
           <span class="status-badge status-${c.status.toLowerCase()}">${formatStatus(c.status)}</span>
@@ -188,7 +227,7 @@ function renderHotspots() {
     item.onclick = () => {
         document.getElementById("searchInput").value = bus.num;
         searchQuery = bus.num.toLowerCase();
-        renderComplaints();
+        scheduleSearch();
     };
 
     item.innerHTML = `
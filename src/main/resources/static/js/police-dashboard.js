@@ -24,38 +24,8 @@ async function fetchPoliceData() {
     });
     const cData = await cResp.json();
     if (cResp.ok) {
-      policeComplaints = cData.map((c) => {
-        // Normalize keys
-        const status = (c.status || "").toLowerCase();
-        const type = c.category || "Other";
-        // Derive priority based on status or category
-        let priority = "medium";
-        const catLower = (type || "").toLowerCase();
-        if (status === "in-progress" || catLower.includes("harass")) priority = "high";
-        else if (status === "pending" || status === "new") priority = "medium";
-        else if (status === "resolved") priority = "low";
-        return {
-          id: c.id,
-          type,
-          description: c.description || "",
-          status,
-          priority,
-          thana: c.thana || "",
-          route: c.route || "",
-          created_at: c.created_at || c.createdAt || "",
-        };
-      });
-      // Compute stats
-      const stats = { new_cases: 0, in_progress: 0, resolved: 0, fake_cases: 0 };
-      policeComplaints.forEach((c) => {
-        const st = c.status;
-        if (st === "new" || st === "pending") stats.new_cases++;
-        else if (st === "in-progress" || st === "working") stats.in_progress++;
-        else if (st === "resolved" || st === "closed") stats.resolved++;
-        else if (st === "fake") stats.fake_cases++;
-        else stats.new_cases++;
-      });
-      policeStats = stats;
+      policeComplaints = cData.map(toPoliceComplaint);
+      policeStats = computePoliceStats(policeComplaints);
     } else {
       console.error("Failed to load complaints", cData);
       policeComplaints = [];
@@ -68,22 +38,7 @@ async function fetchPoliceData() {
     });
     const eData = await eResp.json();
     if (eResp.ok) {
-      emergencyAlerts = eData.map((e) => {
-        const time = e.created_at || e.createdAt || new Date().toISOString();
-        // Determine level by accuracy or always high
-        let level = "medium";
-        if (e.accuracy && e.accuracy <= 10) level = "critical";
-        else if (e.accuracy && e.accuracy <= 50) level = "high";
-        else level = "medium";
-        const loc = (e.latitude && e.longitude) ? `Lat ${e.latitude.toFixed(4)}, Lng ${e.longitude.toFixed(4)}` : "Unknown location";
-        return {
-          id: e.id,
-          location: loc,
-          time,
-          level,
-          note: e.description || "SOS triggered",
-        };
-      });
+      emergencyAlerts = eData.map(toEmergencyAlert);
     } else {
       console.error("Failed to load emergencies", eData);
       emergencyAlerts = [];
@@ -96,6 +51,79 @@ async function fetchPoliceData() {
   }
 }
 
+// Normalize a complaint row from the backend for the queue
+function toPoliceComplaint(c) {
+  const status = (c.status || "").toLowerCase();
+  const type = c.category || "Other";
+  // Derive priority based on status or category
+  let priority = "medium";
+  const catLower = (type || "").toLowerCase();
+  if (status === "in-progress" || catLower.includes("harass")) priority = "high";
+  else if (status === "pending" || status === "new") priority = "medium";
+  else if (status === "resolved") priority = "low";
+  return {
+    id: c.id,
+    type,
+    description: c.description || "",
+    status,
+    priority,
+    thana: c.thana || "",
+    route: c.route || "",
+    created_at: c.created_at || c.createdAt || "",
+  };
+}
+
+function computePoliceStats(complaints) {
+  const stats = { new_cases: 0, in_progress: 0, resolved: 0, fake_cases: 0 };
+  complaints.forEach((c) => {
+    const st = c.status;
+    if (st === "new" || st === "pending") stats.new_cases++;
+    else if (st === "in-progress" || st === "working") stats.in_progress++;
+    else if (st === "resolved" || st === "closed") stats.resolved++;
+    else if (st === "fake") stats.fake_cases++;
+    else stats.new_cases++;
+  });
+  return stats;
+}
+
+// Normalize an emergency report row from the backend for the alert list
+function toEmergencyAlert(e) {
+  const time = e.created_at || e.createdAt || new Date().toISOString();
+  // Determine level by accuracy or always high
+  let level = "medium";
+  if (e.accuracy && e.accuracy <= 10) level = "critical";
+  else if (e.accuracy && e.accuracy <= 50) level = "high";
+  else level = "medium";
+  const loc = (e.latitude && e.longitude) ? `Lat ${e.latitude.toFixed(4)}, Lng ${e.longitude.toFixed(4)}` : "Unknown location";
+  return {
+    id: e.id,
+    location: loc,
+    time,
+    level,
+    note: e.description || "SOS triggered",
+  };
+}
+
+// Receive new complaints and SOS alerts as they are created instead of re-fetching
+function subscribeToAlerts() {
+  const token = localStorage.getItem("token");
+  if (typeof EventSource === "undefined" || !token) return;
+  // EventSource cannot send an Authorization header, so the token goes in the query
+  const source = new EventSource(`/api/alerts/stream?token=${encodeURIComponent(token)}`);
+  source.addEventListener("complaint", (ev) => {
+    policeComplaints.unshift(toPoliceComplaint(JSON.parse(ev.data)));
+    policeStats = computePoliceStats(policeComplaints);
+    renderPoliceStats();
+    const filter = document.getElementById("queueStatusFilter");
+    renderComplaintsQueue(filter ? filter.value : "all");
+    renderHotspots();
+  });
+  source.addEventListener("emergency", (ev) => {
+    emergencyAlerts.unshift(toEmergencyAlert(JSON.parse(ev.data)));
+    renderEmergencyAlerts();
+  });
+}
+
 // =========================================
 // 2. INITIALIZATION
 // =========================================
@@ -109,6 +137,8 @@ document.addEventListener("DOMContentLoaded", async () => {
   renderCategoryChart();
   renderComplaintsQueue("all");
   renderEmergencyAlerts();
+  subscribeToAlerts();
+  renderHotspots();
   // Heatmap requires geographic data; only init if we have lat/lon values
   //initHeatmap();
   //computeForecast();
@@ -304,27 +334,30 @@ function initHeatmap() {
   renderHotspots();
 }
 
-function renderHotspots() {
+// Top hotspots are ranked on the server from in-memory counters over the last 24 h
+async function renderHotspots() {
   const list = document.getElementById("heatHotspotList");
   if (!list) return;
-  
-  // Sort by count descending
-  const topSpots = [...incidentPoints].sort((a,b) => b.count - a.count).slice(0, 3);
 
+  let topSpots = [];
+  try {
+    const resp = await fetch("/api/complaints/hotspots?limit=3");
+    if (resp.ok) topSpots = await resp.json();
+  } catch (err) {
+    console.error("Failed to load hotspots", err);
+  }
+
+  list.innerHTML = "";
   topSpots.forEach(p => {
     const item = document.createElement("div");
     item.className = "hotspot-item";
     item.innerHTML = `
       <div>
         <div style="font-weight:600;">${p.thana}</div>
-        <div style="font-size:11px; color:#64748B;">${p.type}</div>
+        <div style="font-size:11px; color:#64748B;">${p.category}</div>
       </div>
       <div style="font-weight:700; color:#EF4444;">${p.count}</div>
     `;
-    // Click to zoom
-    item.addEventListener("click", () => {
-      if(heatMapLeaflet) heatMapLeaflet.setView([p.lat, p.lng], 14);
-    });
     list.appendChild(item);
   });
 }
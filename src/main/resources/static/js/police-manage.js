@@ -6,6 +6,7 @@ const tbody = document.getElementById("reportsTbody");
 const searchInput = document.getElementById("searchInput");
 const statusFilter = document.getElementById("statusFilter");
 const refreshBtn = document.getElementById("refreshBtn");
+const saveAllBtn = document.getElementById("saveAllBtn");
 
 const modal = document.getElementById("modal");
 const modalClose = document.getElementById("modalClose");
@@ -108,6 +109,15 @@ function renderTable() {
   });
 }
 
+// Status updates are police only, so send the officer's token
+function authHeaders() {
+  const token = localStorage.getItem("token");
+  return {
+    "Content-Type": "application/json",
+    ...(token ? { Authorization: `Bearer ${token}` } : {}),
+  };
+}
+
 async function updateStatus(id, status, note = null) {
   const payload = { status };
   // note is optional (requires SQL extra columns + backend support)
@@ -115,7 +125,7 @@ async function updateStatus(id, status, note = null) {
 
   const resp = await fetch(`/api/complaints/${id}/status`, {
     method: "PATCH",
-    headers: { "Content-Type": "application/json" },
+    headers: authHeaders(),
     body: JSON.stringify(payload)
   });
 
@@ -125,6 +135,37 @@ async function updateStatus(id, status, note = null) {
   }
 }
 
+// Send every row whose status select was changed in one request
+async function saveAllChanges() {
+  const updates = [];
+  document.querySelectorAll(".statusSelect").forEach(sel => {
+    const id = Number(sel.dataset.id);
+    const c = allComplaints.find(x => x.id === id);
+    if (c && c.status !== sel.value) {
+      updates.push({ id, status: sel.value });
+    }
+  });
+  if (!updates.length) {
+    alert("No status changes to save.");
+    return;
+  }
+
+  const resp = await fetch("/api/complaints/status:batch", {
+    method: "POST",
+    headers: authHeaders(),
+    body: JSON.stringify(updates)
+  });
+  const data = await resp.json().catch(() => []);
+  if (!resp.ok) {
+    throw new Error(typeof data === "string" ? data : JSON.stringify(data));
+  }
+  const failed = data.filter(r => r.result !== "updated");
+  if (failed.length) {
+    alert(`${data.length - failed.length} updated, ${failed.length} not updated:\n` +
+      failed.map(r => `#${r.id ?? "?"}: ${r.error || r.result}`).join("\n"));
+  }
+}
+
 function openModal(id) {
   selectedComplaint = allComplaints.find(c => c.id === id);
   if (!selectedComplaint) return;
@@ -162,6 +203,10 @@ async function reload() {
 searchInput.addEventListener("input", renderTable);
 statusFilter.addEventListener("change", renderTable);
 refreshBtn.addEventListener("click", reload);
+saveAllBtn.addEventListener("click", async () => {
+  await saveAllChanges();
+  await reload();
+});
 
 modalClose.addEventListener("click", closeModal);
 modal.addEventListener("click", (e) => { if (e.target === modal) closeModal(); });
@@ -110,6 +110,31 @@ document.addEventListener("DOMContentLoaded", () => {
 
     // Prepare payload for backend
     const token = localStorage.getItem("token");
+
+    // Upload the photo first so the complaint can reference its URL
+    let imageUrl = null;
+    const imageFile = reportImageInput.files[0];
+    if (imageFile) {
+      try {
+        const upload = new FormData();
+        upload.append("file", imageFile);
+        const uploadResp = await fetch("/api/uploads/image", {
+          method: "POST",
+          headers: token ? { Authorization: `Bearer ${token}` } : {},
+          body: upload,
+        });
+        const uploaded = await uploadResp.json();
+        if (!uploadResp.ok) {
+          alert(uploaded.error || "Could not upload the photo. Please try again.");
+          return;
+        }
+        imageUrl = uploaded.url;
+      } catch (err) {
+        console.error(err);
+        alert("Could not upload the photo. Please try again.");
+        return;
+      }
+    }
     const payload = {
       category: report.incidentType,
       status: "new", // new complaint
@@ -128,7 +153,7 @@ document.addEventListener("DOMContentLoaded", () => {
       latitude: report.latitude,
       longitude: report.longitude,
       accuracy: report.accuracy,
-      imageUrl: null, // You could upload image separately and store URL
+      imageUrl: imageUrl,
       createdAt: report.createdAt,
     };
     try {
@@ -8,7 +8,6 @@ signupForm.addEventListener("submit", async (event) => {
   const password = signupForm.password.value.trim();
   const confirmPassword = signupForm.confirmPassword.value.trim();
   const termsChecked = signupForm.terms.checked;
-  const accountTypeEl = signupForm.querySelector("input[name='accountType']:checked");
 
   // 1. Check required fields
   if (!name || !email || !password || !confirmPassword) {
@@ -34,12 +33,7 @@ signupForm.addEventListener("submit", async (event) => {
     return;
   }
 
-  if (!accountTypeEl) {
-    alert("Please select whether you are signing up as User or Police.");
-    return;
-  }
-
-  // Submit to backend
+  // Submit to backend (signup only creates user accounts; police accounts are set by an administrator)
   try {
     const resp = await fetch("/api/auth/signup", {
       method: "POST",
@@ -50,7 +44,6 @@ signupForm.addEventListener("submit", async (event) => {
         name,
         email,
         password,
-        role: accountTypeEl.value
       }),
     });
     const data = await resp.json();
@@ -0,0 +1,115 @@
+package com.jatriovijog.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Where the time of the main endpoints goes: each endpoint is loaded on
+ * its own against the PostgREST stub, then the client-side figures are
+ * printed next to {@code http.server.requests} (the whole request in the
+ * app) and {@code supabase.requests} (the round trip to PostgREST).
+ * {@code load.stub-latency-ms} sets the stub's round trip, 20 ms by default.
+ */
+@Tag("load")
+@ActiveProfiles("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTest {
+
+    static final String EMAIL = "officer@example.com";
+    static final String PASSWORD = "load-test";
+
+    private static PostgrestStub stub;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void supabase(DynamicPropertyRegistry registry) throws IOException {
+        stub = PostgrestStub.start(Duration.ofMillis(Long.getLong("load.stub-latency-ms", 20)));
+        seed(stub);
+        registry.add("supabase.url", stub::url);
+    }
+
+    @AfterAll
+    static void stop() {
+        stub.close();
+    }
+
+    /** One police user and a few hundred complaints and SOS reports. */
+    static void seed(PostgrestStub stub) {
+        stub.insert("users", Map.of("name", "Load Test", "email", EMAIL,
+                "password", new BCryptPasswordEncoder(10).encode(PASSWORD), "role", "police"));
+        for (int i = 0; i < 500; i++) {
+            stub.insert("complaints", Map.of("category", "Harassment", "status", "new", "thana", "Mirpur",
+                    "route", "Gulistan - Mirpur", "bus_number", "Dhaka Metro-BA 11-" + (1000 + i % 50),
+                    "description", "Seeded complaint " + i, "user_id", 1));
+        }
+        for (int i = 0; i < 100; i++) {
+            stub.insert("emergency_reports", Map.of("latitude", 23.75 + i * 1e-4, "longitude", 90.39, "user_id", 1));
+        }
+    }
+
+    /** The runs shared with the client mode harness; status updates need the police login. */
+    static List<LoadRun.Result> runEndpoints(LoadRun load) throws IOException, InterruptedException {
+        int requests = LoadRun.REQUESTS;
+        int concurrency = LoadRun.CONCURRENCY;
+        List<LoadRun.Result> results = new ArrayList<>();
+        results.add(load.run("GET /api/complaints?limit=50", requests, concurrency,
+                i -> load.get("/api/complaints?limit=50")));
+        results.add(load.run("GET /api/emergencies", requests, concurrency,
+                i -> load.get("/api/emergencies")));
+        results.add(load.run("POST /api/complaints", requests / 4, concurrency,
+                i -> load.json("POST", "/api/complaints", """
+                        {"category":"Overcharging","thana":"Tejgaon","route":"Motijheel - Uttara",
+                         "busNumber":"Dhaka Metro-BA 22-%d","description":"Load complaint %d"}"""
+                        .formatted(i % 100, i))));
+        results.add(load.run("POST /api/emergencies", requests / 4, concurrency,
+                i -> load.json("POST", "/api/emergencies", """
+                        {"latitude":23.7%d,"longitude":90.39,"type":"harassment"}""".formatted(i))));
+        LoadRun officer = load.loggedIn(EMAIL, PASSWORD);
+        results.add(officer.run("PATCH /api/complaints/{id}/status", requests / 4, concurrency,
+                i -> officer.json("PATCH", "/api/complaints/" + (1 + i % 500) + "/status", """
+                        {"status":"working","note":"load"}""")));
+        results.add(load.run("POST /api/auth/login", requests / 10, concurrency,
+                i -> load.json("POST", "/api/auth/login", """
+                        {"email":"%s","password":"%s"}""".formatted(EMAIL, PASSWORD))));
+        return results;
+    }
+
+    @Test
+    void mainEndpoints() throws Exception {
+        List<LoadRun.Result> results = runEndpoints(new LoadRun(port));
+
+        LoadRun.printTimers(meterRegistry, "http.server.requests");
+        LoadRun.printTimers(meterRegistry, "supabase.requests");
+        for (LoadRun.Result result : results) {
+            LoadRun.record("api", result);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.errors()).as(result.name()).isZero());
+        assertThat(meterRegistry.find("supabase.requests").timers())
+                .extracting(timer -> timer.getId().getTag("operation"))
+                .contains("getComplaints", "getEmergencies", "createComplaint", "createEmergency",
+                        "updateComplaintStatus", "getUserByEmail");
+    }
+}
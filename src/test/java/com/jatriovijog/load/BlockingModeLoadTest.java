@@ -0,0 +1,11 @@
+package com.jatriovijog.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Blocking calls on platform threads: Tomcat's worker pool and Reactor's
+ * bounded elastic pool.
+ */
+@TestPropertySource(properties = {"supabase.client.mode=blocking", "spring.threads.virtual.enabled=false"})
+class BlockingModeLoadTest extends ClientModeLoadTest {
+}
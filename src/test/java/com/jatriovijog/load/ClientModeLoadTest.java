@@ -0,0 +1,75 @@
+package com.jatriovijog.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The endpoints of {@link ApiLoadTest} in one {@code supabase.client.mode},
+ * set by the subclass. Runs are recorded in
+ * {@code target/load-results.csv} under the mode, with the peak thread
+ * count and heap in use, to compare the reactive WebClient with blocking
+ * calls on platform or virtual threads.
+ */
+@Tag("load")
+@ActiveProfiles("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+abstract class ClientModeLoadTest {
+
+    private static PostgrestStub stub;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    Environment environment;
+
+    @DynamicPropertySource
+    static void supabase(DynamicPropertyRegistry registry) throws IOException {
+        stub = PostgrestStub.start(Duration.ofMillis(Long.getLong("load.stub-latency-ms", 20)));
+        ApiLoadTest.seed(stub);
+        registry.add("supabase.url", stub::url);
+    }
+
+    @AfterAll
+    static void stop() {
+        stub.close();
+    }
+
+    /** The client mode, plus "+virtual" when the app runs on virtual threads. */
+    String mode() {
+        String mode = environment.getProperty("supabase.client.mode", "reactive");
+        return Threading.VIRTUAL.isActive(environment) ? mode + "+virtual" : mode;
+    }
+
+    @Test
+    void mainEndpoints() throws Exception {
+        List<LoadRun.Result> results = ApiLoadTest.runEndpoints(new LoadRun(port));
+
+        System.out.println("mode " + mode() + " on Java " + Runtime.version().feature());
+        LoadRun.printTimers(meterRegistry, "supabase.requests");
+        for (LoadRun.Result result : results) {
+            LoadRun.record(mode(), result);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.errors()).as(result.name()).isZero());
+    }
+}
@@ -0,0 +1,194 @@
+package com.jatriovijog.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jatriovijog.util.LatencyTimers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Sends a fixed number of requests from a fixed number of client threads,
+ * each waiting for its response before sending the next, and reports
+ * throughput and latency percentiles as the client saw them. Request
+ * count and concurrency default to {@code load.requests} and
+ * {@code load.concurrency} ({@code -Dload.requests=…} on the Maven command
+ * line).
+ */
+public final class LoadRun {
+
+    public static final int REQUESTS = Integer.getInteger("load.requests", 2000);
+    public static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+
+    private static final Path RESULTS = Path.of("target", "load-results.csv");
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+    private final String token;
+
+    public LoadRun(int port) {
+        this("http://127.0.0.1:" + port, null);
+    }
+
+    private LoadRun(String baseUrl, String token) {
+        this.baseUrl = baseUrl;
+        this.token = token;
+    }
+
+    /** A run against the same app whose requests carry the token of a login. */
+    public LoadRun loggedIn(String email, String password) throws IOException, InterruptedException {
+        String body = String.format("{\"email\":\"%s\",\"password\":\"%s\"}", email, password);
+        HttpResponse<String> response = client.send(json("POST", "/api/auth/login", body),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("login failed: " + response.statusCode() + " " + response.body());
+        }
+        return new LoadRun(baseUrl, new ObjectMapper().readTree(response.body()).path("token").asText());
+    }
+
+    /** Client-side figures of one run. */
+    public record Result(String name, int requests, int errors, double seconds, long[] sortedNanos) {
+
+        public double throughput() {
+            return requests / seconds;
+        }
+
+        public double percentileMs(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-36s %6d req %5d err %9.1f req/s  p50 %8.2f ms  p99 %8.2f ms",
+                    name, requests, errors, throughput(), percentileMs(0.5), percentileMs(0.99));
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    /** A GET of {@code path}. */
+    public HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    /** A request with a JSON body. */
+    public HttpRequest json(String method, String path, String body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Send {@code requests} requests, the i-th built by {@code request},
+     * from {@code concurrency} threads. Responses other than 2xx count as
+     * errors.
+     */
+    public Result run(String name, int requests, int concurrency, IntFunction<HttpRequest> request)
+            throws InterruptedException {
+        long[] nanos = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            pool.execute(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request.apply(i), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 != 2) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    nanos[i] = System.nanoTime() - sent;
+                }
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.MINUTES)) {
+            pool.shutdownNow();
+            throw new IllegalStateException(name + " did not finish in time");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(nanos);
+        Result result = new Result(name, requests, errors.get(), seconds, nanos);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Print the server-side timers {@code name} (e.g.
+     * {@code http.server.requests} or {@code supabase.requests}), one line
+     * per tag combination, slowest p99 first.
+     */
+    public static void printTimers(MeterRegistry meterRegistry, String name) {
+        List<Timer> timers = new ArrayList<>(meterRegistry.find(name).timers());
+        timers.removeIf(timer -> timer.count() == 0);
+        timers.sort(Comparator.comparingDouble((Timer timer) -> p99(timer)).reversed());
+        System.out.println(name);
+        for (Timer timer : timers) {
+            Map<String, Object> snapshot = LatencyTimers.snapshot(timer);
+            String tags = timer.getId().getTags().stream()
+                    .filter(tag -> !tag.getKey().equals("application") && !tag.getKey().equals("exception"))
+                    .map(tag -> tag.getKey() + "=" + tag.getValue())
+                    .reduce((a, b) -> a + " " + b).orElse("");
+            System.out.printf(Locale.ROOT, "  %-90s %6d  mean %8.2f ms  p50 %8.2f ms  p99 %8.2f ms%n", tags,
+                    timer.count(), snapshot.get("meanMs"), snapshot.getOrDefault("p50Ms", Double.NaN),
+                    snapshot.getOrDefault("p99Ms", Double.NaN));
+        }
+    }
+
+    private static double p99(Timer timer) {
+        return (double) LatencyTimers.snapshot(timer).getOrDefault("p99Ms", 0.0);
+    }
+
+    /**
+     * Append {@code result} with the run's {@code label} (mode, repository,
+     * …), the JVM's peak thread count (app, stub and client together) and
+     * the heap in use to
+     * {@code target/load-results.csv}, so runs in separate JVMs can be
+     * compared.
+     */
+    public static void record(String label, Result result) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        long heapMb = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+        int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        boolean header = !Files.exists(RESULTS);
+        Files.createDirectories(RESULTS.getParent());
+        String line = String.format(Locale.ROOT, "%s%s,%s,%d,%d,%.1f,%.2f,%.2f,%d,%d,%d%n",
+                header ? "label,run,requests,errors,throughput,p50_ms,p99_ms,peak_threads,heap_used_mb,java\n" : "",
+                label, result.name(), result.requests(), result.errors(), result.throughput(),
+                result.percentileMs(0.5), result.percentileMs(0.99), peakThreads, heapMb,
+                Runtime.version().feature());
+        Files.writeString(RESULTS, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,241 @@
+package com.jatriovijog.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory stand-in for PostgREST under {@code /rest/v1}, enough for
+ * the load harnesses: {@code eq.}, {@code gt.}, {@code lt.}, {@code in.}
+ * and {@code is.null} filters, the complaint keyset cursor, ordering by
+ * one column, {@code limit}, inserts with {@code on_conflict} and PATCH
+ * by id. Every response is held back by a fixed latency standing in for
+ * the network round trip to Supabase.
+ */
+public final class PostgrestStub implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+    private static final TypeReference<List<Map<String, Object>>> ROWS = new TypeReference<>() {};
+    private static final Set<String> NOT_FILTERS = Set.of("select", "order", "limit", "or", "on_conflict", "columns");
+    private static final Pattern CURSOR_ID = Pattern.compile("id\\.(lt|gt)\\.(\\d+)\\)\\)$");
+
+    private final Map<String, List<Map<String, Object>>> tables = new HashMap<>();
+    private final Duration latency;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private PostgrestStub(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/rest/v1/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Start a stub on a free local port, holding every response back by
+     * {@code latency}.
+     */
+    public static PostgrestStub start(Duration latency) throws IOException {
+        return new PostgrestStub(latency);
+    }
+
+    /** The value for {@code supabase.url}. */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Add a row to {@code table}, giving it the next id and a
+     * {@code created_at} when it has none.
+     */
+    public synchronized Map<String, Object> insert(String table, Map<String, Object> row) {
+        List<Map<String, Object>> rows = tables.computeIfAbsent(table, t -> new ArrayList<>());
+        Map<String, Object> stored = new LinkedHashMap<>(row);
+        if (!table.startsWith("chat_")) {
+            stored.putIfAbsent("id", (long) rows.size() + 1);
+        }
+        stored.putIfAbsent("created_at", Instant.now().toString());
+        rows.add(stored);
+        return new LinkedHashMap<>(stored);
+    }
+
+    /** Number of rows in {@code table}. */
+    public synchronized int count(String table) {
+        return tables.getOrDefault(table, List.of()).size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring("/rest/v1/".length());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            if (path.startsWith("rpc/")) {
+                respond(exchange, 204, null);
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> respond(exchange, 200, select(path, query));
+                case "POST" -> respond(exchange, 201, insert(path, query, MAPPER.readTree(body)));
+                case "PATCH" -> respond(exchange, 200, update(path, query, MAPPER.readValue(body, ROW)));
+                case "DELETE" -> {
+                    delete(path, query);
+                    respond(exchange, 204, null);
+                }
+                default -> respond(exchange, 405, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] json = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private synchronized List<Map<String, Object>> select(String table, Map<String, String> query) {
+        List<Map<String, Object>> rows = new ArrayList<>(tables.getOrDefault(table, List.of())
+                .stream().filter(filter(query)).<Map<String, Object>>map(LinkedHashMap::new).toList());
+        String order = query.get("order");
+        if (order != null) {
+            String[] first = order.split(",")[0].split("\\.");
+            Comparator<Map<String, Object>> comparator = (a, b) -> compare(a.get(first[0]), b.get(first[0]));
+            rows.sort(first.length > 1 && first[1].equals("desc") ? comparator.reversed() : comparator);
+        }
+        if (query.containsKey("limit")) {
+            rows = rows.subList(0, Math.min(rows.size(), Integer.parseInt(query.get("limit"))));
+        }
+        return rows;
+    }
+
+    private synchronized List<Map<String, Object>> insert(String table, Map<String, String> query, JsonNode body) {
+        List<Map<String, Object>> items = body.isArray()
+                ? MAPPER.convertValue(body, ROWS)
+                : List.of(MAPPER.convertValue(body, ROW));
+        List<String> keys = query.containsKey("on_conflict") ? List.of(query.get("on_conflict").split(",")) : List.of();
+        List<Map<String, Object>> existing = tables.getOrDefault(table, List.of());
+        List<Map<String, Object>> stored = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            boolean conflict = !keys.isEmpty() && existing.stream()
+                    .anyMatch(row -> keys.stream().allMatch(key -> String.valueOf(row.get(key)).equals(String.valueOf(item.get(key)))));
+            if (!conflict) {
+                stored.add(insert(table, item));
+            }
+        }
+        return stored;
+    }
+
+    private synchronized List<Map<String, Object>> update(String table, Map<String, String> query, Map<String, Object> values) {
+        List<Map<String, Object>> updated = new ArrayList<>();
+        for (Map<String, Object> row : tables.getOrDefault(table, List.of())) {
+            if (filter(query).test(row)) {
+                row.putAll(values);
+                updated.add(new LinkedHashMap<>(row));
+            }
+        }
+        return updated;
+    }
+
+    private synchronized void delete(String table, Map<String, String> query) {
+        tables.getOrDefault(table, new ArrayList<>()).removeIf(filter(query));
+    }
+
+    private static Predicate<Map<String, Object>> filter(Map<String, String> query) {
+        Predicate<Map<String, Object>> filter = row -> true;
+        for (Map.Entry<String, String> param : query.entrySet()) {
+            String column = param.getKey();
+            String condition = param.getValue();
+            if (column.equals("or")) {
+                // the (created_at, id) keyset cursor; ids grow with created_at here
+                Matcher cursor = CURSOR_ID.matcher(condition);
+                if (cursor.find()) {
+                    filter = filter.and(condition("id", cursor.group(1) + "." + cursor.group(2)));
+                }
+            } else if (!NOT_FILTERS.contains(column)) {
+                filter = filter.and(condition(column, condition));
+            }
+        }
+        return filter;
+    }
+
+    private static Predicate<Map<String, Object>> condition(String column, String condition) {
+        int dot = condition.indexOf('.');
+        String op = condition.substring(0, dot);
+        String operand = condition.substring(dot + 1);
+        return switch (op) {
+            case "eq" -> row -> compare(row.get(column), operand) == 0;
+            case "gt" -> row -> compare(row.get(column), operand) > 0;
+            case "lt" -> row -> compare(row.get(column), operand) < 0;
+            case "is" -> row -> row.get(column) == null;
+            case "in" -> {
+                Set<String> values = Set.of(operand.substring(1, operand.length() - 1).split(","));
+                yield row -> values.contains(String.valueOf(row.get(column)));
+            }
+            default -> throw new IllegalArgumentException("Unsupported filter " + condition);
+        };
+    }
+
+    private static int compare(Object value, Object operand) {
+        if (value == null || operand == null) {
+            return value == operand ? 0 : value == null ? -1 : 1;
+        }
+        if (value instanceof Number number) {
+            return Double.compare(number.doubleValue(), Double.parseDouble(String.valueOf(operand)));
+        }
+        return String.valueOf(value).compareTo(String.valueOf(operand));
+    }
+}
@@ -0,0 +1,7 @@
+package com.jatriovijog.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "supabase.client.mode=reactive")
+class ReactiveModeLoadTest extends ClientModeLoadTest {
+}
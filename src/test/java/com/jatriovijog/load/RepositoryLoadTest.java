@@ -0,0 +1,180 @@
+package com.jatriovijog.load;
+
+import com.jatriovijog.JatriOvijogApplication;
+import com.jatriovijog.util.LatencyTimers;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The endpoints of {@link ApiLoadTest} over {@code supabase.repository=rest}
+ * and {@code jdbc} against the same Postgres container. PostgREST runs in a
+ * second container behind an nginx container that serves it under
+ * {@code /rest/v1}, as Supabase's gateway does. Both apps run one after
+ * the other in this JVM; the {@code supabase.requests} p50/p99 of every
+ * operation are printed side by side. Skipped when Docker is not available.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryLoadTest {
+
+    private static final String JWT_SECRET = "jatri-ovijog-load-test-secret-of-at-least-32-chars";
+
+    private static final Network NETWORK = Network.newNetwork();
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("db");
+
+    private static final GenericContainer<?> POSTGREST = new GenericContainer<>("postgrest/postgrest:v12.0.2")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("postgrest")
+            .withEnv("PGRST_DB_SCHEMAS", "public")
+            .withEnv("PGRST_JWT_SECRET", JWT_SECRET)
+            .withExposedPorts(3000)
+            .waitingFor(Wait.forHttp("/").forStatusCode(200));
+
+    private static final GenericContainer<?> GATEWAY = new GenericContainer<>("nginx:1.25-alpine")
+            .withNetwork(NETWORK)
+            .withCopyToContainer(Transferable.of("""
+                    server {
+                        listen 80;
+                        location /rest/v1/ {
+                            proxy_pass http://postgrest:3000/;
+                        }
+                    }
+                    """), "/etc/nginx/conf.d/default.conf")
+            .withExposedPorts(80)
+            .waitingFor(Wait.forListeningPort());
+
+    @BeforeAll
+    static void start() throws SQLException {
+        POSTGRES.start();
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        seed();
+        // PostgREST reads the schema when it starts, so only after the migrations
+        POSTGREST.withEnv("PGRST_DB_URI", "postgres://%s:%s@db:5432/%s".formatted(
+                        POSTGRES.getUsername(), POSTGRES.getPassword(), POSTGRES.getDatabaseName()))
+                .withEnv("PGRST_DB_ANON_ROLE", POSTGRES.getUsername())
+                .start();
+        GATEWAY.start();
+    }
+
+    @AfterAll
+    static void stop() {
+        GATEWAY.stop();
+        POSTGREST.stop();
+        POSTGRES.stop();
+        NETWORK.close();
+    }
+
+    /** The rows {@link ApiLoadTest#seed} puts in the stub. */
+    private static void seed() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword())) {
+            try (PreparedStatement user = connection.prepareStatement(
+                    "INSERT INTO users (name, email, password, role) VALUES ('Load Test', ?, ?, 'police')")) {
+                user.setString(1, ApiLoadTest.EMAIL);
+                user.setString(2, new BCryptPasswordEncoder(10).encode(ApiLoadTest.PASSWORD));
+                user.executeUpdate();
+            }
+            try (PreparedStatement complaint = connection.prepareStatement("""
+                    INSERT INTO complaints (category, status, thana, route, bus_number, description, user_id)
+                    VALUES ('Harassment', 'new', 'Mirpur', 'Gulistan - Mirpur', ?, ?, 1)""")) {
+                for (int i = 0; i < 500; i++) {
+                    complaint.setString(1, "Dhaka Metro-BA 11-" + (1000 + i % 50));
+                    complaint.setString(2, "Seeded complaint " + i);
+                    complaint.addBatch();
+                }
+                complaint.executeBatch();
+            }
+            try (PreparedStatement emergency = connection.prepareStatement(
+                    "INSERT INTO emergency_reports (latitude, longitude, user_id) VALUES (?, 90.39, 1)")) {
+                for (int i = 0; i < 100; i++) {
+                    emergency.setDouble(1, 23.75 + i * 1e-4);
+                    emergency.addBatch();
+                }
+                emergency.executeBatch();
+            }
+        }
+    }
+
+    /** The supabase.requests p50/p99 of every operation of one run. */
+    private static Map<String, Map<String, Object>> run(String repository, String... arguments) throws Exception {
+        try (ServletWebServerApplicationContext app = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(JatriOvijogApplication.class)
+                        .profiles("load")
+                        .run(Stream.concat(Stream.of("--server.port=0", "--supabase.repository=" + repository),
+                                Stream.of(arguments)).toArray(String[]::new))) {
+            List<LoadRun.Result> results = ApiLoadTest.runEndpoints(new LoadRun(app.getWebServer().getPort()));
+            for (LoadRun.Result result : results) {
+                LoadRun.record(repository, result);
+            }
+            assertThat(results).allSatisfy(result -> assertThat(result.errors()).as(result.name()).isZero());
+
+            Map<String, Map<String, Object>> operations = new TreeMap<>();
+            MeterRegistry meterRegistry = app.getBean(MeterRegistry.class);
+            for (Timer timer : meterRegistry.find("supabase.requests").tag("outcome", "SUCCESS").timers()) {
+                operations.put(timer.getId().getTag("operation"), LatencyTimers.snapshot(timer));
+            }
+            return operations;
+        }
+    }
+
+    @Test
+    void restAgainstJdbc() throws Exception {
+        String apiKey = Jwts.builder()
+                .claim("role", POSTGRES.getUsername())
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        Map<String, Map<String, Object>> rest = run("rest",
+                "--supabase.url=http://" + GATEWAY.getHost() + ":" + GATEWAY.getMappedPort(80),
+                "--supabase.apikey=" + apiKey);
+        Map<String, Map<String, Object>> jdbc = run("jdbc",
+                "--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                "--spring.datasource.username=" + POSTGRES.getUsername(),
+                "--spring.datasource.password=" + POSTGRES.getPassword());
+
+        System.out.printf(Locale.ROOT, "%-26s %12s %12s %12s %12s%n", "supabase.requests",
+                "rest p50 ms", "jdbc p50 ms", "rest p99 ms", "jdbc p99 ms");
+        for (String operation : rest.keySet()) {
+            Map<String, Object> overJdbc = jdbc.getOrDefault(operation, Map.of());
+            System.out.printf(Locale.ROOT, "%-26s %12.2f %12.2f %12.2f %12.2f%n", operation,
+                    rest.get(operation).getOrDefault("p50Ms", Double.NaN), overJdbc.getOrDefault("p50Ms", Double.NaN),
+                    rest.get(operation).getOrDefault("p99Ms", Double.NaN), overJdbc.getOrDefault("p99Ms", Double.NaN));
+        }
+        assertThat(jdbc.keySet()).containsAll(rest.keySet());
+    }
+}
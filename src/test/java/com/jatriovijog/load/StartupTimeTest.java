@@ -0,0 +1,181 @@
+package com.jatriovijog.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time to ready and latency of the first requests of a new instance,
+ * started in a JVM of its own with the prod Spring profile against the
+ * PostgREST stub. Ready is when {@code /actuator/health/readiness} first
+ * answers 200, measured from launching the JVM.
+ *
+ * <p>
+ * By default the app runs from the test classpath (no AOT, no CDS). Pass
+ * {@code -Dstartup.jar=target/jatri-backend.jar} after
+ * {@code mvn -Pprod package} to measure the production build; the class
+ * data sharing archive next to it is used when present. Medians of
+ * {@code startup.runs} launches (3 by default) are printed and appended
+ * to {@code target/startup-results.csv}; with {@code startup.max-ready-ms}
+ * or {@code startup.max-first-request-ms} set the test fails above them.
+ * </p>
+ */
+@Tag("load")
+class StartupTimeTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final String JAR = System.getProperty("startup.jar", "");
+    private static final long MAX_READY_MS = Long.getLong("startup.max-ready-ms", 0);
+    private static final long MAX_FIRST_REQUEST_MS = Long.getLong("startup.max-first-request-ms", 0);
+    private static final Duration TIMEOUT = Duration.ofMinutes(3);
+    private static final Path RESULTS = Path.of("target", "startup-results.csv");
+
+    private static PostgrestStub stub;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    /** Figures of one launch. */
+    record Launch(long readyMs, long firstRequestMs, long secondRequestMs) {}
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stub = PostgrestStub.start(Duration.ofMillis(Long.getLong("load.stub-latency-ms", 20)));
+        ApiLoadTest.seed(stub);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** The java command line for the jar or, without one, the test classpath. */
+    private static List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (JAR.isEmpty()) {
+            // the real test classpath, not surefire's manifest-only jar; DevTools would restart the app
+            String classpath = Arrays.stream(System.getProperty("surefire.test.class.path",
+                            System.getProperty("java.class.path")).split(File.pathSeparator))
+                    .filter(entry -> !entry.contains("spring-boot-devtools"))
+                    .collect(Collectors.joining(File.pathSeparator));
+            command.addAll(List.of("-cp", classpath, "com.jatriovijog.JatriOvijogApplication"));
+        } else {
+            Path archive = Path.of(JAR).resolveSibling("app.jsa");
+            if (Files.exists(archive)) {
+                command.add("-XX:SharedArchiveFile=" + archive);
+            }
+            command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", JAR));
+        }
+        command.addAll(List.of("--spring.profiles.active=prod", "--server.port=" + port,
+                "--supabase.url=" + stub.url()));
+        return command;
+    }
+
+    private long timeGet(int port, String path) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + port + path)).build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private boolean ready(int port) throws InterruptedException {
+        try {
+            return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/actuator/health/readiness"))
+                    .timeout(Duration.ofSeconds(1)).build(), HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Launch launch(int run) throws IOException, InterruptedException {
+        int port = freePort();
+        Path log = Path.of("target", "startup-" + run + ".log");
+        long start = System.nanoTime();
+        Process app = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            while (!ready(port)) {
+                assertThat(app.isAlive()).as("app exited, see " + log).isTrue();
+                assertThat(System.nanoTime()).as("not ready within " + TIMEOUT + ", see " + log).isLessThan(deadline);
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            long readyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long first = timeGet(port, "/api/complaints?limit=1");
+            long second = timeGet(port, "/api/complaints?limit=1");
+            Launch launch = new Launch(readyMs, first, second);
+            System.out.printf(Locale.ROOT, "startup run %d: ready %d ms, first request %d ms, second %d ms%n",
+                    run, launch.readyMs(), launch.firstRequestMs(), launch.secondRequestMs());
+            return launch;
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+        }
+    }
+
+    private static long median(List<Launch> launches, ToLongFunction<Launch> figure) {
+        long[] values = launches.stream().mapToLong(figure).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    @Test
+    void readyAndFirstRequest() throws Exception {
+        List<Launch> launches = new ArrayList<>();
+        for (int run = 1; run <= RUNS; run++) {
+            launches.add(launch(run));
+        }
+        long readyMs = median(launches, Launch::readyMs);
+        long firstMs = median(launches, Launch::firstRequestMs);
+        long secondMs = median(launches, Launch::secondRequestMs);
+        String build = JAR.isEmpty() ? "classpath" : JAR;
+        System.out.printf(Locale.ROOT, "startup %s, median of %d: ready %d ms, first request %d ms, second %d ms%n",
+                build, RUNS, readyMs, firstMs, secondMs);
+
+        boolean header = !Files.exists(RESULTS);
+        Files.createDirectories(RESULTS.getParent());
+        Files.writeString(RESULTS, String.format(Locale.ROOT, "%s%s,%d,%d,%d,%d,%d%n",
+                        header ? "build,runs,ready_ms,first_request_ms,second_request_ms,java\n" : "",
+                        build, RUNS, readyMs, firstMs, secondMs, Runtime.version().feature()),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        if (MAX_READY_MS > 0) {
+            assertThat(readyMs).as("median time to ready").isLessThanOrEqualTo(MAX_READY_MS);
+        }
+        if (MAX_FIRST_REQUEST_MS > 0) {
+            assertThat(firstMs).as("median first request").isLessThanOrEqualTo(MAX_FIRST_REQUEST_MS);
+        }
+    }
+}
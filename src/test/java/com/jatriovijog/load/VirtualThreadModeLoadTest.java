@@ -0,0 +1,15 @@
+package com.jatriovijog.load;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Blocking calls on virtual threads. Spring Boot only switches to virtual
+ * threads on Java 21 or later, so run Maven on a JDK 21 for this one; on
+ * older JDKs it is skipped.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = {"supabase.client.mode=blocking", "spring.threads.virtual.enabled=true"})
+class VirtualThreadModeLoadTest extends ClientModeLoadTest {
+}
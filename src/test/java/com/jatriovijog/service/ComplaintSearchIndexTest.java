@@ -0,0 +1,100 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ComplaintSearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ComplaintSearchIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ComplaintSearchIndex index;
+
+    @BeforeEach
+    void fill() {
+        index = new ComplaintSearchIndex(null, meterRegistry, 1000);
+        index.upsert(complaint(1, "new", "Mirpur", "Dhaka Metro-BA 11-1234", "Harassment",
+                "Conductor harassed a woman near the gate"));
+        index.upsert(complaint(2, "resolved", "Mirpur", "Dhaka Metro-BA 11-5678", "Overcharging",
+                "Conductor asked double fare"));
+        index.upsert(complaint(3, "new", "Gulshan", "Dhaka Metro-BA 11-1234", "Reckless driving",
+                "Driver was racing another bus"));
+        index.upsert(complaint(4, "new", "Motijheel", null, "Other",
+                "বাসে হয়রানি করা হয়েছে"));
+    }
+
+    private static Complaint complaint(long id, String status, String thana, String busNumber, String category,
+                                       String description) {
+        Complaint complaint = new Complaint();
+        complaint.setId(id);
+        complaint.setStatus(status);
+        complaint.setThana(thana);
+        complaint.setBusNumber(busNumber);
+        complaint.setCategory(category);
+        complaint.setDescription(description);
+        return complaint;
+    }
+
+    private static List<Long> ids(ComplaintSearchResult result) {
+        return result.hits().stream().map(hit -> hit.complaint().getId()).toList();
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertThat(ids(index.search("conductor fare", null, null, null, 10, 0))).containsExactly(2L);
+        assertThat(ids(index.search("conductor racing", null, null, null, 10, 0))).isEmpty();
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertThat(ids(index.search("harass", null, null, null, 10, 0))).containsExactly(1L);
+        assertThat(ids(index.search("harass driver", null, null, null, 10, 0))).isEmpty();
+    }
+
+    @Test
+    void identifyingFieldsRankAboveTheDescription() {
+        // same length as 1, but the term is in the description instead of the category
+        index.upsert(complaint(5, "new", "Mirpur", "Dhaka Metro-BA 11-1234", "Other",
+                "Conductor harassment of a woman near gate"));
+
+        assertThat(ids(index.search("harassment", null, null, null, 10, 0))).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void filtersAndFacets() {
+        ComplaintSearchResult result = index.search("conductor", null, "mirpur", null, 10, 0);
+
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(result.facets().get("status")).containsEntry("new", 1L).containsEntry("resolved", 1L);
+        assertThat(ids(index.search("conductor", "RESOLVED", null, null, 10, 0))).containsExactly(2L);
+        assertThat(index.search("", null, null, "Dhaka Metro-BA 11-1234", 10, 0).facets().get("thana"))
+                .containsEntry("Mirpur", 1L).containsEntry("Gulshan", 1L);
+    }
+
+    @Test
+    void emptyTextMatchesEverythingNewestFirst() {
+        ComplaintSearchResult result = index.search(" ", null, null, null, 2, 1);
+
+        assertThat(result.total()).isEqualTo(4);
+        assertThat(ids(result)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void banglaWordsKeepTheirVowelSigns() {
+        assertThat(ids(index.search("হয়রানি", null, null, null, 10, 0))).containsExactly(4L);
+    }
+
+    @Test
+    void upsertReplacesTheIndexedVersion() {
+        index.upsert(complaint(2, "resolved", "Mirpur", null, "Overcharging", "Helper refused change"));
+
+        assertThat(ids(index.search("double", null, null, null, 10, 0))).isEmpty();
+        assertThat(ids(index.search("refused", null, null, null, 10, 0))).containsExactly(2L);
+        assertThat(meterRegistry.get("search.documents").gauge().value()).isEqualTo(4);
+    }
+}
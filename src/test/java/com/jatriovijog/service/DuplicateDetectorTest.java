@@ -0,0 +1,151 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateDetectorTest {
+
+    private static final String REPORT = "The driver of this bus was racing another bus near Farmgate and nearly hit a rickshaw";
+
+    /** A clock the tests move forward by hand. */
+    private static final class TestClock extends Clock {
+        private Instant now = Instant.parse("2026-10-18T09:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final TestClock clock = new TestClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DuplicateDetector detector;
+
+    @BeforeEach
+    void create() {
+        detector = new DuplicateDetector(null, meterRegistry, clock, true, 30, 0.5, 200, 500);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private Complaint complaint(Long id, String busNumber, String route, String description) {
+        Complaint complaint = new Complaint();
+        complaint.setId(id);
+        complaint.setStatus("new");
+        complaint.setThana("Tejgaon");
+        complaint.setBusNumber(busNumber);
+        complaint.setRoute(route);
+        complaint.setDescription(description);
+        complaint.setCreatedAt(clock.instant().toString());
+        return complaint;
+    }
+
+    private Complaint stored(long id, String description) {
+        Complaint complaint = complaint(id, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", description);
+        detector.complaintStored(complaint);
+        return complaint;
+    }
+
+    @Test
+    void nearIdenticalReportAboutTheSameBusJoinsItsCluster() {
+        stored(1, REPORT);
+
+        Long cluster = detector.clusterOf(complaint(null, "dhaka metro ba 11 1234", "Gulistan-Mirpur",
+                "the driver of this bus was racing another bus near farmgate, nearly hit a rickshaw!"));
+
+        assertThat(cluster).isEqualTo(1L);
+    }
+
+    @Test
+    void otherBusesRoutesAndDescriptionsDoNotMatch() {
+        stored(1, REPORT);
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-9999", "Gulistan - Mirpur", REPORT))).isNull();
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Motijheel - Uttara", REPORT))).isNull();
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur",
+                "Conductor refused to give change and shouted at an old passenger"))).isNull();
+        assertThat(detector.clusterOf(complaint(null, null, "Gulistan - Mirpur", REPORT))).isNull();
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", "  ..."))).isNull();
+    }
+
+    @Test
+    void duplicatesPointAtTheFirstComplaintOfTheCluster() {
+        stored(1, REPORT);
+        Complaint second = complaint(2L, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT + " again");
+        second.setDuplicateOf(detector.clusterOf(second));
+        detector.complaintStored(second);
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur",
+                REPORT + " again today"))).isEqualTo(1L);
+    }
+
+    @Test
+    void complaintsMarkedFakeStopMatching() {
+        Complaint first = stored(1, REPORT);
+        first.setStatus("fake");
+        detector.complaintUpdated(first);
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT))).isNull();
+        assertThat(gauge("complaints.duplicate.keys")).isZero();
+        assertThat(gauge("complaints.duplicate.tracked")).isZero();
+    }
+
+    @Test
+    void complaintsLeaveTheWindow() {
+        stored(1, REPORT);
+        clock.now = clock.now.plus(Duration.ofMinutes(31));
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT))).isNull();
+    }
+
+    @Test
+    void futureTimestampsAreClampedToNow() {
+        Complaint early = complaint(1L, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT);
+        early.setCreatedAt(clock.now.plus(Duration.ofDays(1)).toString());
+        detector.complaintStored(early);
+        clock.now = clock.now.plus(Duration.ofMinutes(31));
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT))).isNull();
+    }
+
+    @Test
+    void quietKeysAreSweptOnceTheWindowPasses() {
+        stored(1, REPORT);
+        clock.now = clock.now.plus(Duration.ofMinutes(31));
+
+        detector.complaintStored(complaint(2L, "Dhaka Metro-BA 22-0001", "Motijheel - Uttara", REPORT));
+
+        assertThat(gauge("complaints.duplicate.keys")).isEqualTo(1);
+        assertThat(gauge("complaints.duplicate.tracked")).isEqualTo(1);
+    }
+
+    @Test
+    void disabledDetectorNeverMatches() {
+        detector = new DuplicateDetector(null, new SimpleMeterRegistry(), clock, false, 30, 0.5, 200, 500);
+        stored(1, REPORT);
+
+        assertThat(detector.clusterOf(complaint(null, "Dhaka Metro-BA 11-1234", "Gulistan - Mirpur", REPORT))).isNull();
+    }
+}
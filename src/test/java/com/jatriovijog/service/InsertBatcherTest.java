@@ -0,0 +1,64 @@
+package com.jatriovijog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InsertBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<String>> sent = new CopyOnWriteArrayList<>();
+
+    private Flux<String> insertAll(List<String> rows) {
+        sent.add(List.copyOf(rows));
+        if (rows.contains("bad")) {
+            return Flux.error(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request",
+                    null, null, null));
+        }
+        return Flux.fromIterable(rows).map(row -> row + "!");
+    }
+
+    @Test
+    void rowsOfARejectedBatchAreResentOneAtATime() {
+        InsertBatcher<String> batcher = new InsertBatcher<>(this::insertAll, 3, Duration.ofSeconds(10),
+                meterRegistry, "rows");
+
+        Mono<String> a = batcher.submit("a").cache();
+        Mono<String> bad = batcher.submit("bad").cache();
+        a.subscribe(row -> { }, error -> { });
+        bad.subscribe(row -> { }, error -> { });
+        Mono<String> c = batcher.submit("c");
+
+        assertThat(c.block(Duration.ofSeconds(5))).isEqualTo("c!");
+        assertThat(a.block(Duration.ofSeconds(5))).isEqualTo("a!");
+        assertThatThrownBy(() -> bad.block(Duration.ofSeconds(5))).isInstanceOf(WebClientResponseException.class);
+        assertThat(sent).containsExactly(List.of("a", "bad", "c"), List.of("a"), List.of("bad"), List.of("c"));
+        assertThat(meterRegistry.get("supabase.batch.isolated").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherErrorsFailTheWholeBatch() {
+        InsertBatcher<String> batcher = new InsertBatcher<>(rows -> {
+            sent.add(List.copyOf(rows));
+            return Flux.error(new IllegalStateException("unreachable"));
+        }, 2, Duration.ofSeconds(10), meterRegistry, "rows");
+
+        Mono<String> a = batcher.submit("a").cache();
+        a.subscribe(row -> { }, error -> { });
+        Mono<String> b = batcher.submit("b");
+
+        assertThatThrownBy(() -> b.block(Duration.ofSeconds(5))).hasMessageContaining("unreachable");
+        assertThatThrownBy(() -> a.block(Duration.ofSeconds(5))).hasMessageContaining("unreachable");
+        assertThat(sent).containsExactly(List.of("a", "b"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.jatriovijog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /** auth: burst 3, 6 a minute; complaints: burst 1, 60 a minute; the rest unlimited. */
+    private RateLimiter limiter(boolean enabled) {
+        return new RateLimiter(meterRegistry, enabled, 1000,
+                3, 6, 1, 60, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void allowsTheBurstThenRejects() {
+        RateLimiter limiter = limiter(true);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("auth", "1.2.3.4")).isZero();
+        }
+        long wait = limiter.tryAcquire("auth", "1.2.3.4");
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void bucketsArePerClientAndPolicy() {
+        RateLimiter limiter = limiter(true);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("auth", "a");
+        }
+
+        assertThat(limiter.tryAcquire("auth", "a")).isPositive();
+        assertThat(limiter.tryAcquire("auth", "b")).isZero();
+        assertThat(limiter.tryAcquire("complaints", "a")).isZero();
+    }
+
+    @Test
+    void refillsAfterTheReturnedWait() throws InterruptedException {
+        RateLimiter limiter = limiter(true);
+        assertThat(limiter.tryAcquire("complaints", "a")).isZero();
+
+        long wait = limiter.tryAcquire("complaints", "a");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(limiter.tryAcquire("complaints", "a")).isZero();
+    }
+
+    @Test
+    void unlimitedUnknownAndDisabledPoliciesNeverReject() {
+        RateLimiter limiter = limiter(true);
+        RateLimiter disabled = limiter(false);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire("emergencies", "a")).isZero();
+            assertThat(limiter.tryAcquire("nope", "a")).isZero();
+            assertThat(disabled.tryAcquire("auth", "a")).isZero();
+        }
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() throws InterruptedException {
+        RateLimiter limiter = limiter(true);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 64; i++) {
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (limiter.tryAcquire("auth", "same") == 0) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed).hasValue(3);
+        assertThat(requests("allowed")).isEqualTo(3);
+        assertThat(requests("rejected")).isEqualTo(61);
+    }
+
+    private double requests(String outcome) {
+        return meterRegistry.get("ratelimit.requests").tag("policy", "auth").tag("outcome", outcome).counter().count();
+    }
+}
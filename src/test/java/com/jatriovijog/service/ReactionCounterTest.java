@@ -0,0 +1,78 @@
+package com.jatriovijog.service;
+
+import com.jatriovijog.model.Complaint;
+import com.jatriovijog.model.ReactionCounts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactionCounterTest {
+
+    /** One addReactionCounts call the repository received. */
+    private record Call(String flushId, List<ReactionCounts> deltas) {}
+
+    private final List<Call> calls = new ArrayList<>();
+    private boolean failing;
+
+    private ReactionCounter counter() {
+        SupabaseRepository repository = (SupabaseRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{SupabaseRepository.class}, (proxy, method, args) ->
+                        switch (method.getName()) {
+                            case "name" -> "test";
+                            case "findComplaint" -> Mono.just(new Complaint());
+                            case "addReactionCounts" -> {
+                                @SuppressWarnings("unchecked")
+                                List<ReactionCounts> deltas = (List<ReactionCounts>) args[1];
+                                calls.add(new Call((String) args[0], deltas));
+                                yield failing ? Mono.error(new IllegalStateException("timed out")) : Mono.empty();
+                            }
+                            default -> throw new UnsupportedOperationException(method.getName());
+                        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SupabaseService supabaseService = new SupabaseService(repository, meterRegistry, false, 50, 20, true,
+                null, null);
+        return new ReactionCounter(supabaseService, 5000, 500, meterRegistry);
+    }
+
+    @Test
+    void failedFlushIsResentUnchangedBeforeNewClicks() {
+        ReactionCounter counter = counter();
+        counter.react(1, "support").block();
+        counter.react(1, "support").block();
+
+        failing = true;
+        counter.flush().block();
+        failing = false;
+        counter.react(1, "angry").block();
+        counter.flush().block();
+
+        assertThat(calls).hasSize(3);
+        assertThat(calls.get(1)).isEqualTo(calls.get(0));
+        assertThat(calls.get(1).deltas()).containsExactly(new ReactionCounts(1, 2, 0, 0, 0));
+        assertThat(calls.get(2).flushId()).isNotEqualTo(calls.get(0).flushId());
+        assertThat(calls.get(2).deltas()).containsExactly(new ReactionCounts(1, 0, 1, 0, 0));
+        assertThat(counter.get(List.of(1L))).containsExactly(new ReactionCounts(1, 2, 1, 0, 0));
+    }
+
+    @Test
+    void newClicksWaitWhileAnEarlierFlushKeepsFailing() {
+        ReactionCounter counter = counter();
+        counter.view(1).block();
+
+        failing = true;
+        counter.flush().block();
+        counter.view(1).block();
+        counter.flush().block();
+
+        assertThat(calls).hasSize(2);
+        assertThat(calls).allSatisfy(call ->
+                assertThat(call.deltas()).containsExactly(new ReactionCounts(1, 0, 0, 0, 1)));
+        assertThat(counter.get(List.of(1L))).containsExactly(new ReactionCounts(1, 0, 0, 0, 2));
+    }
+}
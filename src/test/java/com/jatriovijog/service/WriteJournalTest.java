@@ -0,0 +1,174 @@
+package com.jatriovijog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteJournalTest {
+
+    public record Row(String key, String text) {}
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Row> inserted = new CopyOnWriteArrayList<>();
+    private final List<WriteJournal<Row>> opened = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        opened.forEach(WriteJournal::close);
+    }
+
+    private WriteJournal<Row> open(Function<List<Row>, Flux<Row>> insertOnce) throws IOException {
+        WriteJournal<Row> journal = new WriteJournal<>(dir, "rows", Row.class, insertOnce,
+                100, 10, Duration.ofMillis(10), Duration.ofMillis(50), meterRegistry);
+        opened.add(journal);
+        return journal;
+    }
+
+    private Flux<Row> store(List<Row> rows) {
+        inserted.addAll(rows);
+        return Flux.fromIterable(rows);
+    }
+
+    private static String line(String key) {
+        return "{\"key\":\"" + key + "\",\"text\":\"t\"}\n";
+    }
+
+    private double pending() {
+        return meterRegistry.get("journal.pending").gauge().value();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private void writeJournal(String content) throws IOException {
+        Files.writeString(dir.resolve("rows.journal"), content, StandardCharsets.UTF_8);
+    }
+
+    private void writeOffset(long offset) throws IOException {
+        Files.write(dir.resolve("rows.offset"), ByteBuffer.allocate(Long.BYTES).putLong(0, offset).array());
+    }
+
+    @Test
+    void tornTailIsCutOffOnRecovery() throws IOException {
+        String complete = line("a") + line("b");
+        writeJournal(complete + "{\"key\":\"c\",\"te");
+
+        open(this::store);
+
+        assertThat(pending()).isEqualTo(2);
+        assertThat(meterRegistry.get("journal.bytes").gauge().value()).isEqualTo(complete.length());
+        assertThat(Files.size(dir.resolve("rows.journal"))).isEqualTo(complete.length());
+    }
+
+    @Test
+    void unreadableLineIsDeadLetteredAndTheRestReplayed() throws IOException {
+        writeJournal(line("a") + "not json\n" + line("c"));
+
+        WriteJournal<Row> journal = open(this::store);
+        journal.start();
+
+        assertThat(inserted).extracting(Row::key).containsExactly("a", "c");
+        assertThat(Files.readString(dir.resolve("rows.dead"))).isEqualTo("not json\n");
+        assertThat(counter("journal.dead.lettered")).isEqualTo(1);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void offsetInsideALineReplaysEverything() throws IOException {
+        writeJournal(line("a") + line("b"));
+        writeOffset(line("a").length() + 3);
+
+        open(this::store).start();
+
+        assertThat(inserted).extracting(Row::key).containsExactly("a", "b");
+    }
+
+    @Test
+    void replaysOnlyRowsAfterTheStoredOffset() throws IOException {
+        writeJournal(line("a") + line("b") + line("c"));
+        writeOffset(line("a").length());
+
+        WriteJournal<Row> journal = open(this::store);
+        assertThat(inserted).isEmpty();
+        journal.start();
+
+        assertThat(inserted).extracting(Row::key).containsExactly("b", "c");
+        assertThat(pending()).isZero();
+        assertThat(meterRegistry.get("journal.bytes").gauge().value()).isZero();
+    }
+
+    @Test
+    void offsetBeyondTheFileReplaysEverything() throws IOException {
+        writeJournal(line("a"));
+        writeOffset(1_000);
+
+        open(this::store).start();
+
+        assertThat(inserted).extracting(Row::key).containsExactly("a");
+    }
+
+    @Test
+    void appendedRowsAreStoredOnlyAfterStart() throws IOException {
+        WriteJournal<Row> journal = open(this::store);
+
+        journal.append(new Row("a", "t")).block(Duration.ofSeconds(5));
+        assertThat(inserted).isEmpty();
+        assertThat(pending()).isEqualTo(1);
+
+        journal.start();
+        assertThat(inserted).extracting(Row::key).containsExactly("a");
+    }
+
+    @Test
+    void rowsRejectedAsInvalidAreDeadLettered() throws IOException {
+        Set<String> invalid = Set.of("b");
+        writeJournal(line("a") + line("b") + line("c"));
+
+        WriteJournal<Row> journal = open(rows -> rows.stream().anyMatch(row -> invalid.contains(row.key()))
+                ? Flux.error(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request",
+                        null, null, null))
+                : store(rows));
+        journal.start();
+
+        assertThat(inserted).extracting(Row::key).containsExactly("a", "c");
+        assertThat(Files.readString(dir.resolve("rows.dead"))).isEqualTo(line("b"));
+        assertThat(counter("journal.dead.lettered")).isEqualTo(1);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void rowsAlreadyStoredCountAsDuplicates() throws IOException {
+        writeJournal(line("a") + line("b"));
+
+        WriteJournal<Row> journal = open(rows -> Flux.fromIterable(rows).filter(row -> !row.key().equals("a")));
+        List<Row> notified = new CopyOnWriteArrayList<>();
+        journal.onStored(notified::add);
+        journal.start();
+
+        assertThat(notified).extracting(Row::key).containsExactly("b");
+        assertThat(counter("journal.stored")).isEqualTo(1);
+        assertThat(counter("journal.duplicates")).isEqualTo(1);
+    }
+}